@@ -0,0 +1,87 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.io.IOException;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Загрузка истории просмотров: один пользователь лайкает {@code likes} фильмов
+ * отдельными запросами или одним пакетным запросом.
+ */
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+public class BatchIngestBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Server {
+        @Param({"memory", "file"})
+        public String storage;
+
+        @Param({"1000"})
+        public int likes;
+
+        private RunningApp app;
+        private UserService users;
+        private long nextUser;
+        private long userId;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            app = RunningApp.start(storage);
+            FilmService films = app.bean(FilmService.class);
+            for (long i = 0; i < likes; i++) {
+                films.create(BenchmarkData.film(i));
+            }
+            users = app.bean(UserService.class);
+        }
+
+        // Каждый замер — новый пользователь, чтобы все лайки были новыми.
+        @Setup(Level.Invocation)
+        public void nextUser() {
+            userId = users.create(BenchmarkData.user(nextUser++)).getId();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            app.close();
+        }
+    }
+
+    @Benchmark
+    public int likeOneByOne(Server server) throws IOException, InterruptedException {
+        int sent = 0;
+        for (long filmId = 1; filmId <= server.likes; filmId++) {
+            server.app.send(server.app.put("/films/" + filmId + "/like/" + server.userId, ""));
+            sent++;
+        }
+        return sent;
+    }
+
+    @Benchmark
+    public int likeInBatch(Server server) throws IOException, InterruptedException {
+        StringJoiner body = new StringJoiner(",", "[", "]");
+        for (long filmId = 1; filmId <= server.likes; filmId++) {
+            body.add("{\"filmId\":" + filmId + ",\"userId\":" + server.userId + "}");
+        }
+        return server.app.send(server.app.put("/films/likes", body.toString()));
+    }
+}
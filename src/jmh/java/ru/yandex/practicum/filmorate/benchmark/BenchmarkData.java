@@ -0,0 +1,38 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.slf4j.LoggerFactory;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+
+final class BenchmarkData {
+    private BenchmarkData() {
+    }
+
+    // Сервисы пишут INFO на каждый вызов; без этого бенчмарк мерил бы консольный вывод.
+    static void silenceLogging() {
+        Logger root = (Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        root.setLevel(Level.WARN);
+    }
+
+    static Film film(long i) {
+        Film film = new Film();
+        film.setName("Film " + i);
+        film.setDescription("Description of film " + i);
+        film.setReleaseDate(LocalDate.of(1900, 1, 1).plusDays(i % 40_000));
+        film.setDuration(60 + (int) (i % 120));
+        return film;
+    }
+
+    static User user(long i) {
+        User user = new User();
+        user.setEmail("user" + i + "@example.com");
+        user.setLogin("user" + i);
+        user.setName("User " + i);
+        user.setBirthday(LocalDate.of(1950, 1, 1).plusDays(i % 20_000));
+        return user;
+    }
+}
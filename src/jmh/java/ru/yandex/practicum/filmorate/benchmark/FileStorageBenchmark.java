@@ -0,0 +1,115 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.file.FileFilmStorage;
+import ru.yandex.practicum.filmorate.storage.file.FileStorageEngine;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class FileStorageBenchmark {
+    private static final ObjectMapper OBJECT_MAPPER = JsonMapper.builder().findAndAddModules().build();
+
+    @State(Scope.Benchmark)
+    public static class WriteState {
+        private final AtomicLong next = new AtomicLong();
+        private Path directory;
+        private FileStorageEngine engine;
+        private FileFilmStorage films;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            BenchmarkData.silenceLogging();
+            directory = Files.createTempDirectory("filmorate-write");
+            engine = new FileStorageEngine(directory, Duration.ofHours(1), OBJECT_MAPPER);
+            films = new FileFilmStorage(engine);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            engine.destroy();
+            delete(directory);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class RecoveryState {
+        @Param({"10000", "100000", "1000000"})
+        public int films;
+
+        @Param({"log", "snapshot"})
+        public String recoverFrom;
+
+        private Path directory;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            BenchmarkData.silenceLogging();
+            directory = Files.createTempDirectory("filmorate-recovery");
+            FileStorageEngine engine = new FileStorageEngine(directory, Duration.ofHours(1), OBJECT_MAPPER);
+            FileFilmStorage storage = new FileFilmStorage(engine);
+            for (long i = 0; i < films; i++) {
+                storage.create(BenchmarkData.film(i));
+            }
+            if ("snapshot".equals(recoverFrom)) {
+                engine.snapshot();
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            delete(directory);
+        }
+    }
+
+    // Восемь потоков пишут одновременно: за один fsync фиксируется сразу несколько записей.
+    @Benchmark
+    @Threads(8)
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Warmup(iterations = 2, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public Film createFilm(WriteState state) {
+        return state.films.create(BenchmarkData.film(state.next.incrementAndGet()));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 5)
+    public FileStorageEngine recover(RecoveryState state) throws IOException {
+        return new FileStorageEngine(state.directory, Duration.ofHours(1), OBJECT_MAPPER);
+    }
+
+    static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
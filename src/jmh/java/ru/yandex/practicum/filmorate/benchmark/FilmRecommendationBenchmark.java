@@ -0,0 +1,95 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.service.FilmRecommendations;
+import ru.yandex.practicum.filmorate.storage.InMemoryLikeStorage;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Рекомендации фильмов на матрице с миллионами лайков: расчёт по запросу для случайного
+ * и для самого активного пользователя, ответ из заранее посчитанных и сам предрасчёт.
+ * Фильмы и пользователи выбираются со смещением к малым id: есть хиты с сотнями тысяч лайков
+ * и пользователи, лайкнувшие тысячи фильмов.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class FilmRecommendationBenchmark {
+    private static final int FILMS = 100_000;
+    private static final int PRECOMPUTED_USERS = 1000;
+
+    @Param({"1000000", "10000000"})
+    public int likes;
+
+    private FilmRecommendations recommendations;
+    private SplittableRandom random;
+    private int users;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkData.silenceLogging();
+        InMemoryLikeStorage likeStorage = new InMemoryLikeStorage();
+        recommendations = new FilmRecommendations(likeStorage, PRECOMPUTED_USERS, Duration.ofMinutes(10));
+        random = new SplittableRandom(42);
+        users = likes / 20;
+
+        List<Like> batch = new ArrayList<>();
+        for (int i = 0; i < likes; i++) {
+            batch.add(new Like(skewed(FILMS), skewed(users)));
+            if (batch.size() == 10_000) {
+                likeStorage.addLikes(batch);
+                batch.clear();
+            }
+        }
+        likeStorage.addLikes(batch);
+        recommendations.precompute();
+    }
+
+    @Benchmark
+    public int rankRandomUser() {
+        return recommendations.rank(random.nextLong(1, users + 1)).length;
+    }
+
+    @Benchmark
+    public int rankMostActiveUser() {
+        return recommendations.rank(1 + random.nextLong(10)).length;
+    }
+
+    @Benchmark
+    public List<Long> recommendPrecomputed() {
+        return recommendations.recommend(1 + random.nextLong(10), 10);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void precompute() {
+        recommendations.precompute();
+    }
+
+    // Квадрат равномерного числа: малые id выпадают чаще.
+    private long skewed(int bound) {
+        double x = random.nextDouble();
+        return 1 + (long) (x * x * bound);
+    }
+}
@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmQuery;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск фильмов по индексам против полного обхода каталога: узкий диапазон дат,
+ * начало названия и сочетание условий, в котором выбирается самый узкий индекс.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class FilmSearchBenchmark {
+    @Param({"10000", "1000000"})
+    public int films;
+
+    private InMemoryFilmStorage storage;
+    private FilmQuery releaseWeek;
+    private FilmQuery namePrefix;
+    private FilmQuery combined;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        storage = new InMemoryFilmStorage();
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < films; i++) {
+            Film film = new Film();
+            film.setName("Фильм " + Integer.toString(random.nextInt(films), 36));
+            film.setReleaseDate(LocalDate.of(1900, 1, 1).plusDays(random.nextInt(45_000)));
+            film.setDuration(random.nextInt(60, 240));
+            storage.create(film);
+        }
+
+        releaseWeek = new FilmQuery();
+        releaseWeek.setReleasedFrom(LocalDate.of(2000, 1, 1));
+        releaseWeek.setReleasedTo(LocalDate.of(2000, 1, 7));
+
+        namePrefix = new FilmQuery();
+        namePrefix.setNamePrefix("фильм ab");
+
+        combined = new FilmQuery();
+        combined.setMinDuration(90);
+        combined.setMaxDuration(120);
+        combined.setNamePrefix("фильм a");
+    }
+
+    @Benchmark
+    public List<Film> releaseWeek() {
+        return storage.search(releaseWeek, 0, 100);
+    }
+
+    @Benchmark
+    public List<Film> namePrefix() {
+        return storage.search(namePrefix, 0, 100);
+    }
+
+    @Benchmark
+    public List<Film> combined() {
+        return storage.search(combined, 0, 100);
+    }
+
+    @Benchmark
+    public List<Film> combinedFullScan() {
+        return storage.getAll().stream()
+                .filter(combined::matches)
+                .limit(100)
+                .toList();
+    }
+}
@@ -0,0 +1,89 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmRecommendations;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.FilmTextSearch;
+import ru.yandex.practicum.filmorate.service.TrendingFilms;
+import ru.yandex.practicum.filmorate.service.UserLocks;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryLikeStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class FilmServiceBenchmark {
+    private static final int USERS = 10_000;
+    private static final int LIKES_PER_FILM = 3;
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int films;
+
+    private FilmService filmService;
+    private SplittableRandom random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkData.silenceLogging();
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        InMemoryLikeStorage likeStorage = new InMemoryLikeStorage();
+        filmService = new FilmService(filmStorage, userStorage, likeStorage,
+                new FilmRecommendations(likeStorage, 0, Duration.ofMinutes(10)), new TrendingFilms(),
+                new FilmTextSearch(filmStorage), new UserLocks(), event -> { });
+        random = new SplittableRandom(42);
+
+        for (long i = 0; i < USERS; i++) {
+            userStorage.create(BenchmarkData.user(i));
+        }
+        for (long i = 0; i < films; i++) {
+            Film film = filmService.create(BenchmarkData.film(i));
+            for (int like = 0; like < LIKES_PER_FILM; like++) {
+                long userId = random.nextLong(1, USERS + 1);
+                try {
+                    filmService.addLike(film.getId(), userId);
+                } catch (IllegalArgumentException ignored) {
+                    // повторный лайк того же пользователя
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public List<Film> getPopularFilms() {
+        return filmService.getPopularFilms(10);
+    }
+
+    @Benchmark
+    public void addAndRemoveLike() {
+        long filmId = random.nextLong(1, films + 1);
+        long userId = random.nextLong(1, USERS + 1);
+        try {
+            filmService.addLike(filmId, userId);
+            filmService.removeLike(filmId, userId);
+        } catch (IllegalArgumentException e) {
+            // пользователь уже лайкнул фильм при подготовке данных
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmTextSearch;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Полнотекстовый поиск по каталогу с описаниями из словаря с распределением Ципфа:
+ * запрос из редкого и частого слова, одно частое слово и переиндексация изменённого фильма.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class FilmTextSearchBenchmark {
+    private static final int VOCABULARY = 50_000;
+
+    @Param({"10000", "1000000"})
+    public int films;
+
+    private FilmTextSearch search;
+    private SplittableRandom random;
+    private Film updated;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        random = new SplittableRandom(42);
+        for (int i = 0; i < films; i++) {
+            Film film = new Film();
+            film.setName(text(3));
+            film.setDescription(text(25));
+            storage.create(film);
+        }
+        search = new FilmTextSearch(storage);
+        search.afterPropertiesSet();
+        updated = storage.get(1L);
+    }
+
+    @Benchmark
+    public List<Long> rareAndCommonWord() {
+        return search.search("слово" + (1000 + random.nextInt(1000)) + " слово1", 10);
+    }
+
+    @Benchmark
+    public List<Long> commonWord() {
+        return search.search("слово" + random.nextInt(5), 10);
+    }
+
+    @Benchmark
+    public void reindex() {
+        updated.setDescription(text(25));
+        updated.setVersion(updated.getVersion() + 1);
+        search.put(updated);
+    }
+
+    // Номер слова ~ 1/ранг: первые слова встречаются почти в каждом описании.
+    private String text(int words) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            int rank = (int) Math.pow(VOCABULARY, random.nextDouble());
+            text.append("слово").append(rank).append(' ');
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,89 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.service.FilmService;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.http.HttpRequest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Цена журналирования запросов: {@code verbose} — каждый запрос с телами синхронно в консоль,
+ * {@code sampled} — настройки из application.properties (выборка, тела только для ошибок, асинхронная запись).
+ * Консоль перенаправлена во временный файл, чтобы замер не упирался в вывод JMH.
+ */
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(8)
+public class LoggingBenchmark {
+    private static final String FILM = "{\"name\":\"Фильм\",\"description\":\"" + "Описание ".repeat(20)
+            + "\",\"releaseDate\":\"2000-01-01\",\"duration\":120}";
+
+    @State(Scope.Benchmark)
+    public static class Server {
+        @Param({"verbose", "sampled"})
+        public String mode;
+
+        private RunningApp app;
+        private PrintStream console;
+        private Path log;
+        private HttpRequest create;
+        private HttpRequest read;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            console = System.out;
+            log = Files.createTempFile("filmorate-log", ".txt");
+            System.setOut(new PrintStream(new BufferedOutputStream(Files.newOutputStream(log)), false));
+            String[] common = {"logging.level.root=INFO", "logging.level.org.zalando.logbook=TRACE"};
+            app = "verbose".equals(mode)
+                    ? RunningApp.start("memory", common[0], common[1],
+                            "spring.profiles.active=sync-logging",
+                            "logbook.strategy=default",
+                            "logbook.write.max-body-size=-1",
+                            "filmorate.logging.sample-rate=1")
+                    : RunningApp.start("memory", common);
+            app.bean(FilmService.class).create(BenchmarkData.film(0));
+            create = app.post("/films", FILM);
+            read = app.get("/films/1");
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            app.close();
+            System.out.close();
+            System.setOut(console);
+            Files.deleteIfExists(log);
+        }
+    }
+
+    @Benchmark
+    public int createFilm(Server server) throws IOException, InterruptedException {
+        return server.app.send(server.create);
+    }
+
+    @Benchmark
+    public int getFilm(Server server) throws IOException, InterruptedException {
+        return server.app.send(server.read);
+    }
+}
@@ -0,0 +1,107 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.service.FriendRecommendations;
+import ru.yandex.practicum.filmorate.storage.InMemoryFriendshipStorage;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Рекомендации друзей на графе с миллионами рёбер: расчёт без кэша, ответ из кэша
+ * и точечная поправка кэша после изменения дружбы.
+ * Рёбра выбираются со смещением к малым id, чтобы в графе были пользователи с тысячами друзей,
+ * как у популярных аккаунтов. Последовательный расчёт для сравнения:
+ * {@code -jvmArgsAppend -Djava.util.concurrent.ForkJoinPool.common.parallelism=1}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class RecommendationBenchmark {
+    private static final int CACHED_USERS = 1000;
+
+    @Param({"100000", "1000000"})
+    public int users;
+
+    @Param({"20", "100"})
+    public int friendsPerUser;
+
+    private InMemoryFriendshipStorage friendshipStorage;
+    private FriendRecommendations recommendations;
+    private SplittableRandom random;
+    private long hub;
+    private long hubFriend;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        friendshipStorage = new InMemoryFriendshipStorage();
+        recommendations = new FriendRecommendations(friendshipStorage, users);
+        random = new SplittableRandom(42);
+
+        long edges = (long) users * friendsPerUser / 2;
+        for (long i = 0; i < edges; i++) {
+            long userId = skewed();
+            long friendId = random.nextLong(1, users + 1);
+            if (userId != friendId) {
+                friendshipStorage.addFriend(userId, friendId);
+            }
+        }
+
+        for (long userId = 1; userId <= CACHED_USERS; userId++) {
+            recommendations.recommend(userId, 10);
+        }
+        // Для поправки берётся ребро с участием самого крупного узла: затронуто больше всего рейтингов.
+        hub = 1;
+        hubFriend = users;
+        for (long[] friends : friendshipStorage.getFriendIdsByUser(List.of(hub, hubFriend)).values()) {
+            for (long friend : friends) {
+                recommendations.recommend(friend, 10);
+            }
+        }
+    }
+
+    @Benchmark
+    public int rankRandomUser() {
+        return recommendations.rank(random.nextLong(1, users + 1)).size();
+    }
+
+    @Benchmark
+    public int rankHub() {
+        return recommendations.rank(1 + random.nextLong(10)).size();
+    }
+
+    @Benchmark
+    public List<Long> recommendCached() {
+        return recommendations.recommend(random.nextLong(1, CACHED_USERS + 1), 10);
+    }
+
+    // Дружба с крупным узлом попеременно добавляется и удаляется, каждый раз с поправкой кэша.
+    @Benchmark
+    public void hubFriendshipChanged() {
+        if (!friendshipStorage.addFriend(hub, hubFriend)) {
+            friendshipStorage.removeFriend(hub, hubFriend);
+        }
+        recommendations.friendshipChanged(hub, hubFriend);
+    }
+
+    // Квадрат равномерного числа: малые id выпадают чаще, степени узлов распределены неравномерно.
+    private long skewed() {
+        double x = random.nextDouble();
+        return 1 + (long) (x * x * users);
+    }
+}
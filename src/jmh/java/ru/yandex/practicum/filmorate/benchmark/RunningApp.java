@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Приложение, поднятое целиком на свободном порту, и HTTP-клиент к нему.
+ */
+final class RunningApp implements AutoCloseable {
+    private final ConfigurableApplicationContext context;
+    private final HttpClient client;
+    private final Path directory;
+    private final String baseUrl;
+
+    private RunningApp(ConfigurableApplicationContext context, Path directory) {
+        this.context = context;
+        this.directory = directory;
+        this.client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        this.baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+    }
+
+    static RunningApp start(String storage, String... properties) throws IOException {
+        Path directory = Files.createTempDirectory("filmorate-web");
+        List<String> all = new ArrayList<>(List.of("server.port=0",
+                "filmorate.storage.type=" + storage,
+                "filmorate.storage.file.directory=" + directory,
+                "logging.level.root=WARN",
+                "logging.level.org.zalando.logbook=OFF"));
+        all.addAll(List.of(properties));
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(FilmorateApplication.class)
+                .properties(all.toArray(String[]::new))
+                .run();
+        return new RunningApp(context, directory);
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+    }
+
+    HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    HttpRequest put(String path, String json) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    int send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(request.uri() + " вернул " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+
+    @Override
+    public void close() throws IOException {
+        client.close();
+        context.close();
+        FileStorageBenchmark.delete(directory);
+    }
+}
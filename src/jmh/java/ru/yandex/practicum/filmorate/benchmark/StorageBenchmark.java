@@ -0,0 +1,68 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class StorageBenchmark {
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int entities;
+
+    private InMemoryFilmStorage filmStorage;
+    private InMemoryUserStorage userStorage;
+    private long next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        filmStorage = new InMemoryFilmStorage();
+        userStorage = new InMemoryUserStorage();
+        for (long i = 0; i < entities; i++) {
+            filmStorage.create(BenchmarkData.film(i));
+            userStorage.create(BenchmarkData.user(i));
+        }
+        next = entities;
+    }
+
+    // Каждый вызов добавляет новую запись, поэтому хранилище растёт в ходе измерения.
+    @Benchmark
+    public Film createFilm() {
+        return filmStorage.create(BenchmarkData.film(next++));
+    }
+
+    @Benchmark
+    public User createUser() {
+        return userStorage.create(BenchmarkData.user(next++));
+    }
+
+    @Benchmark
+    public List<Film> getAllFilms() {
+        return filmStorage.getAll();
+    }
+
+    @Benchmark
+    public List<User> getAllUsers() {
+        return userStorage.getAll();
+    }
+}
@@ -0,0 +1,62 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.service.TrendingFilms;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Счётчики трендов при миллионе фильмов, получивших лайки: стоимость одного лайка
+ * (обновление корзины и рейтинга во всех окнах) и чтение первых фильмов окна.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class TrendingBenchmark {
+    @Param({"10000", "1000000"})
+    public int films;
+
+    private TrendingFilms trending;
+    private SplittableRandom random;
+    private long userId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        trending = new TrendingFilms();
+        random = new SplittableRandom(42);
+        for (int i = 0; i < films * 5; i++) {
+            trending.likeAdded(random.nextLong(1, films + 1), ++userId);
+        }
+    }
+
+    @Benchmark
+    public void likeAdded() {
+        trending.likeAdded(random.nextLong(1, films + 1), ++userId);
+    }
+
+    @Benchmark
+    public List<Long> topByCount() {
+        return trending.getTop(TrendingFilms.Window.DAY, 10, false);
+    }
+
+    @Benchmark
+    public List<Long> topByDecay() {
+        return trending.getTop(TrendingFilms.Window.DAY, 10, true);
+    }
+}
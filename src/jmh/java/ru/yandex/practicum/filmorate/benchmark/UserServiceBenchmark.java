@@ -0,0 +1,80 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmRecommendations;
+import ru.yandex.practicum.filmorate.service.FriendRecommendations;
+import ru.yandex.practicum.filmorate.service.TrendingFilms;
+import ru.yandex.practicum.filmorate.service.UserLocks;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.InMemoryFriendshipStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryLikeStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class UserServiceBenchmark {
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int users;
+
+    @Param({"10", "1000"})
+    public int friendsPerUser;
+
+    private UserService userService;
+    private SplittableRandom random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkData.silenceLogging();
+        InMemoryFriendshipStorage friendshipStorage = new InMemoryFriendshipStorage();
+        InMemoryLikeStorage likeStorage = new InMemoryLikeStorage();
+        userService = new UserService(new InMemoryUserStorage(), friendshipStorage, likeStorage,
+                new FriendRecommendations(friendshipStorage, 1000),
+                new FilmRecommendations(likeStorage, 0, Duration.ofMinutes(10)), new TrendingFilms(), new UserLocks(),
+                event -> { });
+        random = new SplittableRandom(42);
+
+        for (long i = 0; i < users; i++) {
+            userService.create(BenchmarkData.user(i));
+        }
+        // Рёбра пишутся прямо в хранилище: через сервис подготовка графа заняла бы часы.
+        long edges = (long) users * friendsPerUser / 2;
+        for (long i = 0; i < edges; i++) {
+            long userId = random.nextLong(1, users + 1);
+            long friendId = random.nextLong(1, users + 1);
+            if (userId != friendId) {
+                friendshipStorage.addFriend(userId, friendId);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<User> getFriends() {
+        return userService.getFriends(random.nextLong(1, users + 1));
+    }
+
+    @Benchmark
+    public List<User> getCommonFriends() {
+        return userService.getCommonFriends(random.nextLong(1, users + 1), random.nextLong(1, users + 1));
+    }
+}
@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Нагрузочный тест веб-слоя: приложение поднимается целиком, запросы идут по HTTP.
+ * Сравнивает пул потоков Tomcat и виртуальные потоки: Throughput даёт пропускную способность,
+ * SampleTime — распределение задержек с p0.99.
+ * Клиентских потоков больше, чем потоков в пуле Tomcat (200), поэтому на пуле запросы встают в очередь.
+ * На файловом хранилище создание фильма ждёт fsync журнала — здесь разница видна сильнее всего.
+ * <p>
+ * Запуск: {@code mvn -Pjmh compile exec:exec -Djmh.args="WebLoadBenchmark"}
+ */
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Threads(400)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+public class WebLoadBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Server {
+        @Param({"false", "true"})
+        public boolean virtualThreads;
+
+        @Param({"memory", "file"})
+        public String storage;
+
+        @Param({"1000"})
+        public int entities;
+
+        private final AtomicLong next = new AtomicLong();
+        private RunningApp app;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            app = RunningApp.start(storage, "spring.threads.virtual.enabled=" + virtualThreads);
+            FilmService films = app.bean(FilmService.class);
+            UserService users = app.bean(UserService.class);
+            for (long i = 0; i < entities; i++) {
+                films.create(BenchmarkData.film(i));
+                users.create(BenchmarkData.user(i));
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            app.close();
+        }
+    }
+
+    @Benchmark
+    public int getFilmsPage(Server server) throws IOException, InterruptedException {
+        return server.app.send(server.app.get("/films?limit=100"));
+    }
+
+    @Benchmark
+    public int getUsersPage(Server server) throws IOException, InterruptedException {
+        return server.app.send(server.app.get("/users?limit=100"));
+    }
+
+    @Benchmark
+    public int createFilm(Server server) throws IOException, InterruptedException {
+        long i = server.next.incrementAndGet();
+        String body = """
+                {"name":"Film %d","description":"Load test","releaseDate":"2000-01-01","duration":90}"""
+                .formatted(i);
+        return server.app.send(server.app.post("/films", body));
+    }
+}
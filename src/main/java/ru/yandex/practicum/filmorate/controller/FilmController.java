@@ -1,18 +1,27 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.BatchResult;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmQuery;
+import ru.yandex.practicum.filmorate.model.Like;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
 import java.util.List;
@@ -23,46 +32,82 @@ import java.util.List;
 @RequiredArgsConstructor
 public class FilmController {
     private final FilmService filmService;
+    private final ObjectMapper objectMapper;
+    private final ResponseCache responseCache;
 
     @GetMapping
     public List<Film> getFilms() {
-        log.info("Получен запрос на получение всех фильмов");
         return filmService.getAll();
     }
 
+    @GetMapping(params = "limit")
+    public List<Film> getFilmsPage(@RequestParam int limit, @RequestParam(required = false) Long afterId) {
+        return filmService.getPage(afterId, limit);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamFilms() {
+        log.info("Получен запрос на потоковую выгрузку всех фильмов");
+        return NdjsonStream.of(objectMapper, afterId -> filmService.getPage(afterId, NdjsonStream.PAGE_SIZE),
+                Film::getId);
+    }
+
     @GetMapping("/{id}")
-    public Film getFilm(@PathVariable Long id) {
-        log.info("Получен запрос на получение фильма с id: {}", id);
-        return filmService.getById(id);
+    public ResponseEntity<byte[]> getFilm(@PathVariable Long id) {
+        return responseCache.film(id, () -> filmService.getById(id));
     }
 
     @GetMapping("/popular")
-    public List<Film> getPopularFilms(@RequestParam(defaultValue = "10") int count) {
-        log.info("Получен запрос на получение {} популярных фильмов", count);
-        return filmService.getPopularFilms(count);
+    public ResponseEntity<byte[]> getPopularFilms(@RequestParam(defaultValue = "10") int count) {
+        return responseCache.popular(count, filmService::getPopularFilms, filmService::getLikesCount);
+    }
+
+    @GetMapping("/trending")
+    public List<Film> getTrendingFilms(@RequestParam(defaultValue = "24h") String window,
+                                       @RequestParam(defaultValue = "10") int count,
+                                       @RequestParam(defaultValue = "false") boolean decay) {
+        return filmService.getTrendingFilms(window, count, decay);
+    }
+
+    @GetMapping("/search")
+    public List<Film> searchFilms(FilmQuery query,
+                                  @RequestParam(defaultValue = "100") int limit,
+                                  @RequestParam(required = false) Long afterId) {
+        return filmService.search(query, afterId, limit);
+    }
+
+    @GetMapping(value = "/search", params = "q")
+    public List<Film> searchFilmsByText(@RequestParam String q,
+                                        FilmQuery query,
+                                        @RequestParam(defaultValue = "100") int limit,
+                                        @RequestParam(required = false) Long afterId) {
+        return filmService.searchText(q, query, afterId, limit);
     }
 
     @PostMapping
     public Film create(@Valid @RequestBody Film newFilm) {
-        log.info("Получен запрос на создание фильма: {}", newFilm);
         return filmService.create(newFilm);
     }
 
     @PutMapping
-    public Film update(@Valid @RequestBody Film updatedFilm) {
-        log.info("Получен запрос на обновление фильма: {}", updatedFilm);
-        return filmService.update(updatedFilm);
+    public ResponseEntity<Film> update(@Valid @RequestBody Film updatedFilm,
+                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Film updated = filmService.update(updatedFilm, VersionTags.parseIfMatch(ifMatch));
+        return ResponseEntity.ok().eTag(VersionTags.of(updated.getVersion())).body(updated);
     }
 
     @PutMapping("/{id}/like/{userId}")
     public void addLike(@PathVariable Long id, @PathVariable Long userId) {
-        log.info("Получен запрос на добавление лайка фильму {} от пользователя {}", id, userId);
         filmService.addLike(id, userId);
     }
 
+    @PutMapping("/likes")
+    public List<BatchResult> addLikes(@RequestBody List<Like> likes) {
+        return filmService.addLikes(likes);
+    }
+
     @DeleteMapping("/{id}/like/{userId}")
     public void removeLike(@PathVariable Long id, @PathVariable Long userId) {
-        log.info("Получен запрос на удаление лайка у фильма {} от пользователя {}", id, userId);
         filmService.removeLike(id, userId);
     }
 }
\ No newline at end of file
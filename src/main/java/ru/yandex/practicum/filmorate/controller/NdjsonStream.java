@@ -0,0 +1,44 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+
+/**
+ * Отдаёт коллекцию построчно в формате NDJSON, дочитывая её страницами по id.
+ * В памяти одновременно держится только одна страница, первые строки уходят клиенту сразу.
+ */
+final class NdjsonStream {
+    static final int PAGE_SIZE = 1000;
+
+    private NdjsonStream() {
+    }
+
+    static <T> ResponseEntity<StreamingResponseBody> of(ObjectMapper objectMapper, LongFunction<List<T>> pages,
+                                                         Function<T, Long> idGetter) {
+        ObjectWriter writer = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        StreamingResponseBody body = out -> {
+            long afterId = 0;
+            List<T> page;
+            do {
+                page = pages.apply(afterId);
+                for (T item : page) {
+                    writer.writeValue(out, item);
+                    out.write('\n');
+                }
+                if (!page.isEmpty()) {
+                    afterId = idGetter.apply(page.get(page.size() - 1));
+                }
+                out.flush();
+            } while (page.size() == PAGE_SIZE);
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+}
@@ -0,0 +1,204 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.unit.DataSize;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.DataChange;
+
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntFunction;
+import java.util.function.LongToIntFunction;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Кэш готовых ответов GET /films/{id}, /users/{id} и /films/popular: байты JSON и их ETag.
+ * ETag фильма и пользователя — их версия ({@link VersionTags}), его можно вернуть в If-Match при обновлении;
+ * ETag списка и сущности без версии — хеш тела.
+ * Попадание в кэш не обращается ни к сервису, ни к Jackson, а запрос с совпавшим If-None-Match
+ * получает 304 без тела. Записи вытесняются по W-TinyLFU и сбрасываются по событиям {@link DataChange},
+ * которые публикуют сервисы, только при изменениях, которые меняют тело ответа.
+ */
+@Component
+class ResponseCache implements MeterBinder {
+    static final int MAX_POPULAR_COUNT = 1000;
+    private static final int POPULAR_ENTRIES = 64;
+
+    private final ObjectMapper objectMapper;
+    private final Cache<Long, CachedResponse> films;
+    private final Cache<Long, CachedResponse> users;
+    private final Cache<Integer, PopularResponse> popular;
+    // Изменения лайков сверяются со списками популярных под этой блокировкой; версия отсекает списки,
+    // загруженные до изменения и дописываемые в кэш уже после сверки.
+    private final ReentrantLock popularLock = new ReentrantLock();
+    private volatile long popularVersion;
+
+    ResponseCache(ObjectMapper objectMapper, @Value("${filmorate.cache.max-size:32MB}") DataSize maxSize) {
+        this.objectMapper = objectMapper;
+        this.films = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((Long id, CachedResponse response) -> response.body().length)
+                .recordStats()
+                .build();
+        this.users = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((Long id, CachedResponse response) -> response.body().length)
+                .recordStats()
+                .build();
+        this.popular = Caffeine.newBuilder()
+                .maximumSize(POPULAR_ENTRIES)
+                .recordStats()
+                .build();
+    }
+
+    ResponseEntity<byte[]> film(long id, Supplier<Film> loader) {
+        return films.get(id, key -> {
+            Film film = loader.get();
+            return serialize(film, film.getVersion());
+        }).toResponse();
+    }
+
+    ResponseEntity<byte[]> user(long id, Supplier<User> loader) {
+        return users.get(id, key -> {
+            User user = loader.get();
+            return serialize(user, user.getVersion());
+        }).toResponse();
+    }
+
+    /**
+     * Список популярных фильмов. Для сверки с будущими лайками запоминаются id фильмов в списке
+     * и число лайков у последнего из них.
+     */
+    ResponseEntity<byte[]> popular(int count, IntFunction<List<Film>> loader, LongToIntFunction likesCount) {
+        if (count > MAX_POPULAR_COUNT) {
+            return serialize(loader.apply(count)).toResponse();
+        }
+        PopularResponse cached = popular.getIfPresent(count);
+        if (cached != null) {
+            return cached.response().toResponse();
+        }
+
+        long version = popularVersion;
+        List<Film> list = loader.apply(count);
+        Set<Long> ids = list.stream().map(Film::getId).collect(Collectors.toSet());
+        int minLikes = list.isEmpty() ? Integer.MAX_VALUE : likesCount.applyAsInt(list.get(list.size() - 1).getId());
+        PopularResponse loaded = new PopularResponse(serialize(list), ids, list.size() == count, minLikes);
+
+        popularLock.lock();
+        try {
+            if (popularVersion == version) {
+                popular.put(count, loaded);
+            }
+        } finally {
+            popularLock.unlock();
+        }
+        return loaded.response().toResponse();
+    }
+
+    @EventListener
+    void onChange(DataChange change) {
+        switch (change) {
+            case DataChange.FilmsCreated created -> filmsCreated();
+            case DataChange.FilmUpdated updated -> filmUpdated(updated.filmId());
+            case DataChange.LikeAdded added -> likeAdded(added.filmId(), added.likes());
+            case DataChange.LikeRemoved removed -> likeRemoved(removed.filmId());
+            case DataChange.LikesChanged changed -> likesChanged();
+            case DataChange.UserUpdated updated -> userUpdated(updated.userId());
+            case DataChange.UserDeleted deleted -> userDeleted(deleted.userId());
+        }
+    }
+
+    void filmUpdated(long id) {
+        films.invalidate(id);
+        invalidatePopular(entry -> entry.filmIds().contains(id));
+    }
+
+    // Неполный список популярных добирается фильмами без лайков, и новый фильм может в него попасть.
+    void filmsCreated() {
+        invalidatePopular(entry -> !entry.full());
+    }
+
+    void likeAdded(long filmId, int likes) {
+        invalidatePopular(entry -> !entry.full() || likes >= entry.minLikes() || entry.filmIds().contains(filmId));
+    }
+
+    // Фильм, оставшийся без лайков, может попасть в хвост неполного списка.
+    void likeRemoved(long filmId) {
+        invalidatePopular(entry -> !entry.full() || entry.filmIds().contains(filmId));
+    }
+
+    void likesChanged() {
+        invalidatePopular(entry -> true);
+    }
+
+    void userUpdated(long id) {
+        users.invalidate(id);
+    }
+
+    // Вместе с пользователем сняты его лайки; удаление редкое, поэтому сбрасываются все популярные.
+    void userDeleted(long id) {
+        users.invalidate(id);
+        likesChanged();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, films, "films");
+        CaffeineCacheMetrics.monitor(registry, users, "users");
+        CaffeineCacheMetrics.monitor(registry, popular, "popular");
+    }
+
+    private void invalidatePopular(Predicate<PopularResponse> affected) {
+        popularLock.lock();
+        try {
+            popularVersion++;
+            popular.asMap().values().removeIf(affected);
+        } finally {
+            popularLock.unlock();
+        }
+    }
+
+    private CachedResponse serialize(Object value) {
+        byte[] body = toJson(value);
+        return new CachedResponse(body, "\"" + DigestUtils.md5DigestAsHex(body) + "\"");
+    }
+
+    private CachedResponse serialize(Object value, Long version) {
+        return version == null ? serialize(value) : new CachedResponse(toJson(value), VersionTags.of(version));
+    }
+
+    private byte[] toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record CachedResponse(byte[] body, String etag) {
+        // Совпадение If-None-Match с ETag проверяет Spring при записи ResponseEntity и отвечает 304 без тела.
+        ResponseEntity<byte[]> toResponse() {
+            return ResponseEntity.ok().eTag(etag).contentType(MediaType.APPLICATION_JSON).body(body);
+        }
+    }
+
+    private record PopularResponse(CachedResponse response, Set<Long> filmIds, boolean full, int minLikes) {
+    }
+}
@@ -1,17 +1,28 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.BatchResult;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Friendship;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.UserService;
 
 import java.util.List;
@@ -22,52 +33,96 @@ import java.util.List;
 @RequiredArgsConstructor
 public class UserController {
     private final UserService userService;
+    private final FilmService filmService;
+    private final ObjectMapper objectMapper;
+    private final ResponseCache responseCache;
 
     @GetMapping
     public List<User> getUsers() {
-        log.info("Получен запрос на получение всех пользователей");
         return userService.getAll();
     }
 
+    @GetMapping(params = "limit")
+    public List<User> getUsersPage(@RequestParam int limit, @RequestParam(required = false) Long afterId) {
+        return userService.getPage(afterId, limit);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamUsers() {
+        log.info("Получен запрос на потоковую выгрузку всех пользователей");
+        return NdjsonStream.of(objectMapper, afterId -> userService.getPage(afterId, NdjsonStream.PAGE_SIZE),
+                User::getId);
+    }
+
+    @GetMapping("/by-email")
+    public User getUserByEmail(@RequestParam String email) {
+        return userService.getByEmail(email);
+    }
+
+    @GetMapping("/by-login")
+    public User getUserByLogin(@RequestParam String login) {
+        return userService.getByLogin(login);
+    }
+
     @GetMapping("/{id}")
-    public User getUser(@PathVariable Long id) {
-        log.info("Получен запрос на получение пользователя с id: {}", id);
-        return userService.getById(id);
+    public ResponseEntity<byte[]> getUser(@PathVariable Long id) {
+        return responseCache.user(id, () -> userService.getById(id));
     }
 
     @GetMapping("/{id}/friends")
     public List<User> getFriends(@PathVariable Long id) {
-        log.info("Получен запрос на получение друзей пользователя с id: {}", id);
         return userService.getFriends(id);
     }
 
     @GetMapping("/{id}/friends/common/{otherId}")
     public List<User> getCommonFriends(@PathVariable Long id, @PathVariable Long otherId) {
-        log.info("Получен запрос на получение общих друзей пользователей {} и {}", id, otherId);
         return userService.getCommonFriends(id, otherId);
     }
 
+    @GetMapping("/{id}/recommendations")
+    public List<User> getRecommendations(@PathVariable Long id, @RequestParam(defaultValue = "10") int count) {
+        return userService.getRecommendations(id, count);
+    }
+
+    @GetMapping("/{id}/likes")
+    public List<Film> getLikedFilms(@PathVariable Long id) {
+        return filmService.getLikedFilms(id);
+    }
+
+    @GetMapping("/{id}/recommended-films")
+    public List<Film> getRecommendedFilms(@PathVariable Long id, @RequestParam(defaultValue = "10") int count) {
+        return filmService.getRecommendedFilms(id, count);
+    }
+
     @PostMapping
     public User create(@Valid @RequestBody User newUser) {
-        log.info("Получен запрос на создание пользователя: {}", newUser);
         return userService.create(newUser);
     }
 
     @PutMapping
-    public User update(@Valid @RequestBody User updatedUser) {
-        log.info("Получен запрос на обновление пользователя: {}", updatedUser);
-        return userService.update(updatedUser);
+    public ResponseEntity<User> update(@Valid @RequestBody User updatedUser,
+                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        User updated = userService.update(updatedUser, VersionTags.parseIfMatch(ifMatch));
+        return ResponseEntity.ok().eTag(VersionTags.of(updated.getVersion())).body(updated);
+    }
+
+    @DeleteMapping("/{id}")
+    public void delete(@PathVariable Long id) {
+        userService.delete(id);
     }
 
     @PutMapping("/{id}/friends/{friendId}")
     public void addFriend(@PathVariable Long id, @PathVariable Long friendId) {
-        log.info("Получен запрос на добавление в друзья: пользователь {} добавляет пользователя {}", id, friendId);
         userService.addFriend(id, friendId);
     }
 
+    @PutMapping("/friends")
+    public List<BatchResult> addFriends(@RequestBody List<Friendship> friendships) {
+        return userService.addFriends(friendships);
+    }
+
     @DeleteMapping("/{id}/friends/{friendId}")
     public void removeFriend(@PathVariable Long id, @PathVariable Long friendId) {
-        log.info("Получен запрос на удаление из друзей: пользователь {} удаляет пользователя {}", id, friendId);
         userService.removeFriend(id, friendId);
     }
 }
\ No newline at end of file
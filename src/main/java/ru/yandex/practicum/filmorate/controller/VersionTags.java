@@ -0,0 +1,35 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import ru.yandex.practicum.filmorate.exception.PreconditionFailedException;
+
+/**
+ * ETag фильма и пользователя — номер версии в кавычках, поэтому If-Match переводится прямо в ожидаемую версию.
+ */
+final class VersionTags {
+    private VersionTags() {
+    }
+
+    static String of(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Ожидаемая версия из заголовка If-Match или null, если заголовка нет или он равен «*».
+     * Заголовок, который не может совпасть ни с одной версией, сразу даёт 412. Это и слабый тег {@code W/"…"}:
+     * If-Match сравнивает теги строго (RFC 7232, 3.1), а слабый тег строго не совпадает ни с каким.
+     */
+    static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.strip().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.strip();
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Long.parseLong(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException e) {
+                // Не номер версии — ниже ответим 412.
+            }
+        }
+        throw new PreconditionFailedException("If-Match не совпадает с текущей версией: " + ifMatch);
+    }
+}
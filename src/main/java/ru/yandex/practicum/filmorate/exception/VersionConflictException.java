@@ -0,0 +1,10 @@
+package ru.yandex.practicum.filmorate.exception;
+
+/**
+ * Сущность изменилась с тех пор, как её прочитали: версия в запросе не совпала с текущей.
+ */
+public class VersionConflictException extends ConflictException {
+    public VersionConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.zalando.logbook.HttpRequest;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * Выборочное журналирование запросов: Logbook пишет только долю {@code filmorate.logging.sample-rate} запросов.
+ * Исключения по путям из {@code logbook.predicate.exclude} Logbook накладывает поверх этого условия сам.
+ */
+@Configuration
+public class RequestLoggingConfiguration {
+
+    // Logbook подменяет своё условие по умолчанию бином с этим именем.
+    @Bean
+    public Predicate<HttpRequest> requestCondition(@Value("${filmorate.logging.sample-rate:1.0}") double sampleRate) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("filmorate.logging.sample-rate должен быть от 0 до 1");
+        }
+        if (sampleRate == 1) {
+            return request -> true;
+        }
+        return request -> ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+}
@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.FriendshipStorage;
+import ru.yandex.practicum.filmorate.storage.LikeStorage;
+import ru.yandex.practicum.filmorate.storage.MemoryFootprint;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+/**
+ * Размеры хранилищ и оценка памяти под индексы лайков и друзей.
+ * Значения считаются в момент опроса, а не на каждом изменении.
+ */
+@Component
+@RequiredArgsConstructor
+public class StorageMetrics implements MeterBinder {
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final LikeStorage likeStorage;
+    private final FriendshipStorage friendshipStorage;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("filmorate.storage.size", filmStorage, FilmStorage::count)
+                .tag("entity", "films")
+                .description("Число фильмов в хранилище")
+                .register(registry);
+        Gauge.builder("filmorate.storage.size", userStorage, UserStorage::count)
+                .tag("entity", "users")
+                .description("Число пользователей в хранилище")
+                .register(registry);
+        bindFootprint(registry, likeStorage, "likes");
+        bindFootprint(registry, friendshipStorage, "friendships");
+    }
+
+    // JDBC-хранилища держат данные в базе, для них оценки памяти нет.
+    private static void bindFootprint(MeterRegistry registry, Object storage, String index) {
+        if (storage instanceof MemoryFootprint footprint) {
+            Gauge.builder("filmorate.storage.memory", footprint, MemoryFootprint::estimateMemoryBytes)
+                    .tag("index", index)
+                    .baseUnit("bytes")
+                    .description("Оценка памяти, занятой индексом")
+                    .register(registry);
+        }
+    }
+}
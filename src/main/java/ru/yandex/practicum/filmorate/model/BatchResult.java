@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Результат обработки одного элемента пакетного запроса; {@code index} — его позиция в запросе.
+ */
+@Data
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchResult {
+    private int index;
+    private Status status;
+    private String error;
+
+    public enum Status {
+        APPLIED, UNCHANGED, REJECTED
+    }
+
+    public static BatchResult applied(int index) {
+        return new BatchResult(index, Status.APPLIED, null);
+    }
+
+    public static BatchResult unchanged(int index) {
+        return new BatchResult(index, Status.UNCHANGED, null);
+    }
+
+    public static BatchResult rejected(int index, String error) {
+        return new BatchResult(index, Status.REJECTED, error);
+    }
+}
@@ -22,4 +22,6 @@ public class Film {
     private LocalDate releaseDate;
     @Positive(message = "Продолжительность фильма должна быть положительным числом")
     private Integer duration;
+    // Хранилище ставит 1 при создании и увеличивает при каждом обновлении.
+    private Long version;
 }
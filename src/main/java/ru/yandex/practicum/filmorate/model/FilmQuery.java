@@ -0,0 +1,45 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * Условия поиска фильмов; границы диапазонов включаются, незаданное условие не проверяется.
+ * Название сравнивается по началу без учёта регистра.
+ */
+@Data
+public class FilmQuery {
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate releasedFrom;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate releasedTo;
+    private Integer minDuration;
+    private Integer maxDuration;
+    private String namePrefix;
+
+    public boolean hasConditions() {
+        return releasedFrom != null || releasedTo != null || minDuration != null || maxDuration != null
+                || namePrefix != null && !namePrefix.isEmpty();
+    }
+
+    public boolean matches(Film film) {
+        return inRange(film.getReleaseDate(), releasedFrom, releasedTo)
+                && inRange(film.getDuration(), minDuration, maxDuration)
+                && (namePrefix == null || film.getName() != null
+                && normalizeName(film.getName()).startsWith(normalizeName(namePrefix)));
+    }
+
+    public static String normalizeName(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    public static <T extends Comparable<? super T>> boolean inRange(T value, T from, T to) {
+        if (from == null && to == null) {
+            return true;
+        }
+        return value != null && (from == null || value.compareTo(from) >= 0) && (to == null || value.compareTo(to) <= 0);
+    }
+}
@@ -0,0 +1,27 @@
+package ru.yandex.practicum.filmorate.model;
+
+import java.time.LocalDate;
+
+/**
+ * Неизменяемое состояние фильма в хранилище. Одну запись видят все читатели сразу,
+ * а наружу отдаётся её изменяемая копия {@link #toFilm()}.
+ */
+public record FilmSnapshot(long id, String name, String description, LocalDate releaseDate, Integer duration,
+                           Long version) {
+
+    public static FilmSnapshot of(Film film) {
+        return new FilmSnapshot(film.getId(), film.getName(), film.getDescription(), film.getReleaseDate(),
+                film.getDuration(), film.getVersion());
+    }
+
+    public Film toFilm() {
+        Film film = new Film();
+        film.setId(id);
+        film.setName(name);
+        film.setDescription(description);
+        film.setReleaseDate(releaseDate);
+        film.setDuration(duration);
+        film.setVersion(version);
+        return film;
+    }
+}
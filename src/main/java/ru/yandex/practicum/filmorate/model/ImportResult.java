@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Итог импорта: сколько записей создано и отклонено, и ошибки по отклонённым записям.
+ * Ошибок в ответ попадает не больше {@link #MAX_REPORTED_ERRORS}, счётчик {@code rejected} — точный.
+ * {@code completed = false}, если поток оборвался на некорректном JSON; записи до этого места сохранены.
+ */
+@Data
+public class ImportResult {
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    private long imported;
+    private long rejected;
+    private boolean completed = true;
+    private List<BatchResult> errors = new ArrayList<>();
+
+    public void reject(int index, String error) {
+        rejected++;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(BatchResult.rejected(index, error));
+        }
+    }
+}
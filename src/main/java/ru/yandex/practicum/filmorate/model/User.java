@@ -20,4 +20,6 @@ public class User {
     private String name;
     @Past(message = "Дата рождения не может быть в будущем")
     private LocalDate birthday;
+    // Хранилище ставит 1 при создании и увеличивает при каждом обновлении.
+    private Long version;
 }
@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.model;
+
+import java.time.LocalDate;
+
+/**
+ * Неизменяемое состояние пользователя в хранилище, как {@link FilmSnapshot} для фильма.
+ */
+public record UserSnapshot(long id, String email, String login, String name, LocalDate birthday, Long version) {
+
+    public static UserSnapshot of(User user) {
+        return new UserSnapshot(user.getId(), user.getEmail(), user.getLogin(), user.getName(), user.getBirthday(),
+                user.getVersion());
+    }
+
+    public User toUser() {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(email);
+        user.setLogin(login);
+        user.setName(name);
+        user.setBirthday(birthday);
+        user.setVersion(version);
+        return user;
+    }
+}
@@ -0,0 +1,35 @@
+package ru.yandex.practicum.filmorate.service;
+
+/**
+ * Изменение данных, о котором сервис сообщает через {@code ApplicationEventPublisher} после записи в хранилище.
+ * По этим событиям кэш ответов сбрасывает устаревшее, какой бы путь — контроллер, пачка или импорт — ни изменил данные.
+ */
+public sealed interface DataChange {
+
+    record FilmsCreated() implements DataChange {
+    }
+
+    record FilmUpdated(long filmId) implements DataChange {
+    }
+
+    /**
+     * @param likes число лайков фильма сразу после добавления
+     */
+    record LikeAdded(long filmId, int likes) implements DataChange {
+    }
+
+    record LikeRemoved(long filmId) implements DataChange {
+    }
+
+    /**
+     * Лайки изменились у многих фильмов сразу: пачкой или при удалении пользователя.
+     */
+    record LikesChanged() implements DataChange {
+    }
+
+    record UserUpdated(long userId) implements DataChange {
+    }
+
+    record UserDeleted(long userId) implements DataChange {
+    }
+}
@@ -0,0 +1,178 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.LikeStorage;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Рекомендации фильмов по лайкам похожих пользователей. Соседи — пользователи с наибольшим числом
+ * общих лайков: их находит {@link OverlapRanking} по спискам лайкнувших каждый фильм пользователя.
+ * Фильмы соседей, которые пользователь ещё не лайкнул, получают сумму совпадений лайкнувших их соседей.
+ * Для самых активных пользователей, у которых расчёт самый дорогой, рекомендации считаются заранее
+ * в фоне и обновляются раз в {@code filmorate.recommendations.films.precompute-interval}.
+ */
+@Slf4j
+@Component
+public class FilmRecommendations implements InitializingBean, DisposableBean {
+    public static final int MAX_RECOMMENDATIONS = 100;
+    // Сколько самых похожих пользователей участвуют в подсчёте.
+    static final int NEIGHBOURS = 50;
+    private static final long[] NO_FILMS = new long[0];
+
+    private final LikeStorage likeStorage;
+    private final int precomputeUsers;
+    private final Duration precomputeInterval;
+    private volatile Map<Long, long[]> precomputed = Map.of();
+    private ScheduledExecutorService scheduler;
+
+    public FilmRecommendations(LikeStorage likeStorage,
+                               @Value("${filmorate.recommendations.films.precompute-users:1000}") int precomputeUsers,
+                               @Value("${filmorate.recommendations.films.precompute-interval:PT10M}")
+                               Duration precomputeInterval) {
+        this.likeStorage = likeStorage;
+        this.precomputeUsers = precomputeUsers;
+        this.precomputeInterval = precomputeInterval;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (precomputeUsers <= 0) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "film-recommendations");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::precomputeQuietly, 0, precomputeInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Не больше {@code count} рекомендаций, {@code count} — от 1 до {@link #MAX_RECOMMENDATIONS}.
+     * Заранее посчитанный список берётся, если после отсева лайкнутых с тех пор фильмов его хватает.
+     */
+    public List<Long> recommend(long userId, int count) {
+        long[] liked = likedBy(userId);
+        long[] ranked = precomputed.get(userId);
+        if (ranked != null) {
+            List<Long> result = firstNotLiked(ranked, liked, count);
+            if (result.size() == count || ranked.length < MAX_RECOMMENDATIONS) {
+                return result;
+            }
+        }
+        return firstNotLiked(rank(userId, liked), liked, count);
+    }
+
+    /**
+     * Считает рекомендации заново, минуя заранее посчитанные.
+     */
+    public long[] rank(long userId) {
+        return rank(userId, likedBy(userId));
+    }
+
+    /**
+     * Пересчитывает рекомендации самых активных пользователей и подменяет ими прежние целиком.
+     */
+    public void precompute() {
+        long start = System.nanoTime();
+        List<Long> users = likeStorage.getMostActiveUserIds(precomputeUsers);
+        Map<Long, long[]> liked = likeStorage.getLikedFilmIdsByUser(users);
+        Map<Long, long[]> result = new HashMap<>();
+        for (Long userId : users) {
+            result.put(userId, rank(userId, liked.getOrDefault(userId, NO_FILMS)));
+        }
+        precomputed = result;
+        log.info("Рекомендации фильмов посчитаны заранее для {} пользователей за {} мс", result.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Убирает заранее посчитанные рекомендации пользователя: следующий запрос посчитает их заново.
+     */
+    public void forget(long userId) {
+        if (precomputed.containsKey(userId)) {
+            Map<Long, long[]> copy = new HashMap<>(precomputed);
+            copy.remove(userId);
+            precomputed = copy;
+        }
+    }
+
+    private long[] rank(long userId, long[] liked) {
+        if (liked.length == 0) {
+            return NO_FILMS;
+        }
+        long[][] likers = likeStorage.getLikerIdsByFilm(boxed(liked)).values().toArray(long[][]::new);
+        TopK neighbours = OverlapRanking.rank(likers, id -> id == userId, NEIGHBOURS);
+        long[] neighbourIds = new long[neighbours.size()];
+        int[] overlaps = new int[neighbours.size()];
+        neighbours.drainTo(neighbourIds, overlaps);
+
+        Map<Long, long[]> neighbourFilms = likeStorage.getLikedFilmIdsByUser(boxed(neighbourIds));
+        Map<Long, Integer> scores = new HashMap<>();
+        for (int i = 0; i < neighbourIds.length; i++) {
+            int overlap = overlaps[i];
+            for (long filmId : neighbourFilms.getOrDefault(neighbourIds[i], NO_FILMS)) {
+                if (Arrays.binarySearch(liked, filmId) < 0) {
+                    scores.merge(filmId, overlap, Integer::sum);
+                }
+            }
+        }
+
+        TopK top = new TopK(MAX_RECOMMENDATIONS);
+        scores.forEach(top::offer);
+        long[] ids = new long[top.size()];
+        top.drainTo(ids, new int[top.size()]);
+        return ids;
+    }
+
+    private long[] likedBy(long userId) {
+        return likeStorage.getLikedFilmIdsByUser(List.of(userId)).getOrDefault(userId, NO_FILMS);
+    }
+
+    private void precomputeQuietly() {
+        try {
+            precompute();
+        } catch (RuntimeException e) {
+            log.error("Не удалось посчитать рекомендации фильмов заранее", e);
+        }
+    }
+
+    private static List<Long> firstNotLiked(long[] ranked, long[] liked, int count) {
+        List<Long> result = new ArrayList<>(Math.min(count, ranked.length));
+        for (int i = 0; i < ranked.length && result.size() < count; i++) {
+            if (Arrays.binarySearch(liked, ranked[i]) < 0) {
+                result.add(ranked[i]);
+            }
+        }
+        return result;
+    }
+
+    private static List<Long> boxed(long[] ids) {
+        List<Long> result = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            result.add(id);
+        }
+        return result;
+    }
+}
@@ -1,53 +1,164 @@
 package ru.yandex.practicum.filmorate.service;
 
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.PreconditionFailedException;
+import ru.yandex.practicum.filmorate.exception.VersionConflictException;
+import ru.yandex.practicum.filmorate.model.BatchResult;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmQuery;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.EntityLocks;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.LikeStorage;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.storage.Versions;
 
 import java.time.LocalDate;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Service
+@Timed(value = "filmorate.service", histogram = true)
 @RequiredArgsConstructor
 public class FilmService {
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int MAX_BATCH_SIZE = 10_000;
+
     private final FilmStorage filmStorage;
     private final UserStorage userStorage;
+    private final LikeStorage likeStorage;
+    private final FilmRecommendations filmRecommendations;
+    private final TrendingFilms trendingFilms;
+    private final FilmTextSearch filmTextSearch;
+    private final UserLocks userLocks;
+    private final ApplicationEventPublisher events;
+    // Лайки фильма и его счётчики трендов меняются под одной блокировкой фильма: иначе лайк, снятый между записью
+    // и учётом в трендах, остался бы в них как несуществующий.
+    private final EntityLocks likeLocks = new EntityLocks();
     private final LocalDate minReleaseDate = LocalDate.of(1895, 12, 28);
-
-    private final Map<Long, Set<Long>> likes = new HashMap<>();
+    private final Counter likesAdded = Metrics.counter("filmorate.likes", "operation", "add");
+    private final Counter likesRemoved = Metrics.counter("filmorate.likes", "operation", "remove");
 
     public List<Film> getAll() {
-        log.info("Получен запрос на получение всех фильмов");
+        log.debug("Получен запрос на получение всех фильмов");
         return filmStorage.getAll();
     }
 
+    public List<Film> getPage(Long afterId, int limit) {
+        log.debug("Получен запрос на страницу фильмов: после id {}, не больше {}", afterId, limit);
+
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            log.warn("Недопустимый размер страницы: {}", limit);
+            throw new IllegalArgumentException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+        return filmStorage.getPage(afterId == null ? 0 : afterId, limit);
+    }
+
+    /**
+     * Страница фильмов, подходящих под все условия запроса; без условий — обычная страница.
+     */
+    public List<Film> search(FilmQuery query, Long afterId, int limit) {
+        log.debug("Получен запрос на поиск фильмов: {}, после id {}, не больше {}", query, afterId, limit);
+
+        if (!query.hasConditions()) {
+            return getPage(afterId, limit);
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            log.warn("Недопустимый размер страницы: {}", limit);
+            throw new IllegalArgumentException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+        if (query.getReleasedFrom() != null && query.getReleasedTo() != null
+                && query.getReleasedFrom().isAfter(query.getReleasedTo())) {
+            throw new IllegalArgumentException("Начало диапазона дат релиза не может быть позже конца");
+        }
+        if (query.getMinDuration() != null && query.getMaxDuration() != null
+                && query.getMinDuration() > query.getMaxDuration()) {
+            throw new IllegalArgumentException("Минимальная продолжительность не может быть больше максимальной");
+        }
+        return filmStorage.search(query, afterId == null ? 0 : afterId, limit);
+    }
+
+    /**
+     * Не больше {@code limit} фильмов, в названии или описании которых есть слова запроса,
+     * по убыванию релевантности. Ответ ранжирован, поэтому страниц и фильтров у него нет.
+     */
+    public List<Film> searchText(String text, FilmQuery query, Long afterId, int limit) {
+        log.debug("Получен запрос на полнотекстовый поиск фильмов: '{}', не больше {}", text, limit);
+
+        if (query.hasConditions() || afterId != null) {
+            throw new IllegalArgumentException("Полнотекстовый поиск нельзя сочетать с фильтрами и afterId");
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            log.warn("Недопустимый размер страницы: {}", limit);
+            throw new IllegalArgumentException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+        return filmStorage.getByIds(filmTextSearch.search(text, limit));
+    }
+
     public Film create(Film film) {
-        log.info("Получен запрос на создание фильма: {}", film);
+        log.debug("Получен запрос на создание фильма: {}", film);
 
         validateFilm(film);
         Film createdFilm = filmStorage.create(film);
+        filmTextSearch.put(createdFilm);
+        events.publishEvent(new DataChange.FilmsCreated());
         log.info("Фильм создан с id: {}", createdFilm.getId());
         return createdFilm;
     }
 
+    /**
+     * Создаёт пачку фильмов, каждый из которых уже прошёл {@link #validateFilm}.
+     */
+    public List<Film> createAll(List<Film> films) {
+        List<Film> created = filmStorage.createAll(films);
+        created.forEach(filmTextSearch::put);
+        if (!created.isEmpty()) {
+            events.publishEvent(new DataChange.FilmsCreated());
+        }
+        log.info("Создано фильмов пачкой: {}", created.size());
+        return created;
+    }
+
     public Film update(Film film) {
-        log.info("Получен запрос на обновление фильма: {}", film);
+        return update(film, null);
+    }
+
+    /**
+     * Обновляет фильм. Версия в теле или в {@code ifMatchVersion} (заголовок If-Match) должна совпасть
+     * с текущей, иначе фильм уже изменён: с версией из тела это 409, с If-Match — 412.
+     * Без версии обновление безусловное.
+     */
+    public Film update(Film film, Long ifMatchVersion) {
+        log.debug("Получен запрос на обновление фильма: {}", film);
 
         isValidFilm(film);
+        film.setVersion(Versions.expected(film.getVersion(), ifMatchVersion));
 
         validateFilm(film);
-        Film updatedFilm = filmStorage.update(film);
+        Film updatedFilm;
+        try {
+            updatedFilm = filmStorage.update(film);
+        } catch (VersionConflictException e) {
+            log.warn("Фильм {} не обновлён: {}", film.getId(), e.getMessage());
+            throw ifMatchVersion == null ? e : new PreconditionFailedException(e.getMessage());
+        }
+        if (updatedFilm == null) {
+            log.warn("Фильм с id = {} не найден", film.getId());
+            throw new NotFoundException("Фильм с id = " + film.getId() + " не найден");
+        }
+        filmTextSearch.put(updatedFilm);
+        events.publishEvent(new DataChange.FilmUpdated(updatedFilm.getId()));
         log.info("Фильм с id = {} обновлён", updatedFilm.getId());
         return updatedFilm;
     }
@@ -61,56 +172,189 @@ public class FilmService {
     }
 
     public void addLike(Long filmId, Long userId) {
-        log.info("Получен запрос на добавление лайка фильму {} от пользователя {}", filmId, userId);
+        log.debug("Получен запрос на добавление лайка фильму {} от пользователя {}", filmId, userId);
 
         Film film = getFilmOrThrow(filmId);
-        getUserOrThrow(userId);
+        userLocks.sharing(List.of(userId), () -> {
+            getUserOrThrow(userId);
+            return likeLocks.withAll(List.of(filmId), () -> {
+                if (!likeStorage.addLike(filmId, userId)) {
+                    log.warn("Пользователь {} уже поставил лайк фильму {}", userId, filmId);
+                    throw new IllegalArgumentException("Пользователь уже поставил лайк этому фильму");
+                }
+                trendingFilms.likeAdded(filmId, userId);
+                return null;
+            });
+        });
 
-        likes.putIfAbsent(filmId, new HashSet<>());
-        Set<Long> filmLikes = likes.get(filmId);
+        events.publishEvent(new DataChange.LikeAdded(filmId, likeStorage.getLikesCount(filmId)));
+        likesAdded.increment();
+        log.info("Пользователь {} поставил лайк фильму {}", userId, filmId);
+    }
 
-        if (filmLikes.contains(userId)) {
-            log.warn("Пользователь {} уже поставил лайк фильму {}", userId, filmId);
-            throw new IllegalArgumentException("Пользователь уже поставил лайк этому фильму");
+    /**
+     * Ставит пачку лайков. Существование всех фильмов и пользователей проверяется двумя запросами к хранилищу,
+     * затем прошедшие проверку лайки применяются одной операцией. Пока пачка применяется, её пользователей
+     * нельзя удалить.
+     */
+    public List<BatchResult> addLikes(List<Like> likes) {
+        log.debug("Получен запрос на добавление {} лайков пачкой", likes.size());
+
+        if (likes.size() > MAX_BATCH_SIZE) {
+            log.warn("Слишком большая пачка лайков: {}", likes.size());
+            throw new IllegalArgumentException("В пачке не может быть больше " + MAX_BATCH_SIZE + " элементов");
         }
 
-        filmLikes.add(userId);
-        log.info("Пользователь {} поставил лайк фильму {}", userId, filmId);
+        List<Long> userIds = likes.stream()
+                .filter(like -> like != null && like.getUserId() != null)
+                .map(Like::getUserId)
+                .distinct()
+                .toList();
+        return userLocks.sharing(userIds, () -> applyLikes(likes, userIds));
+    }
+
+    private List<BatchResult> applyLikes(List<Like> likes, List<Long> userIds) {
+        Set<Long> films = filmStorage.getByIds(likes.stream()
+                        .filter(like -> like != null && like.getFilmId() != null)
+                        .map(Like::getFilmId)
+                        .distinct()
+                        .toList()).stream()
+                .map(Film::getId)
+                .collect(Collectors.toSet());
+        Set<Long> users = userStorage.getByIds(userIds).stream()
+                .map(User::getId)
+                .collect(Collectors.toSet());
+
+        BatchResult[] results = new BatchResult[likes.size()];
+        List<Like> valid = new ArrayList<>(likes.size());
+        List<Integer> validIndexes = new ArrayList<>(likes.size());
+        for (int i = 0; i < likes.size(); i++) {
+            Like like = likes.get(i);
+            if (like == null || like.getFilmId() == null || like.getUserId() == null) {
+                results[i] = BatchResult.rejected(i, "Id фильма и пользователя должны быть указаны");
+            } else if (!films.contains(like.getFilmId())) {
+                results[i] = BatchResult.rejected(i, "Фильм с id = " + like.getFilmId() + " не найден");
+            } else if (!users.contains(like.getUserId())) {
+                results[i] = BatchResult.rejected(i, "Пользователь с id = " + like.getUserId() + " не найден");
+            } else {
+                valid.add(like);
+                validIndexes.add(i);
+            }
+        }
+
+        List<Like> appliedLikes = likeLocks.withAll(valid.stream().map(Like::getFilmId).toList(), () -> {
+            boolean[] added = likeStorage.addLikes(valid);
+            List<Like> appliedInStorage = new ArrayList<>();
+            for (int j = 0; j < added.length; j++) {
+                int index = validIndexes.get(j);
+                results[index] = added[j] ? BatchResult.applied(index) : BatchResult.unchanged(index);
+                if (added[j]) {
+                    appliedInStorage.add(valid.get(j));
+                }
+            }
+            trendingFilms.likesAdded(appliedInStorage);
+            return appliedInStorage;
+        });
+        int applied = appliedLikes.size();
+        if (applied > 0) {
+            events.publishEvent(new DataChange.LikesChanged());
+        }
+
+        likesAdded.increment(applied);
+        log.info("Из пачки поставлено лайков: {}, уже стояло: {}, отклонено: {}", applied, valid.size() - applied,
+                likes.size() - valid.size());
+        return List.of(results);
     }
 
     public void removeLike(Long filmId, Long userId) {
-        log.info("Получен запрос на удаление лайка фильму {} от пользователя {}", filmId, userId);
+        log.debug("Получен запрос на удаление лайка фильму {} от пользователя {}", filmId, userId);
 
         Film film = getFilmOrThrow(filmId);
         getUserOrThrow(userId);
 
-        if (!likes.containsKey(filmId) || !likes.get(filmId).contains(userId)) {
-            log.warn("Пользователь {} не ставил лайк фильму {}", userId, filmId);
-            throw new NotFoundException("Лайк не найден");
-        }
-
-        likes.get(filmId).remove(userId);
+        likeLocks.withAll(List.of(filmId), () -> {
+            if (!likeStorage.removeLike(filmId, userId)) {
+                log.warn("Пользователь {} не ставил лайк фильму {}", userId, filmId);
+                throw new NotFoundException("Лайк не найден");
+            }
+            trendingFilms.likeRemoved(filmId, userId);
+            return null;
+        });
+        events.publishEvent(new DataChange.LikeRemoved(filmId));
+        likesRemoved.increment();
         log.info("Пользователь {} удалил лайк фильму {}", userId, filmId);
     }
 
     public List<Film> getPopularFilms(int count) {
-        log.info("Получен запрос на получение {} популярных фильмов", count);
+        log.debug("Получен запрос на получение {} популярных фильмов", count);
+
+        if (count < 0) {
+            log.warn("Запрошено отрицательное количество популярных фильмов: {}", count);
+            throw new IllegalArgumentException("Количество фильмов не может быть отрицательным");
+        }
+
+        List<Film> popular = new ArrayList<>(filmStorage.getByIds(likeStorage.getPopularFilmIds(count)));
+
+        // Недостающее добирается фильмами без лайков по возрастанию id: страницами, а не обходом всего каталога.
+        Set<Long> included = popular.stream().map(Film::getId).collect(Collectors.toSet());
+        long afterId = 0;
+        while (popular.size() < count) {
+            List<Film> page = filmStorage.getPage(afterId, Math.min(count - popular.size() + included.size(),
+                    MAX_PAGE_SIZE));
+            for (Film film : page) {
+                if (popular.size() < count && !included.contains(film.getId())) {
+                    popular.add(film);
+                }
+            }
+            if (page.isEmpty()) {
+                break;
+            }
+            afterId = page.get(page.size() - 1).getId();
+        }
+        return popular;
+    }
+
+    /**
+     * Фильмы, больше всех набравшие лайков за окно {@code window} (1h, 24h или 7d).
+     * С {@code decay} вместо числа лайков — затухающий счёт, в котором свежие лайки весят больше.
+     */
+    public List<Film> getTrendingFilms(String window, int count, boolean decay) {
+        log.debug("Получен запрос на {} фильмов в тренде за {}, с затуханием: {}", count, window, decay);
 
-        return filmStorage.getAll().stream()
-                .sorted((f1, f2) -> {
-                    int likes1 = getLikesCount(f1.getId());
-                    int likes2 = getLikesCount(f2.getId());
-                    return Integer.compare(likes2, likes1);
-                })
-                .limit(count)
-                .collect(Collectors.toList());
+        TrendingFilms.Window trendingWindow = TrendingFilms.Window.of(window);
+        if (count < 1 || count > TrendingFilms.MAX_COUNT) {
+            log.warn("Недопустимое количество фильмов в тренде: {}", count);
+            throw new IllegalArgumentException("Количество фильмов должно быть от 1 до " + TrendingFilms.MAX_COUNT);
+        }
+        return filmStorage.getByIds(trendingFilms.getTop(trendingWindow, count, decay));
+    }
+
+    public List<Film> getLikedFilms(Long userId) {
+        log.debug("Получен запрос на получение фильмов, лайкнутых пользователем {}", userId);
+
+        getUserOrThrow(userId);
+
+        return filmStorage.getByIds(likeStorage.getLikedFilmIds(userId));
+    }
+
+    public List<Film> getRecommendedFilms(Long userId, int count) {
+        log.debug("Получен запрос на {} рекомендаций фильмов для пользователя {}", count, userId);
+
+        if (count < 1 || count > FilmRecommendations.MAX_RECOMMENDATIONS) {
+            log.warn("Недопустимое количество рекомендаций: {}", count);
+            throw new IllegalArgumentException("Количество рекомендаций должно быть от 1 до "
+                    + FilmRecommendations.MAX_RECOMMENDATIONS);
+        }
+        getUserOrThrow(userId);
+
+        return filmStorage.getByIds(filmRecommendations.recommend(userId, count));
     }
 
     public int getLikesCount(Long filmId) {
-        return likes.getOrDefault(filmId, Collections.emptySet()).size();
+        return likeStorage.getLikesCount(filmId);
     }
 
-    private void validateFilm(Film film) {
+    public void validateFilm(Film film) {
         if (film.getReleaseDate() != null && film.getReleaseDate().isBefore(minReleaseDate)) {
             log.warn("Дата релиза раньше 28 декабря 1895 года: {}", film.getReleaseDate());
             throw new IllegalArgumentException("Дата релиза не может быть раньше 28 декабря 1895 года");
@@ -131,15 +375,11 @@ public class FilmService {
         }
     }
 
+    // Существование проверяет само хранилище при обновлении, отдельная проверка заранее устарела бы к записи.
     private void isValidFilm(Film film) {
         if (film.getId() == null) {
             log.warn("Id фильма не указан");
             throw new IllegalArgumentException("Id должен быть указан");
         }
-
-        if (!filmStorage.exists(film.getId())) {
-            log.warn("Фильм с id = {} не найден", film.getId());
-            throw new NotFoundException("Фильм с id = " + film.getId() + " не найден");
-        }
     }
 }
@@ -0,0 +1,569 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Полнотекстовый поиск по названию и описанию фильмов: обратный индекс в памяти с ранжированием BM25.
+ * Слово — последовательность букв и цифр любого алфавита, регистр и «ё» не различаются,
+ * русские слова приводятся к основе; слово из названия весит как {@link #NAME_WEIGHT} слов описания. Фильмам при индексации выдаются
+ * внутренние номера по возрастанию, так что списки фильмов слова всегда отсортированы и пополняются в конец.
+ * Изменённый фильм получает новый номер, а старый помечается удалённым; когда удалённых становится
+ * больше живых, индекс уплотняется. Индекс строится по хранилищу при запуске и обновляется {@link FilmService}
+ * уже после записи в хранилище, поэтому при каждом номере помнится версия фильма: обновление, обогнанное
+ * более новым, индекс не откатывает.
+ */
+@Slf4j
+@Component
+public class FilmTextSearch implements InitializingBean {
+    static final int NAME_WEIGHT = 3;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int BUILD_PAGE_SIZE = 10_000;
+    private static final int MIN_COMPACTION = 1024;
+    private static final long DELETED = -1;
+
+    private final FilmStorage filmStorage;
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<Long, Integer> docByFilm = new HashMap<>();
+    private long[] filmByDoc = new long[1024];
+    private int[] docLength = new int[1024];
+    private long[] docVersion = new long[1024];
+    private int docs;
+    private int deletedDocs;
+    private long totalLength;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock readLock = lock.readLock();
+    private final Lock writeLock = lock.writeLock();
+
+    public FilmTextSearch(FilmStorage filmStorage) {
+        this.filmStorage = filmStorage;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        long start = System.nanoTime();
+        long afterId = 0;
+        List<Film> page;
+        while (!(page = filmStorage.getPage(afterId, BUILD_PAGE_SIZE)).isEmpty()) {
+            page.forEach(this::put);
+            afterId = page.get(page.size() - 1).getId();
+        }
+        log.info("Полнотекстовый индекс построен за {} мс: фильмов {}, слов {}",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), docByFilm.size(), postings.size());
+    }
+
+    /**
+     * Индексирует фильм, заменяя прежнюю версию. Версия не новее проиндексированной пропускается;
+     * фильм без версии индексируется всегда.
+     */
+    public void put(Film film) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        int[] length = {0};
+        Consumer<String> name = term -> {
+            frequencies.merge(term, NAME_WEIGHT, Integer::sum);
+            length[0] += NAME_WEIGHT;
+        };
+        Consumer<String> description = term -> {
+            frequencies.merge(term, 1, Integer::sum);
+            length[0]++;
+        };
+        terms(film.getName(), name);
+        terms(film.getDescription(), description);
+
+        long version = film.getVersion() == null ? 0 : film.getVersion();
+        writeLock.lock();
+        try {
+            Integer indexed = docByFilm.get(film.getId());
+            if (indexed != null && film.getVersion() != null && version <= docVersion[indexed]) {
+                return;
+            }
+            delete(film.getId());
+            if (docs == filmByDoc.length) {
+                filmByDoc = Arrays.copyOf(filmByDoc, docs * 2);
+                docLength = Arrays.copyOf(docLength, docs * 2);
+                docVersion = Arrays.copyOf(docVersion, docs * 2);
+            }
+            int doc = docs++;
+            filmByDoc[doc] = film.getId();
+            docLength[doc] = length[0];
+            docVersion[doc] = version;
+            totalLength += length[0];
+            docByFilm.put(film.getId(), doc);
+            frequencies.forEach((term, frequency) -> postings.computeIfAbsent(term, key -> new Postings())
+                    .add(doc, frequency, length[0]));
+            compactIfSparse();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Не больше {@code limit} id фильмов, содержащих хотя бы одно слово запроса, по убыванию BM25;
+     * при равной оценке — по возрастанию id.
+     * <p>
+     * Слова обходятся от самого редкого. Как только {@code limit}-я оценка превышает наибольший вклад,
+     * который могут дать оставшиеся слова, новые фильмы в ответ попасть уже не могут, и списки оставшихся
+     * слов только дополняют оценки найденных (MaxScore). Частые слова поэтому почти не стоят обхода.
+     * Запрос из одного слова обходит только блоки, способные попасть в ответ.
+     */
+    public List<Long> search(String query, int limit) {
+        Set<String> words = new LinkedHashSet<>();
+        terms(query, words::add);
+
+        readLock.lock();
+        try {
+            int liveDocs = docs - deletedDocs;
+            if (liveDocs == 0) {
+                return List.of();
+            }
+            double averageLength = (double) totalLength / liveDocs;
+            List<QueryTerm> terms = new ArrayList<>(words.size());
+            for (String word : words) {
+                Postings list = postings.get(word);
+                if (list != null) {
+                    // Удалённые фильмы остаются в списках до уплотнения: частота завышена не больше чем вдвое.
+                    int frequency = Math.min(list.size, liveDocs);
+                    double idf = Math.log(1 + (liveDocs - frequency + 0.5) / (frequency + 0.5));
+                    terms.add(new QueryTerm(list, idf));
+                }
+            }
+            terms.sort(Comparator.comparingDouble(QueryTerm::idf).reversed());
+
+            if (terms.size() == 1) {
+                return topOfTerm(terms.get(0), averageLength, limit);
+            }
+
+            double[] remainingBound = new double[terms.size() + 1];
+            for (int i = terms.size() - 1; i >= 0; i--) {
+                remainingBound[i] = remainingBound[i + 1] + maxScore(terms.get(i), averageLength);
+            }
+
+            DocScores scores = new DocScores(docs);
+            boolean collecting = true;
+            for (int i = 0; i < terms.size(); i++) {
+                if (collecting && i > 0 && scores.size() >= limit
+                        && scores.top(limit, filmByDoc).minScore() > remainingBound[i]) {
+                    collecting = false;
+                }
+                score(terms.get(i), averageLength, scores, collecting);
+            }
+            return scores.top(limit, filmByDoc).filmIds();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Термины индекса: слова текста, приведённые {@link RussianStemmer} к основе.
+     */
+    static void terms(String text, Consumer<String> sink) {
+        tokenize(text, word -> sink.accept(RussianStemmer.stem(word)));
+    }
+
+    /**
+     * Разбивает текст на слова в нижнем регистре с «ё», заменённой на «е».
+     */
+    static void tokenize(String text, Consumer<String> sink) {
+        if (text == null) {
+            return;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean letter = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                sink.accept(text.substring(start, i).toLowerCase(Locale.ROOT).replace('ё', 'е'));
+                start = -1;
+            }
+        }
+    }
+
+    private void score(QueryTerm term, double averageLength, DocScores scores, boolean collecting) {
+        Postings list = term.postings;
+        if (!collecting && (long) scores.size() * 32 < list.size) {
+            // Найденных фильмов мало: их проще найти в списке двоичным поиском, чем обходить список целиком.
+            scores.forEachDoc(doc -> {
+                int index = Arrays.binarySearch(list.docs, 0, list.size, doc);
+                if (index >= 0) {
+                    scores.add(doc, bm25(term.idf, list.frequencies[index], docLength[doc], averageLength));
+                }
+            });
+            return;
+        }
+        for (int i = 0; i < list.size; i++) {
+            int doc = list.docs[i];
+            if (filmByDoc[doc] != DELETED && (collecting || scores.contains(doc))) {
+                scores.add(doc, bm25(term.idf, list.frequencies[i], docLength[doc], averageLength));
+            }
+        }
+    }
+
+    /**
+     * Лучшие фильмы по одному слову: блоки, чья верхняя граница ниже порога кучи, не обходятся.
+     * Порог быстро растёт до оценок фильмов с многими вхождениями, поэтому у частого слова
+     * обходится лишь малая часть блоков.
+     */
+    private List<Long> topOfTerm(QueryTerm term, double averageLength, int limit) {
+        Postings list = term.postings;
+        TopDocs top = new TopDocs(limit);
+        for (int block = 0; block < list.blocks(); block++) {
+            if (blockBound(list, block, term.idf, averageLength) < top.minScore()) {
+                continue;
+            }
+            int end = Math.min(list.size, (block + 1) * Postings.BLOCK);
+            for (int i = block * Postings.BLOCK; i < end; i++) {
+                int doc = list.docs[i];
+                top.offer(doc, bm25(term.idf, list.frequencies[i], docLength[doc], averageLength), filmByDoc);
+            }
+        }
+        return top.filmIds();
+    }
+
+    private static float maxScore(QueryTerm term, double averageLength) {
+        float max = 0;
+        for (int block = 0; block < term.postings.blocks(); block++) {
+            max = Math.max(max, blockBound(term.postings, block, term.idf, averageLength));
+        }
+        return max;
+    }
+
+    // Оценка растёт с числом вхождений и падает с длиной, поэтому граница берёт лучшее из каждого.
+    private static float blockBound(Postings list, int block, double idf, double averageLength) {
+        return bm25(idf, list.blockMaxFrequency[block], list.blockMinLength[block], averageLength);
+    }
+
+    private static float bm25(double idf, int frequency, int length, double averageLength) {
+        double norm = K1 * (1 - B + B * length / averageLength);
+        return (float) (idf * frequency * (K1 + 1) / (frequency + norm));
+    }
+
+    private void delete(long filmId) {
+        Integer doc = docByFilm.remove(filmId);
+        if (doc != null) {
+            filmByDoc[doc] = DELETED;
+            totalLength -= docLength[doc];
+            deletedDocs++;
+        }
+    }
+
+    private void compactIfSparse() {
+        if (deletedDocs < MIN_COMPACTION || deletedDocs < docs - deletedDocs) {
+            return;
+        }
+        int[] renumbered = new int[docs];
+        int live = 0;
+        for (int doc = 0; doc < docs; doc++) {
+            if (filmByDoc[doc] == DELETED) {
+                renumbered[doc] = -1;
+            } else {
+                renumbered[doc] = live;
+                filmByDoc[live] = filmByDoc[doc];
+                docLength[live] = docLength[doc];
+                docVersion[live] = docVersion[doc];
+                docByFilm.put(filmByDoc[live], live);
+                live++;
+            }
+        }
+        Iterator<Postings> lists = postings.values().iterator();
+        while (lists.hasNext()) {
+            Postings list = lists.next();
+            list.renumber(renumbered, docLength);
+            if (list.size == 0) {
+                lists.remove();
+            }
+        }
+        docs = live;
+        deletedDocs = 0;
+    }
+
+    private record QueryTerm(Postings postings, double idf) {
+    }
+
+    /**
+     * Номера фильмов, содержащих слово, по возрастанию и число вхождений с учётом веса названия.
+     * Для каждого блока из {@link #BLOCK} фильмов хранятся наибольшее число вхождений и наименьшая длина:
+     * по ним оценка любого фильма блока ограничена сверху, и блок, который не может попасть в ответ, пропускается.
+     */
+    private static final class Postings {
+        private static final int BLOCK = 128;
+
+        private int[] docs = new int[2];
+        private int[] frequencies = new int[2];
+        private int[] blockMaxFrequency = new int[1];
+        private int[] blockMinLength = new int[1];
+        private int size;
+
+        void add(int doc, int frequency, int length) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            int block = size / BLOCK;
+            if (block == blockMaxFrequency.length) {
+                blockMaxFrequency = Arrays.copyOf(blockMaxFrequency, block * 2);
+                blockMinLength = Arrays.copyOf(blockMinLength, block * 2);
+            }
+            if (size % BLOCK == 0) {
+                blockMaxFrequency[block] = frequency;
+                blockMinLength[block] = length;
+            } else {
+                blockMaxFrequency[block] = Math.max(blockMaxFrequency[block], frequency);
+                blockMinLength[block] = Math.min(blockMinLength[block], length);
+            }
+            docs[size] = doc;
+            frequencies[size] = frequency;
+            size++;
+        }
+
+        int blocks() {
+            return (size + BLOCK - 1) / BLOCK;
+        }
+
+        void renumber(int[] renumbered, int[] docLength) {
+            int[] oldDocs = docs;
+            int[] oldFrequencies = frequencies;
+            int oldSize = size;
+            size = 0;
+            for (int i = 0; i < oldSize; i++) {
+                int doc = renumbered[oldDocs[i]];
+                if (doc >= 0) {
+                    add(doc, oldFrequencies[i], docLength[doc]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Накопленные оценки фильмов. Пока фильмов немного, они лежат в хеш-таблице с открытой адресацией;
+     * когда их становится больше восьмой части индекса, оценки переезжают в массив по номеру фильма.
+     */
+    private static final class DocScores {
+        private static final int EMPTY = -1;
+
+        private final int docs;
+        private int[] keys = new int[64];
+        private float[] values = new float[64];
+        private float[] dense;
+        private int[] touched;
+        private int size;
+
+        DocScores(int docs) {
+            this.docs = docs;
+            Arrays.fill(keys, EMPTY);
+        }
+
+        int size() {
+            return size;
+        }
+
+        boolean contains(int doc) {
+            return dense != null ? dense[doc] != 0 : keys[slot(doc)] == doc;
+        }
+
+        void add(int doc, float score) {
+            if (dense != null) {
+                if (dense[doc] == 0) {
+                    touched[size++] = doc;
+                }
+                dense[doc] += score;
+                return;
+            }
+            int slot = slot(doc);
+            if (keys[slot] == doc) {
+                values[slot] += score;
+                return;
+            }
+            keys[slot] = doc;
+            values[slot] = score;
+            if (++size > keys.length / 2) {
+                grow();
+            }
+        }
+
+        void forEachDoc(IntConsumer action) {
+            int[] docsSnapshot = new int[size];
+            int count = 0;
+            if (dense != null) {
+                System.arraycopy(touched, 0, docsSnapshot, 0, size);
+                count = size;
+            } else {
+                for (int key : keys) {
+                    if (key != EMPTY) {
+                        docsSnapshot[count++] = key;
+                    }
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                action.accept(docsSnapshot[i]);
+            }
+        }
+
+        TopDocs top(int limit, long[] filmByDoc) {
+            TopDocs top = new TopDocs(limit);
+            if (dense != null) {
+                for (int i = 0; i < size; i++) {
+                    top.offer(touched[i], dense[touched[i]], filmByDoc);
+                }
+            } else {
+                for (int slot = 0; slot < keys.length; slot++) {
+                    if (keys[slot] != EMPTY) {
+                        top.offer(keys[slot], values[slot], filmByDoc);
+                    }
+                }
+            }
+            return top;
+        }
+
+        private int slot(int doc) {
+            int mask = keys.length - 1;
+            int slot = (doc * 0x9E3779B9) >>> 1 & mask;
+            while (keys[slot] != EMPTY && keys[slot] != doc) {
+                slot = slot + 1 & mask;
+            }
+            return slot;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            float[] oldValues = values;
+            if (oldKeys.length * 2L > docs / 4) {
+                dense = new float[docs];
+                touched = new int[docs];
+                int count = 0;
+                for (int slot = 0; slot < oldKeys.length; slot++) {
+                    if (oldKeys[slot] != EMPTY) {
+                        dense[oldKeys[slot]] = oldValues[slot];
+                        touched[count++] = oldKeys[slot];
+                    }
+                }
+                keys = null;
+                values = null;
+                return;
+            }
+            keys = new int[oldKeys.length * 2];
+            values = new float[oldKeys.length * 2];
+            Arrays.fill(keys, EMPTY);
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldKeys[slot] != EMPTY) {
+                    int newSlot = slot(oldKeys[slot]);
+                    keys[newSlot] = oldKeys[slot];
+                    values[newSlot] = oldValues[slot];
+                }
+            }
+        }
+    }
+
+    /**
+     * Ограниченная куча лучших фильмов: в корне худший из отобранных. Удалённые фильмы пропускаются.
+     */
+    private static final class TopDocs {
+        private final float[] heapScores;
+        private final long[] heapFilms;
+        private int size;
+
+        TopDocs(int limit) {
+            heapScores = new float[limit];
+            heapFilms = new long[limit];
+        }
+
+        void offer(int doc, float score, long[] filmByDoc) {
+            long filmId = filmByDoc[doc];
+            if (filmId == DELETED || heapScores.length == 0) {
+                return;
+            }
+            if (size < heapScores.length) {
+                set(size, score, filmId);
+                siftUp(size++);
+            } else if (worse(0, score, filmId)) {
+                set(0, score, filmId);
+                siftDown(0);
+            }
+        }
+
+        // Порог входа в кучу: пока она не заполнена, войти может любой фильм.
+        float minScore() {
+            return size < heapScores.length ? 0 : heapScores[0];
+        }
+
+        List<Long> filmIds() {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> {
+                int byScore = Float.compare(heapScores[b], heapScores[a]);
+                return byScore != 0 ? byScore : Long.compare(heapFilms[a], heapFilms[b]);
+            });
+            List<Long> result = new ArrayList<>(size);
+            for (Integer i : order) {
+                result.add(heapFilms[i]);
+            }
+            return result;
+        }
+
+        // Фильм в позиции i хуже кандидата: меньше оценка или при равной оценке больше id.
+        private boolean worse(int i, float score, long filmId) {
+            return heapScores[i] < score || heapScores[i] == score && heapFilms[i] > filmId;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (!worse(i, heapScores[parent], heapFilms[parent])) {
+                    break;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int worst = i;
+                for (int child = 2 * i + 1; child <= 2 * i + 2 && child < size; child++) {
+                    if (worse(child, heapScores[worst], heapFilms[worst])) {
+                        worst = child;
+                    }
+                }
+                if (worst == i) {
+                    return;
+                }
+                swap(i, worst);
+                i = worst;
+            }
+        }
+
+        private void set(int i, float score, long filmId) {
+            heapScores[i] = score;
+            heapFilms[i] = filmId;
+        }
+
+        private void swap(int a, int b) {
+            float score = heapScores[a];
+            long filmId = heapFilms[a];
+            set(a, heapScores[b], heapFilms[b]);
+            set(b, score, filmId);
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.storage.FriendshipStorage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Друзья второго круга, ранжированные по числу общих друзей: совпадения в списках друзей всех друзей
+ * пользователя считает {@link OverlapRanking}.
+ * Результат кэшируется на пользователя, а при изменении дружбы поправляется точечно.
+ */
+@Component
+public class FriendRecommendations implements MeterBinder {
+    public static final int MAX_RECOMMENDATIONS = 100;
+    private static final long[] NO_FRIENDS = new long[0];
+
+    private final FriendshipStorage friendshipStorage;
+    private final Cache<Long, Ranking> rankings;
+    // Меняется при каждом изменении дружбы: рейтинг, посчитанный до изменения, в кэш уже не попадёт.
+    private final AtomicLong version = new AtomicLong();
+
+    public FriendRecommendations(FriendshipStorage friendshipStorage,
+                                 @Value("${filmorate.recommendations.cache-size:100000}") long cacheSize) {
+        this.friendshipStorage = friendshipStorage;
+        this.rankings = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Не больше {@code count} рекомендаций, {@code count} — от 1 до {@link #MAX_RECOMMENDATIONS}.
+     */
+    public List<Long> recommend(long userId, int count) {
+        Ranking ranking = rankings.getIfPresent(userId);
+        if (ranking == null) {
+            long seen = version.get();
+            Ranking computed = rank(userId);
+            rankings.asMap().compute(userId, (id, cached) -> version.get() == seen ? computed : cached);
+            ranking = computed;
+        }
+        int size = Math.min(count, ranking.ids.length);
+        List<Long> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(ranking.ids[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Считает рекомендации заново, минуя кэш.
+     */
+    public Ranking rank(long userId) {
+        long[] friends = friendsOf(userId);
+        long[][] lists = friendshipStorage.getFriendIdsByUser(boxed(friends)).values().toArray(long[][]::new);
+
+        TopK top = OverlapRanking.rank(lists,
+                id -> id == userId || Arrays.binarySearch(friends, id) >= 0, MAX_RECOMMENDATIONS);
+        long[] ids = new long[top.size()];
+        int[] counts = new int[top.size()];
+        boolean complete = !top.overflowed();
+        top.drainTo(ids, counts);
+        return new Ranking(ids, counts, complete);
+    }
+
+    /**
+     * Поправляет закэшированные рейтинги после того, как дружба пользователей добавлена или удалена.
+     * Рейтинги самих пользователей сбрасываются; у их друзей меняется счёт одного кандидата — второго
+     * пользователя, и он пересчитывается заново, а не на единицу, поэтому повтор поправки безопасен.
+     */
+    public void friendshipChanged(long userId, long friendId) {
+        version.incrementAndGet();
+        rankings.invalidate(userId);
+        rankings.invalidate(friendId);
+        Map<Long, long[]> friends = friendshipStorage.getFriendIdsByUser(List.of(userId, friendId));
+        refreshCandidate(friends.getOrDefault(userId, NO_FRIENDS), friendId);
+        refreshCandidate(friends.getOrDefault(friendId, NO_FRIENDS), userId);
+    }
+
+    /**
+     * Сбрасывает рейтинги всех, кого затронула пачка дружб: участников и их друзей.
+     */
+    public void friendshipsChanged(List<Friendship> friendships) {
+        version.incrementAndGet();
+        Set<Long> users = new LinkedHashSet<>();
+        for (Friendship friendship : friendships) {
+            users.add(friendship.getUserId());
+            users.add(friendship.getFriendId());
+        }
+        rankings.invalidateAll(users);
+        for (long[] friends : friendshipStorage.getFriendIdsByUser(List.copyOf(users)).values()) {
+            rankings.invalidateAll(boxed(friends));
+        }
+    }
+
+    /**
+     * Сбрасывает рейтинги удалённого пользователя, его бывших друзей и их друзей:
+     * у последних он был кандидатом или общим другом.
+     */
+    public void userRemoved(long userId, long[] formerFriends) {
+        version.incrementAndGet();
+        rankings.invalidate(userId);
+        rankings.invalidateAll(boxed(formerFriends));
+        for (long[] friends : friendshipStorage.getFriendIdsByUser(boxed(formerFriends)).values()) {
+            rankings.invalidateAll(boxed(friends));
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, rankings, "recommendations");
+    }
+
+    // Друзья кандидата читаются один раз на проход. Если тем временем дружба снова изменилась,
+    // они перечитываются: иначе поправка по старому списку могла бы лечь поверх более свежей.
+    private void refreshCandidate(long[] users, long candidate) {
+        long seen = version.get();
+        long[] candidateFriends = friendsOf(candidate);
+        for (long user : users) {
+            if (user != candidate && rankings.getIfPresent(user) != null) {
+                rankings.asMap().computeIfPresent(user, (id, ranking) -> ranking.withCandidate(candidate,
+                        mutualFriends(friendsOf(id), candidate,
+                                version.get() == seen ? candidateFriends : friendsOf(candidate))));
+            }
+        }
+    }
+
+    private long[] friendsOf(long userId) {
+        return friendshipStorage.getFriendIdsByUser(List.of(userId)).getOrDefault(userId, NO_FRIENDS);
+    }
+
+    // Число общих друзей; 0, если кандидат уже в друзьях.
+    private static int mutualFriends(long[] userFriends, long candidate, long[] candidateFriends) {
+        if (Arrays.binarySearch(userFriends, candidate) >= 0) {
+            return 0;
+        }
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < userFriends.length && j < candidateFriends.length) {
+            if (userFriends[i] < candidateFriends[j]) {
+                i++;
+            } else if (userFriends[i] > candidateFriends[j]) {
+                j++;
+            } else {
+                count++;
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+
+    private static List<Long> boxed(long[] ids) {
+        List<Long> result = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            result.add(id);
+        }
+        return result;
+    }
+
+    /**
+     * Рейтинг от лучшего к худшему. {@code complete} — в нём все кандидаты, а не только первые
+     * {@link #MAX_RECOMMENDATIONS}; тогда любую поправку можно применить без пересчёта.
+     */
+    public static final class Ranking {
+        private final long[] ids;
+        private final int[] counts;
+        private final boolean complete;
+
+        private Ranking(long[] ids, int[] counts, boolean complete) {
+            this.ids = ids;
+            this.counts = counts;
+            this.complete = complete;
+        }
+
+        public int size() {
+            return ids.length;
+        }
+
+        /**
+         * Рейтинг с новым счётом кандидата ({@code 0} — больше не кандидат) или {@code null},
+         * если без пересчёта его не восстановить: кандидат выбыл из неполного рейтинга.
+         */
+        Ranking withCandidate(long id, int mutual) {
+            int index = -1;
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == id) {
+                    index = i;
+                    break;
+                }
+            }
+            if (index < 0 && mutual == 0) {
+                return this;
+            }
+
+            int restSize = index < 0 ? ids.length : ids.length - 1;
+            long[] restIds = new long[restSize];
+            int[] restCounts = new int[restSize];
+            for (int i = 0, j = 0; i < ids.length; i++) {
+                if (i != index) {
+                    restIds[j] = ids[i];
+                    restCounts[j++] = counts[i];
+                }
+            }
+
+            boolean fits = mutual > 0 && (complete || restSize > 0
+                    && TopK.better(id, mutual, restIds[restSize - 1], restCounts[restSize - 1]));
+            if (!fits) {
+                if (index < 0) {
+                    return this;
+                }
+                return complete ? new Ranking(restIds, restCounts, true) : null;
+            }
+
+            int position = 0;
+            while (position < restSize && !TopK.better(id, mutual, restIds[position], restCounts[position])) {
+                position++;
+            }
+            int size = Math.min(restSize + 1, MAX_RECOMMENDATIONS);
+            long[] newIds = new long[size];
+            int[] newCounts = new int[size];
+            for (int i = 0, j = 0; i < size; i++) {
+                if (i == position) {
+                    newIds[i] = id;
+                    newCounts[i] = mutual;
+                } else {
+                    newIds[i] = restIds[j];
+                    newCounts[i] = restCounts[j++];
+                }
+            }
+            return new Ranking(newIds, newCounts, complete && restSize + 1 <= MAX_RECOMMENDATIONS);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.ConflictException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Импорт фильмов и пользователей из JSON-массива или NDJSON.
+ * Тело разбирается потоково по одной записи, проверенные записи сохраняются пачками по {@link #CHUNK_SIZE},
+ * поэтому в памяти одновременно держится не больше одной пачки.
+ */
+@Slf4j
+@Service
+@Timed(value = "filmorate.service", histogram = true)
+@RequiredArgsConstructor
+public class ImportService {
+    public static final int CHUNK_SIZE = 500;
+
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final FilmService filmService;
+    private final UserService userService;
+
+    public ImportResult importFilms(InputStream body) throws IOException {
+        log.debug("Получен запрос на импорт фильмов");
+        ImportResult result = importEntities(body, Film.class, filmService::validateFilm, filmService::createAll);
+        log.info("Импорт фильмов завершён: создано {}, отклонено {}", result.getImported(), result.getRejected());
+        return result;
+    }
+
+    public ImportResult importUsers(InputStream body) throws IOException {
+        log.debug("Получен запрос на импорт пользователей");
+        ImportResult result = importEntities(body, User.class, user -> {
+        }, userService::createAll);
+        log.info("Импорт пользователей завершён: создано {}, отклонено {}", result.getImported(),
+                result.getRejected());
+        return result;
+    }
+
+    private <T> ImportResult importEntities(InputStream body, Class<T> type, Consumer<T> check,
+                                            Function<List<T>, List<T>> save) throws IOException {
+        ImportResult result = new ImportResult();
+        List<T> chunk = new ArrayList<>(CHUNK_SIZE);
+        List<Integer> chunkIndexes = new ArrayList<>(CHUNK_SIZE);
+        int index = 0;
+
+        try (JsonParser parser = objectMapper.createParser(body)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                token = parser.nextToken();
+            }
+            while (token != null && token != JsonToken.END_ARRAY) {
+                JsonNode record = parser.readValueAsTree();
+                String error = null;
+                try {
+                    T entity = objectMapper.treeToValue(record, type);
+                    error = violations(entity);
+                    if (error == null) {
+                        check.accept(entity);
+                        chunk.add(entity);
+                        chunkIndexes.add(index);
+                    }
+                } catch (JsonProcessingException e) {
+                    error = "Некорректная запись: " + e.getOriginalMessage();
+                } catch (IllegalArgumentException e) {
+                    error = e.getMessage();
+                }
+                if (error != null) {
+                    result.reject(index, error);
+                }
+                if (chunk.size() == CHUNK_SIZE) {
+                    saveChunk(chunk, chunkIndexes, save, result);
+                    chunk = new ArrayList<>(CHUNK_SIZE);
+                    chunkIndexes = new ArrayList<>(CHUNK_SIZE);
+                }
+                index++;
+                token = parser.nextToken();
+            }
+        } catch (JsonProcessingException e) {
+            log.warn("Импорт прерван на записи {}: {}", index, e.getOriginalMessage());
+            result.setCompleted(false);
+            result.reject(index, "Некорректный JSON: " + e.getOriginalMessage());
+        }
+
+        if (!chunk.isEmpty()) {
+            saveChunk(chunk, chunkIndexes, save, result);
+        }
+        return result;
+    }
+
+    /**
+     * Сохраняет пачку одной операцией. Если пачка отклонена целиком из-за занятых ключей,
+     * записи сохраняются по одной, и отклоняются только конфликтующие.
+     */
+    private <T> void saveChunk(List<T> chunk, List<Integer> indexes, Function<List<T>, List<T>> save,
+                               ImportResult result) {
+        try {
+            result.setImported(result.getImported() + save.apply(chunk).size());
+            return;
+        } catch (ConflictException e) {
+            log.debug("Пачка из {} записей отклонена: {}; сохраняем по одной", chunk.size(), e.getMessage());
+        }
+        for (int i = 0; i < chunk.size(); i++) {
+            try {
+                result.setImported(result.getImported() + save.apply(List.of(chunk.get(i))).size());
+            } catch (ConflictException e) {
+                result.reject(indexes.get(i), e.getMessage());
+            }
+        }
+    }
+
+    private <T> String violations(T entity) {
+        Set<ConstraintViolation<T>> violations = validator.validate(entity);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return "Ошибка валидации: " + violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+}
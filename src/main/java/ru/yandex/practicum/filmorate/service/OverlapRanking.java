@@ -0,0 +1,110 @@
+package ru.yandex.practicum.filmorate.service;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.LongPredicate;
+
+/**
+ * Id, чаще всего встречающиеся в нескольких отсортированных списках: друзья друзей, соседи по лайкам.
+ * Диапазон id делится между задачами fork-join; каждая задача считает совпадения в своём диапазоне
+ * и оставляет лучших в ограниченной куче, кучи сливаются по дереву задач.
+ */
+final class OverlapRanking {
+    // Сколько id задача разбирает сама, не деля диапазон дальше.
+    private static final int LEAF_SIZE = 1 << 14;
+
+    private OverlapRanking() {
+    }
+
+    /**
+     * Не больше {@code limit} id по убыванию числа списков, в которых они встречаются.
+     * Списки должны быть непустыми, отсортированными и без повторов; {@code excluded} отсеивает id до подсчёта.
+     */
+    static TopK rank(long[][] lists, LongPredicate excluded, int limit) {
+        if (lists.length == 0) {
+            return new TopK(limit);
+        }
+        long lo = Long.MAX_VALUE;
+        long hi = Long.MIN_VALUE;
+        int[] from = new int[lists.length];
+        int[] to = new int[lists.length];
+        for (int i = 0; i < lists.length; i++) {
+            to[i] = lists[i].length;
+            lo = Math.min(lo, lists[i][0]);
+            hi = Math.max(hi, lists[i][lists[i].length - 1]);
+        }
+        return new RankTask(lists, excluded, limit, from, to, lo, hi).invoke();
+    }
+
+    /**
+     * Считает совпадения id в диапазоне [lo, hi] по всем спискам. Большой диапазон делится пополам
+     * по значению id, границы в каждом списке находятся двоичным поиском.
+     */
+    private static final class RankTask extends RecursiveTask<TopK> {
+        private final long[][] lists;
+        private final LongPredicate excluded;
+        private final int limit;
+        private final int[] from;
+        private final int[] to;
+        private final long lo;
+        private final long hi;
+
+        RankTask(long[][] lists, LongPredicate excluded, int limit, int[] from, int[] to, long lo, long hi) {
+            this.lists = lists;
+            this.excluded = excluded;
+            this.limit = limit;
+            this.from = from;
+            this.to = to;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected TopK compute() {
+            long total = 0;
+            for (int i = 0; i < lists.length; i++) {
+                total += to[i] - from[i];
+            }
+            if (total <= LEAF_SIZE || lo == hi) {
+                return rankLeaf((int) total);
+            }
+
+            long mid = lo + (hi - lo) / 2;
+            int[] split = new int[lists.length];
+            for (int i = 0; i < lists.length; i++) {
+                int index = Arrays.binarySearch(lists[i], from[i], to[i], mid);
+                split[i] = index >= 0 ? index + 1 : -index - 1;
+            }
+            RankTask left = new RankTask(lists, excluded, limit, from, split, lo, mid);
+            RankTask right = new RankTask(lists, excluded, limit, split, to, mid + 1, hi);
+            left.fork();
+            TopK rightTop = right.compute();
+            return left.join().merge(rightTop);
+        }
+
+        private TopK rankLeaf(int total) {
+            long[] ids = new long[total];
+            int size = 0;
+            for (int i = 0; i < lists.length; i++) {
+                System.arraycopy(lists[i], from[i], ids, size, to[i] - from[i]);
+                size += to[i] - from[i];
+            }
+            Arrays.sort(ids);
+
+            TopK top = new TopK(limit);
+            int start = 0;
+            while (start < size) {
+                long id = ids[start];
+                int end = start + 1;
+                while (end < size && ids[end] == id) {
+                    end++;
+                }
+                if (!excluded.test(id)) {
+                    top.offer(id, end - start);
+                }
+                start = end;
+            }
+            return top;
+        }
+    }
+}
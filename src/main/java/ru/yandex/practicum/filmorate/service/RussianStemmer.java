@@ -0,0 +1,141 @@
+package ru.yandex.practicum.filmorate.service;
+
+/**
+ * Стеммер Портера для русского языка (Snowball): отрезает окончания, чтобы «ёжика», «ёжики» и «ёжик»
+ * стали одним словом. Окончания ищутся в области RV — после первой гласной; слово в нижнем регистре, «ё» уже «е».
+ * Слова без кириллицы возвращаются как есть.
+ */
+final class RussianStemmer {
+    private static final String VOWELS = "аеиоуыэюя";
+
+    // Окончания группы 1 снимаются, только если перед ними «а» или «я».
+    private static final String[] PERFECTIVE_GERUND_1 = {"вшись", "вши", "в"};
+    private static final String[] PERFECTIVE_GERUND_2 = {"ившись", "ывшись", "ивши", "ывши", "ив", "ыв"};
+    private static final String[] ADJECTIVE = {"ими", "ыми", "его", "ого", "ему", "ому", "ее", "ие", "ые", "ое",
+            "ей", "ий", "ый", "ой", "ем", "им", "ым", "ом", "их", "ых", "ую", "юю", "ая", "яя", "ою", "ею"};
+    private static final String[] PARTICIPLE_1 = {"ем", "нн", "вш", "ющ", "щ"};
+    private static final String[] PARTICIPLE_2 = {"ивш", "ывш", "ующ"};
+    private static final String[] REFLEXIVE = {"ся", "сь"};
+    private static final String[] VERB_1 = {"ете", "йте", "ешь", "нно", "ла", "на", "ли", "ем", "ло", "но", "ет",
+            "ют", "ны", "ть", "й", "л", "н"};
+    private static final String[] VERB_2 = {"ейте", "уйте", "ила", "ыла", "ена", "ите", "или", "ыли", "ило", "ыло",
+            "ено", "ует", "уют", "ены", "ить", "ыть", "ишь", "ей", "уй", "ил", "ыл", "им", "ым", "ен", "ят", "ит",
+            "ыт", "ую", "ю"};
+    private static final String[] NOUN = {"иями", "ями", "ами", "ией", "иям", "ием", "иях", "ев", "ов", "ие", "ье",
+            "еи", "ии", "ей", "ой", "ий", "ям", "ем", "ам", "ом", "ах", "ях", "ию", "ью", "ия", "ья", "а", "е", "и",
+            "й", "о", "у", "ы", "ь", "ю", "я"};
+    private static final String[] SUPERLATIVE = {"ейше", "ейш"};
+    private static final String[] DERIVATIONAL = {"ость", "ост"};
+
+    private RussianStemmer() {
+    }
+
+    static String stem(String word) {
+        int rv = 0;
+        while (rv < word.length() && VOWELS.indexOf(word.charAt(rv)) < 0) {
+            rv++;
+        }
+        if (rv == word.length() || !isCyrillic(word)) {
+            return word;
+        }
+        rv++;
+        int r2 = region(word, region(word, 0));
+
+        // Шаг 1: деепричастие или возвратная частица, затем прилагательное, глагол или существительное.
+        int end = word.length();
+        int cut = longest(word, end, rv, PERFECTIVE_GERUND_1, PERFECTIVE_GERUND_2);
+        if (cut >= 0) {
+            end = cut;
+        } else {
+            cut = longest(word, end, rv, null, REFLEXIVE);
+            if (cut >= 0) {
+                end = cut;
+            }
+            cut = longest(word, end, rv, null, ADJECTIVE);
+            if (cut >= 0) {
+                end = cut;
+                cut = longest(word, end, rv, PARTICIPLE_1, PARTICIPLE_2);
+                if (cut >= 0) {
+                    end = cut;
+                }
+            } else if ((cut = longest(word, end, rv, VERB_1, VERB_2)) >= 0) {
+                end = cut;
+            } else if ((cut = longest(word, end, rv, null, NOUN)) >= 0) {
+                end = cut;
+            }
+        }
+
+        // Шаг 2: конечная «и».
+        if (end > rv && word.charAt(end - 1) == 'и') {
+            end--;
+        }
+
+        // Шаг 3: словообразовательный суффикс в области R2.
+        cut = longest(word, end, r2, null, DERIVATIONAL);
+        if (cut >= 0) {
+            end = cut;
+        }
+
+        // Шаг 4: двойная «н», превосходная степень или мягкий знак.
+        if (endsWith(word, end, "нн", rv)) {
+            end--;
+        } else if ((cut = longest(word, end, rv, null, SUPERLATIVE)) >= 0) {
+            end = cut;
+            if (endsWith(word, end, "нн", rv)) {
+                end--;
+            }
+        } else if (end > rv && word.charAt(end - 1) == 'ь') {
+            end--;
+        }
+        return word.substring(0, end);
+    }
+
+    /**
+     * Конец слова без самого длинного подходящего окончания из обеих групп или −1, если ни одно не подошло.
+     * Окончание должно лежать в области от {@code region}; перед окончанием группы 1 — «а» или «я» в той же области.
+     */
+    private static int longest(String word, int end, int region, String[] afterAOrYa, String[] plain) {
+        int best = -1;
+        if (afterAOrYa != null) {
+            for (String ending : afterAOrYa) {
+                int start = end - ending.length();
+                if (start - 1 >= region && endsWith(word, end, ending, region)
+                        && (word.charAt(start - 1) == 'а' || word.charAt(start - 1) == 'я')
+                        && (best < 0 || start < best)) {
+                    best = start;
+                }
+            }
+        }
+        for (String ending : plain) {
+            int start = end - ending.length();
+            if (endsWith(word, end, ending, region) && (best < 0 || start < best)) {
+                best = start;
+            }
+        }
+        return best;
+    }
+
+    private static boolean endsWith(String word, int end, String ending, int region) {
+        int start = end - ending.length();
+        return start >= region && word.startsWith(ending, start);
+    }
+
+    // Начало области после первой согласной, следующей за гласной.
+    private static int region(String word, int from) {
+        for (int i = from + 1; i < word.length(); i++) {
+            if (VOWELS.indexOf(word.charAt(i)) < 0 && VOWELS.indexOf(word.charAt(i - 1)) >= 0) {
+                return i + 1;
+            }
+        }
+        return word.length();
+    }
+
+    private static boolean isCyrillic(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (Character.UnicodeBlock.of(word.charAt(i)) == Character.UnicodeBlock.CYRILLIC) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
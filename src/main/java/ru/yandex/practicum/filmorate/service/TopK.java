@@ -0,0 +1,108 @@
+package ru.yandex.practicum.filmorate.service;
+
+/**
+ * Ограниченная куча лучших кандидатов: выше тот, у кого больше совпадений, при равенстве — меньший id.
+ * В корне лежит худший из удержанных, поэтому новый кандидат сравнивается с одним элементом.
+ */
+final class TopK {
+    private final long[] ids;
+    private final int[] counts;
+    private int size;
+    private boolean overflowed;
+
+    TopK(int capacity) {
+        this.ids = new long[capacity];
+        this.counts = new int[capacity];
+    }
+
+    static boolean better(long id, int count, long otherId, int otherCount) {
+        return count > otherCount || count == otherCount && id < otherId;
+    }
+
+    void offer(long id, int count) {
+        if (size < ids.length) {
+            ids[size] = id;
+            counts[size] = count;
+            siftUp(size++);
+            return;
+        }
+        overflowed = true;
+        if (size > 0 && better(id, count, ids[0], counts[0])) {
+            ids[0] = id;
+            counts[0] = count;
+            siftDown(0);
+        }
+    }
+
+    TopK merge(TopK other) {
+        overflowed |= other.overflowed;
+        for (int i = 0; i < other.size; i++) {
+            offer(other.ids[i], other.counts[i]);
+        }
+        return this;
+    }
+
+    /**
+     * Были ли отброшены кандидаты: если нет, в куче лежат все, кто в неё предлагался.
+     */
+    boolean overflowed() {
+        return overflowed;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Разбирает кучу в массивы {@code sortedIds} и {@code sortedCounts} от лучшего к худшему.
+     */
+    void drainTo(long[] sortedIds, int[] sortedCounts) {
+        while (size > 0) {
+            size--;
+            sortedIds[size] = ids[0];
+            sortedCounts[size] = counts[0];
+            ids[0] = ids[size];
+            counts[0] = counts[size];
+            siftDown(0);
+        }
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!better(ids[parent], counts[parent], ids[index], counts[index])) {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int worst = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && better(ids[worst], counts[worst], ids[left], counts[left])) {
+                worst = left;
+            }
+            if (right < size && better(ids[worst], counts[worst], ids[right], counts[right])) {
+                worst = right;
+            }
+            if (worst == index) {
+                return;
+            }
+            swap(index, worst);
+            index = worst;
+        }
+    }
+
+    private void swap(int i, int j) {
+        long id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+        int count = counts[i];
+        counts[i] = counts[j];
+        counts[j] = count;
+    }
+}
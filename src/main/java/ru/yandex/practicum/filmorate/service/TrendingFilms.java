@@ -0,0 +1,364 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.storage.PopularityIndex;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Фильмы, набирающие лайки сейчас. Для каждого окна лайки раскладываются по корзинам
+ * фиксированной длины, а суммы за окно лежат в {@link PopularityIndex}: лайк меняет одну корзину и одну сумму,
+ * истёкшая корзина вычитается целиком, а первые N фильмов читаются без обхода каталога.
+ * Время каждого лайка помнится, пока он не выйдет из самого длинного окна: снятый лайк вычитается
+ * из той корзины и с тем весом, с которыми был учтён, а снятие более старого лайка счёт уже не меняет.
+ * Счётчики живут в памяти и после перезапуска набираются заново.
+ */
+@Component
+public class TrendingFilms {
+    public static final int MAX_COUNT = 1000;
+
+    private final Clock clock;
+    private final Map<Window, WindowCounter> counters = new EnumMap<>(Window.class);
+    private final long horizonMillis;
+    private final Map<LikeKey, Long> likedAt = new HashMap<>();
+    // Лайки в порядке времени: по нему забываются вышедшие из самого длинного окна.
+    private final ArrayDeque<LikeTime> likeTimes = new ArrayDeque<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock readLock = lock.readLock();
+    private final Lock writeLock = lock.writeLock();
+
+    public TrendingFilms() {
+        this(Clock.systemUTC());
+    }
+
+    TrendingFilms(Clock clock) {
+        this.clock = clock;
+        long longest = 0;
+        for (Window window : Window.values()) {
+            counters.put(window, new WindowCounter(window));
+            longest = Math.max(longest, window.length.toMillis());
+        }
+        this.horizonMillis = longest;
+    }
+
+    public void likeAdded(long filmId, long userId) {
+        likesAdded(List.of(new Like(filmId, userId)));
+    }
+
+    public void likesAdded(List<Like> likes) {
+        if (likes.isEmpty()) {
+            return;
+        }
+        long now = clock.millis();
+        writeLock.lock();
+        try {
+            advance(now);
+            for (Like like : likes) {
+                LikeKey key = new LikeKey(like.getFilmId(), like.getUserId());
+                likedAt.put(key, now);
+                likeTimes.addLast(new LikeTime(key, now));
+                for (WindowCounter counter : counters.values()) {
+                    counter.add(key.filmId, now);
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void likeRemoved(long filmId, long userId) {
+        likesRemoved(userId, new long[]{filmId});
+    }
+
+    public void likesRemoved(long userId, long[] filmIds) {
+        if (filmIds.length == 0) {
+            return;
+        }
+        long now = clock.millis();
+        writeLock.lock();
+        try {
+            advance(now);
+            for (long filmId : filmIds) {
+                Long likeTime = likedAt.remove(new LikeKey(filmId, userId));
+                if (likeTime == null) {
+                    continue;
+                }
+                for (WindowCounter counter : counters.values()) {
+                    counter.remove(filmId, likeTime, now);
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Не больше {@code count} фильмов с наибольшим числом лайков за окно или, если {@code decay},
+     * с наибольшей «горячестью»: каждый лайк весит 2^(−возраст / длина окна).
+     */
+    public List<Long> getTop(Window window, int count, boolean decay) {
+        long now = clock.millis();
+        WindowCounter counter = counters.get(window);
+        if (now >= counter.nextExpiry) {
+            writeLock.lock();
+            try {
+                counter.expire(now);
+            } finally {
+                writeLock.unlock();
+            }
+        }
+        readLock.lock();
+        try {
+            return decay ? counter.hotness.getTop(count) : counter.ranking.getTop(count);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private void advance(long now) {
+        while (!likeTimes.isEmpty() && likeTimes.peekFirst().time <= now - horizonMillis) {
+            LikeTime old = likeTimes.pollFirst();
+            likedAt.remove(old.key, old.time);
+        }
+        for (WindowCounter counter : counters.values()) {
+            counter.expire(now);
+        }
+    }
+
+    public enum Window {
+        HOUR("1h", Duration.ofHours(1), 60),
+        DAY("24h", Duration.ofDays(1), 96),
+        WEEK("7d", Duration.ofDays(7), 168);
+
+        private final String code;
+        private final Duration length;
+        private final int buckets;
+
+        Window(String code, Duration length, int buckets) {
+            this.code = code;
+            this.length = length;
+            this.buckets = buckets;
+        }
+
+        public static Window of(String code) {
+            for (Window window : values()) {
+                if (window.code.equals(code)) {
+                    return window;
+                }
+            }
+            throw new IllegalArgumentException("Окно должно быть одним из: " + Arrays.stream(values())
+                    .map(window -> window.code)
+                    .collect(Collectors.joining(", ")));
+        }
+    }
+
+    /**
+     * Кольцо корзин одного окна. Окно сдвигается на целую корзину, поэтому его длина плавает
+     * в пределах одной корзины.
+     */
+    private static final class WindowCounter {
+        private final long bucketMillis;
+        private final int bucketCount;
+        private final ArrayDeque<Bucket> buckets = new ArrayDeque<>();
+        private final Map<Long, Integer> totals = new HashMap<>();
+        private final PopularityIndex ranking = new PopularityIndex();
+        private final Hotness hotness;
+        // Когда истечёт самая старая корзина: до этого момента чтение не берёт блокировку записи.
+        private volatile long nextExpiry = Long.MAX_VALUE;
+
+        WindowCounter(Window window) {
+            this.bucketMillis = window.length.toMillis() / window.buckets;
+            this.bucketCount = window.buckets;
+            this.hotness = new Hotness(window.length.toMillis());
+        }
+
+        void add(long filmId, long now) {
+            long slot = now / bucketMillis;
+            Bucket last = buckets.peekLast();
+            if (last == null || last.slot != slot) {
+                last = new Bucket(slot);
+                buckets.addLast(last);
+                if (buckets.size() == 1) {
+                    nextExpiry = (slot + bucketCount) * bucketMillis;
+                }
+            }
+            last.likes.merge(filmId, 1, Integer::sum);
+            change(filmId, 1);
+            hotness.add(filmId, now);
+        }
+
+        /**
+         * Снимает лайк, поставленный в {@code likeTime}: из его корзины, если она ещё в окне, и из горячести.
+         */
+        void remove(long filmId, long likeTime, long now) {
+            long slot = likeTime / bucketMillis;
+            Iterator<Bucket> newestFirst = buckets.descendingIterator();
+            while (newestFirst.hasNext()) {
+                Bucket bucket = newestFirst.next();
+                if (bucket.slot > slot) {
+                    continue;
+                }
+                Integer likes = bucket.slot == slot ? bucket.likes.get(filmId) : null;
+                if (likes != null) {
+                    if (likes == 1) {
+                        bucket.likes.remove(filmId);
+                    } else {
+                        bucket.likes.put(filmId, likes - 1);
+                    }
+                    change(filmId, -1);
+                }
+                break;
+            }
+            hotness.remove(filmId, likeTime, now);
+        }
+
+        void expire(long now) {
+            long oldestKept = now / bucketMillis - bucketCount + 1;
+            while (!buckets.isEmpty() && buckets.peekFirst().slot < oldestKept) {
+                buckets.pollFirst().likes.forEach((filmId, likes) -> change(filmId, -likes));
+            }
+            nextExpiry = buckets.isEmpty() ? Long.MAX_VALUE : (buckets.peekFirst().slot + bucketCount) * bucketMillis;
+            hotness.prune(now);
+        }
+
+        private void change(long filmId, int delta) {
+            int total = totals.merge(filmId, delta, Integer::sum);
+            if (total == 0) {
+                totals.remove(filmId);
+            }
+            ranking.set(filmId, total);
+        }
+    }
+
+    private static final class Bucket {
+        private final long slot;
+        private final Map<Long, Integer> likes = new HashMap<>();
+
+        Bucket(long slot) {
+            this.slot = slot;
+        }
+    }
+
+    /**
+     * Экспоненциально затухающий счёт. Вес лайка хранится относительно точки отсчёта {@code epoch}:
+     * 2^((t − epoch) / halfLife). Общий множитель, приводящий веса к текущему моменту, на порядок не влияет,
+     * поэтому старые счета не пересчитываются. Когда веса вырастают, точка отсчёта сдвигается.
+     * Затухшие до пренебрежимых счета отбрасываются с хвоста рейтинга при каждом сдвиге окна.
+     */
+    private static final class Hotness {
+        // Через сколько периодов полураспада сдвигать точку отсчёта: 2^64 ещё далеко от предела double.
+        private static final int REBASE_HALF_LIVES = 64;
+        private static final double NEGLIGIBLE = 1e-9;
+
+        private final double halfLifeMillis;
+        private final Map<Long, Scored> scores = new HashMap<>();
+        private final TreeSet<Scored> ranking = new TreeSet<>();
+        private long epoch;
+
+        Hotness(long halfLifeMillis) {
+            this.halfLifeMillis = halfLifeMillis;
+        }
+
+        void add(long filmId, long now) {
+            if (scores.isEmpty()) {
+                epoch = now;
+            } else if (now - epoch > REBASE_HALF_LIVES * halfLifeMillis) {
+                rebase(now);
+            }
+            Scored old = scores.get(filmId);
+            set(filmId, old, (old == null ? 0 : old.score) + weight(now), now);
+        }
+
+        /**
+         * Вычитает вес, с которым был учтён лайк из {@code likeTime}. Счёт не уходит ниже нуля:
+         * лайк мог быть отброшен вместе с затухшим счётом раньше, чем его сняли.
+         */
+        void remove(long filmId, long likeTime, long now) {
+            Scored old = scores.get(filmId);
+            if (old != null) {
+                set(filmId, old, Math.max(old.score - weight(likeTime), 0), now);
+            }
+        }
+
+        void prune(long now) {
+            double negligible = NEGLIGIBLE * weight(now);
+            while (!ranking.isEmpty() && ranking.last().score < negligible) {
+                scores.remove(ranking.pollLast().filmId);
+            }
+        }
+
+        List<Long> getTop(int count) {
+            List<Long> top = new ArrayList<>(Math.min(count, ranking.size()));
+            for (Scored scored : ranking) {
+                if (top.size() == count) {
+                    break;
+                }
+                top.add(scored.filmId);
+            }
+            return top;
+        }
+
+        private void set(long filmId, Scored old, double score, long now) {
+            if (old != null) {
+                ranking.remove(old);
+            }
+            if (score < NEGLIGIBLE * weight(now)) {
+                scores.remove(filmId);
+                return;
+            }
+            Scored scored = new Scored(filmId, score);
+            scores.put(filmId, scored);
+            ranking.add(scored);
+        }
+
+        private double weight(long now) {
+            return Math.pow(2, (now - epoch) / halfLifeMillis);
+        }
+
+        private void rebase(long now) {
+            double factor = 1 / weight(now);
+            List<Scored> rescaled = new ArrayList<>(scores.size());
+            for (Scored scored : scores.values()) {
+                if (scored.score * factor >= NEGLIGIBLE) {
+                    rescaled.add(new Scored(scored.filmId, scored.score * factor));
+                }
+            }
+            scores.clear();
+            ranking.clear();
+            for (Scored scored : rescaled) {
+                scores.put(scored.filmId, scored);
+                ranking.add(scored);
+            }
+            epoch = now;
+        }
+    }
+
+    // Выше тот, у кого больше счёт, при равенстве — меньший id.
+    private record Scored(long filmId, double score) implements Comparable<Scored> {
+        @Override
+        public int compareTo(Scored other) {
+            int byScore = Double.compare(other.score, score);
+            return byScore != 0 ? byScore : Long.compare(filmId, other.filmId);
+        }
+    }
+
+    private record LikeKey(long filmId, long userId) {
+    }
+
+    private record LikeTime(LikeKey key, long time) {
+    }
+}
@@ -0,0 +1,68 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Блокировки пользователей, разложенные по полосам. Лайки и дружбы добавляются под общей блокировкой
+ * всех участников, удаление пользователя идёт под исключительной: проверка существования и запись связи
+ * не перемежаются с удалением, и связь с удалённым пользователем не остаётся в хранилище.
+ * Полосы захватываются по возрастанию номера, поэтому пачки не ждут друг друга по кругу.
+ */
+@Component
+public class UserLocks {
+    private static final int STRIPES = 64;
+
+    private final ReentrantReadWriteLock[] stripes = new ReentrantReadWriteLock[STRIPES];
+
+    public UserLocks() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    /**
+     * Выполняет действие, пока ни один из пользователей не может быть удалён.
+     */
+    public <T> T sharing(Collection<Long> userIds, Supplier<T> action) {
+        int[] held = userIds.stream()
+                .filter(Objects::nonNull)
+                .mapToInt(UserLocks::stripe)
+                .distinct()
+                .sorted()
+                .toArray();
+        int locked = 0;
+        try {
+            for (int stripe : held) {
+                stripes[stripe].readLock().lock();
+                locked++;
+            }
+            return action.get();
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                stripes[held[i]].readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Выполняет действие, пока с пользователем не добавляются новые связи.
+     */
+    public <T> T exclusive(long userId, Supplier<T> action) {
+        ReentrantReadWriteLock.WriteLock lock = stripes[stripe(userId)].writeLock();
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static int stripe(long userId) {
+        return Long.hashCode(userId) & (STRIPES - 1);
+    }
+}
@@ -1,60 +1,146 @@
 package ru.yandex.practicum.filmorate.service;
 
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.PreconditionFailedException;
+import ru.yandex.practicum.filmorate.exception.VersionConflictException;
+import ru.yandex.practicum.filmorate.model.BatchResult;
+import ru.yandex.practicum.filmorate.model.Friendship;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FriendshipStorage;
+import ru.yandex.practicum.filmorate.storage.LikeStorage;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.storage.Versions;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
+@Timed(value = "filmorate.service", histogram = true)
 @RequiredArgsConstructor
 public class UserService {
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int MAX_BATCH_SIZE = 10_000;
+
     private final UserStorage userStorage;
-    private final Map<Long, Set<Long>> friends = new HashMap<>();
+    private final FriendshipStorage friendshipStorage;
+    private final LikeStorage likeStorage;
+    private final FriendRecommendations friendRecommendations;
+    private final FilmRecommendations filmRecommendations;
+    private final TrendingFilms trendingFilms;
+    private final UserLocks userLocks;
+    private final ApplicationEventPublisher events;
+    private final Counter friendshipsAdded = Metrics.counter("filmorate.friendships", "operation", "add");
+    private final Counter friendshipsRemoved = Metrics.counter("filmorate.friendships", "operation", "remove");
 
     public List<User> getAll() {
-        log.info("Получен запрос на получение всех пользователей");
+        log.debug("Получен запрос на получение всех пользователей");
         return userStorage.getAll();
     }
 
-    public User create(User user) {
-        log.info("Получен запрос на создание пользователя: {}", user);
+    public List<User> getPage(Long afterId, int limit) {
+        log.debug("Получен запрос на страницу пользователей: после id {}, не больше {}", afterId, limit);
 
-        if (user.getName() == null || user.getName().isBlank()) {
-            user.setName(user.getLogin());
-            log.debug("Имя не указано, установлено равным логину: {}", user.getLogin());
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            log.warn("Недопустимый размер страницы: {}", limit);
+            throw new IllegalArgumentException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
         }
+        return userStorage.getPage(afterId == null ? 0 : afterId, limit);
+    }
+
+    public User create(User user) {
+        log.debug("Получен запрос на создание пользователя: {}", user);
+
+        fillName(user);
 
         User createdUser = userStorage.create(user);
         log.info("Пользователь создан с id: {}", createdUser.getId());
         return createdUser;
     }
 
+    public List<User> createAll(List<User> users) {
+        users.forEach(this::fillName);
+        List<User> created = userStorage.createAll(users);
+        log.info("Создано пользователей пачкой: {}", created.size());
+        return created;
+    }
+
     public User update(User user) {
-        log.info("Получен запрос на обновление пользователя: {}", user);
+        return update(user, null);
+    }
+
+    /**
+     * Обновляет пользователя. Версия в теле или в {@code ifMatchVersion} (заголовок If-Match) должна совпасть
+     * с текущей: с версией из тела расхождение даёт 409, с If-Match — 412. Без версии обновление безусловное.
+     */
+    public User update(User user, Long ifMatchVersion) {
+        log.debug("Получен запрос на обновление пользователя: {}", user);
 
         isValidUser(user);
+        user.setVersion(Versions.expected(user.getVersion(), ifMatchVersion));
 
-        if (user.getName() == null || user.getName().isBlank()) {
-            user.setName(user.getLogin());
-            log.debug("Имя не указано, установлено равным логину: {}", user.getLogin());
-        }
+        fillName(user);
 
-        User updatedUser = userStorage.update(user);
+        User updatedUser;
+        try {
+            updatedUser = userStorage.update(user);
+        } catch (VersionConflictException e) {
+            log.warn("Пользователь {} не обновлён: {}", user.getId(), e.getMessage());
+            throw ifMatchVersion == null ? e : new PreconditionFailedException(e.getMessage());
+        }
+        if (updatedUser == null) {
+            log.warn("Пользователь с id = {} не найден", user.getId());
+            throw new NotFoundException("Пользователь с id = " + user.getId() + " не найден");
+        }
+        events.publishEvent(new DataChange.UserUpdated(updatedUser.getId()));
         log.info("Пользователь с id = {} обновлён", updatedUser.getId());
         return updatedUser;
     }
 
+    /**
+     * Удаляет пользователя вместе с его лайками и дружбами. Удаление идёт под исключительной блокировкой
+     * пользователя из {@link UserLocks}: лайк или дружба, уже прошедшие проверку существования, дописываются
+     * до удаления и снимаются вместе с остальными, а новые не пройдут проверку. Связи снимаются по его
+     * собственным спискам, за время, пропорциональное их длине.
+     */
+    public void delete(Long userId) {
+        log.debug("Получен запрос на удаление пользователя {}", userId);
+
+        long[][] removed = userLocks.exclusive(userId, () -> {
+            if (!userStorage.exists(userId)) {
+                log.warn("Пользователь с id = {} не найден", userId);
+                throw new NotFoundException("Пользователь с id = " + userId + " не найден");
+            }
+            // Связи снимаются до самой записи: каскадное удаление в БД не оставило бы их списков.
+            long[] friends = friendshipStorage.removeFriends(userId);
+            long[] films = likeStorage.removeLikesByUser(userId);
+            userStorage.delete(userId);
+
+            friendRecommendations.userRemoved(userId, friends);
+            filmRecommendations.forget(userId);
+            trendingFilms.likesRemoved(userId, films);
+            return new long[][]{friends, films};
+        });
+        long[] formerFriends = removed[0];
+        long[] likedFilms = removed[1];
+
+        events.publishEvent(new DataChange.UserDeleted(userId));
+        friendshipsRemoved.increment(formerFriends.length);
+        log.info("Пользователь {} удалён вместе с {} дружбами и {} лайками", userId, formerFriends.length,
+                likedFilms.length);
+    }
+
     public User getById(Long id) {
         User user = userStorage.get(id);
         if (user == null) {
@@ -63,77 +149,166 @@ public class UserService {
         return user;
     }
 
-    public void addFriend(Long userId, Long friendId) {
-        log.info("Получен запрос на добавление в друзья: пользователь {} добавляет пользователя {}", userId, friendId);
-
-        User user = getUserOrThrow(userId);
-        User friend = getUserOrThrow(friendId);
+    public User getByEmail(String email) {
+        User user = userStorage.getByEmail(email);
+        if (user == null) {
+            throw new NotFoundException("Пользователь с email = " + email + " не найден");
+        }
+        return user;
+    }
 
-        if (userId.equals(friendId)) {
-            log.warn("Пользователь {} пытается добавить самого себя в друзья", userId);
-            throw new IllegalArgumentException("Нельзя добавить самого себя в друзья");
+    public User getByLogin(String login) {
+        User user = userStorage.getByLogin(login);
+        if (user == null) {
+            throw new NotFoundException("Пользователь с логином = " + login + " не найден");
         }
+        return user;
+    }
 
-        friends.putIfAbsent(userId, new HashSet<>());
-        friends.putIfAbsent(friendId, new HashSet<>());
+    public void addFriend(Long userId, Long friendId) {
+        log.debug("Получен запрос на добавление в друзья: пользователь {} добавляет пользователя {}", userId, friendId);
+
+        userLocks.sharing(List.of(userId, friendId), () -> {
+            User user = getUserOrThrow(userId);
+            User friend = getUserOrThrow(friendId);
+
+            if (userId.equals(friendId)) {
+                log.warn("Пользователь {} пытается добавить самого себя в друзья", userId);
+                throw new IllegalArgumentException("Нельзя добавить самого себя в друзья");
+            }
+
+            if (!friendshipStorage.addFriend(userId, friendId)) {
+                log.warn("Пользователь {} уже в друзьях у пользователя {}", friendId, userId);
+                throw new IllegalArgumentException("Пользователь уже в друзьях");
+            }
+
+            friendRecommendations.friendshipChanged(userId, friendId);
+            return null;
+        });
+        friendshipsAdded.increment();
+        log.info("Пользователи {} и {} теперь друзья", userId, friendId);
+    }
 
-        Set<Long> userFriends = friends.get(userId);
-        Set<Long> friendFriends = friends.get(friendId);
+    /**
+     * Добавляет пачку дружб. Существование всех пользователей проверяется одним запросом к хранилищу,
+     * затем прошедшие проверку дружбы применяются одной операцией. Пока пачка применяется, её пользователей
+     * нельзя удалить.
+     */
+    public List<BatchResult> addFriends(List<Friendship> friendships) {
+        log.debug("Получен запрос на добавление {} дружб пачкой", friendships.size());
+
+        if (friendships.size() > MAX_BATCH_SIZE) {
+            log.warn("Слишком большая пачка дружб: {}", friendships.size());
+            throw new IllegalArgumentException("В пачке не может быть больше " + MAX_BATCH_SIZE + " элементов");
+        }
+
+        List<Long> userIds = friendships.stream()
+                .filter(Objects::nonNull)
+                .flatMap(friendship -> Stream.of(friendship.getUserId(), friendship.getFriendId()))
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        return userLocks.sharing(userIds, () -> applyFriendships(friendships, userIds));
+    }
 
-        if (userFriends.contains(friendId)) {
-            log.warn("Пользователь {} уже в друзьях у пользователя {}", friendId, userId);
-            throw new IllegalArgumentException("Пользователь уже в друзьях");
+    private List<BatchResult> applyFriendships(List<Friendship> friendships, List<Long> userIds) {
+        Set<Long> users = userStorage.getByIds(userIds).stream()
+                .map(User::getId)
+                .collect(Collectors.toSet());
+
+        BatchResult[] results = new BatchResult[friendships.size()];
+        List<Friendship> valid = new ArrayList<>(friendships.size());
+        List<Integer> validIndexes = new ArrayList<>(friendships.size());
+        for (int i = 0; i < friendships.size(); i++) {
+            Friendship friendship = friendships.get(i);
+            if (friendship == null || friendship.getUserId() == null || friendship.getFriendId() == null) {
+                results[i] = BatchResult.rejected(i, "Id пользователя и друга должны быть указаны");
+            } else if (friendship.getUserId().equals(friendship.getFriendId())) {
+                results[i] = BatchResult.rejected(i, "Нельзя добавить самого себя в друзья");
+            } else if (!users.contains(friendship.getUserId())) {
+                results[i] = BatchResult.rejected(i, "Пользователь с id = " + friendship.getUserId() + " не найден");
+            } else if (!users.contains(friendship.getFriendId())) {
+                results[i] = BatchResult.rejected(i, "Пользователь с id = " + friendship.getFriendId() + " не найден");
+            } else {
+                valid.add(friendship);
+                validIndexes.add(i);
+            }
         }
 
-        userFriends.add(friendId);
-        friendFriends.add(userId);
+        boolean[] added = friendshipStorage.addFriends(valid);
+        List<Friendship> appliedFriendships = new ArrayList<>();
+        for (int j = 0; j < added.length; j++) {
+            int index = validIndexes.get(j);
+            results[index] = added[j] ? BatchResult.applied(index) : BatchResult.unchanged(index);
+            if (added[j]) {
+                appliedFriendships.add(valid.get(j));
+            }
+        }
+        int applied = appliedFriendships.size();
+        if (applied > 0) {
+            friendRecommendations.friendshipsChanged(appliedFriendships);
+        }
 
-        log.info("Пользователи {} и {} теперь друзья", userId, friendId);
+        friendshipsAdded.increment(applied);
+        log.info("Из пачки добавлено дружб: {}, уже было: {}, отклонено: {}", applied, valid.size() - applied,
+                friendships.size() - valid.size());
+        return List.of(results);
     }
 
     public void removeFriend(Long userId, Long friendId) {
-        log.info("Получен запрос на удаление из друзей: пользователь {} удаляет пользователя {}", userId, friendId);
+        log.debug("Получен запрос на удаление из друзей: пользователь {} удаляет пользователя {}", userId, friendId);
 
         User user = getUserOrThrow(userId);
         User friend = getUserOrThrow(friendId);
 
-        if (!friends.containsKey(userId) || !friends.get(userId).contains(friendId)) {
+        if (!friendshipStorage.removeFriend(userId, friendId)) {
             log.warn("Пользователь {} не в друзьях у пользователя {}", friendId, userId);
             return;
         }
 
-        friends.get(userId).remove(friendId);
-        friends.get(friendId).remove(userId);
-
+        friendRecommendations.friendshipChanged(userId, friendId);
+        friendshipsRemoved.increment();
         log.info("Пользователи {} и {} больше не друзья", userId, friendId);
     }
 
     public List<User> getFriends(Long userId) {
-        log.info("Получен запрос на получение друзей пользователя {}", userId);
+        log.debug("Получен запрос на получение друзей пользователя {}", userId);
 
         getUserOrThrow(userId);
 
-        Set<Long> friendIds = friends.getOrDefault(userId, Collections.emptySet());
-        return friendIds.stream()
-                .map(this::getUserOrThrow)
-                .collect(Collectors.toList());
+        return userStorage.getByIds(friendshipStorage.getFriendIds(userId));
     }
 
     public List<User> getCommonFriends(Long userId1, Long userId2) {
-        log.info("Получен запрос на получение общих друзей пользователей {} и {}", userId1, userId2);
+        log.debug("Получен запрос на получение общих друзей пользователей {} и {}", userId1, userId2);
 
         getUserOrThrow(userId1);
         getUserOrThrow(userId2);
 
-        Set<Long> friends1 = friends.getOrDefault(userId1, Collections.emptySet());
-        Set<Long> friends2 = friends.getOrDefault(userId2, Collections.emptySet());
+        return userStorage.getByIds(friendshipStorage.getCommonFriendIds(userId1, userId2));
+    }
+
+    /**
+     * Друзья друзей, ещё не ставшие друзьями, по убыванию числа общих друзей; при равенстве — по id.
+     */
+    public List<User> getRecommendations(Long userId, int count) {
+        log.debug("Получен запрос на {} рекомендаций друзей для пользователя {}", count, userId);
 
-        Set<Long> commonFriendIds = new HashSet<>(friends1);
-        commonFriendIds.retainAll(friends2);
+        if (count < 1 || count > FriendRecommendations.MAX_RECOMMENDATIONS) {
+            log.warn("Недопустимое количество рекомендаций: {}", count);
+            throw new IllegalArgumentException("Количество рекомендаций должно быть от 1 до "
+                    + FriendRecommendations.MAX_RECOMMENDATIONS);
+        }
+        getUserOrThrow(userId);
 
-        return commonFriendIds.stream()
-                .map(this::getUserOrThrow)
-                .collect(Collectors.toList());
+        return userStorage.getByIds(friendRecommendations.recommend(userId, count));
+    }
+
+    private void fillName(User user) {
+        if (user.getName() == null || user.getName().isBlank()) {
+            user.setName(user.getLogin());
+            log.debug("Имя не указано, установлено равным логину: {}", user.getLogin());
+        }
     }
 
     private User getUserOrThrow(Long userId) {
@@ -149,10 +324,5 @@ public class UserService {
             log.warn("Id пользователя не указан");
             throw new IllegalArgumentException("Id должен быть указан");
         }
-
-        if (!userStorage.exists(user.getId())) {
-            log.warn("Пользователь с id = {} не найден", user.getId());
-            throw new NotFoundException("Пользователь с id = " + user.getId() + " не найден");
-        }
     }
 }
\ No newline at end of file
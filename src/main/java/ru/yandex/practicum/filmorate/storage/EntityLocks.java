@@ -0,0 +1,56 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Блокировки изменений по id сущности, разложенные по полосам: проверка версии и запись одной сущности
+ * не перемежаются с другими изменениями той же сущности, а разные сущности меняются параллельно.
+ * Используется ReentrantLock, а не монитор: на виртуальном потоке ожидание монитора держит поток-носитель.
+ */
+public final class EntityLocks {
+    private static final int STRIPES = 64;
+
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+    public EntityLocks() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public ReentrantLock of(long id) {
+        return stripes[stripe(id)];
+    }
+
+    /**
+     * Выполняет действие под блокировками всех сущностей. Полосы берутся по возрастанию номера,
+     * поэтому две пачки не ждут друг друга по кругу.
+     */
+    public <T> T withAll(Collection<Long> ids, Supplier<T> action) {
+        int[] held = ids.stream()
+                .filter(Objects::nonNull)
+                .mapToInt(EntityLocks::stripe)
+                .distinct()
+                .sorted()
+                .toArray();
+        int locked = 0;
+        try {
+            for (int stripe : held) {
+                stripes[stripe].lock();
+                locked++;
+            }
+            return action.get();
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                stripes[held[i]].unlock();
+            }
+        }
+    }
+
+    private static int stripe(long id) {
+        return Long.hashCode(id) & (STRIPES - 1);
+    }
+}
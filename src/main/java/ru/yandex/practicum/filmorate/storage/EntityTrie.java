@@ -0,0 +1,318 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Неизменяемый снимок сущностей, упорядоченных по id: префиксное дерево по 5 бит id на уровень.
+ * Изменение копирует только путь от корня до листа и возвращает новый снимок, старый остаётся прежним,
+ * поэтому снимок можно отдавать читателям как есть — без блокировок и копирования.
+ * Как список перебирается по возрастанию id; {@link #get(int)} стоит O(log n), перебор — O(n).
+ */
+public final class EntityTrie<T> extends AbstractList<T> {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+    private static final EntityTrie<?> EMPTY = new EntityTrie<>(null, 0);
+
+    private final Node root;
+    // Сдвиг id для выбора ячейки корня; на листовом уровне сдвиг равен нулю.
+    private final int shift;
+
+    private EntityTrie(Node root, int shift) {
+        this.root = root;
+        this.shift = shift;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> EntityTrie<T> empty() {
+        return (EntityTrie<T>) EMPTY;
+    }
+
+    public T byId(long id) {
+        if (root == null || id < 0 || !fits(id, shift)) {
+            return null;
+        }
+        Node node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Node) node.slots[slot(id, level)];
+            if (node == null) {
+                return null;
+            }
+        }
+        return cast(node.slots[slot(id, 0)]);
+    }
+
+    public boolean containsId(long id) {
+        return byId(id) != null;
+    }
+
+    public EntityTrie<T> with(long id, T value) {
+        return withAll(List.of(value), ignored -> id);
+    }
+
+    /**
+     * Снимок с добавленными или заменёнными сущностями. Узлы, созданные в рамках одного вызова,
+     * меняются на месте, поэтому пачка копирует каждый узел не больше одного раза.
+     */
+    public EntityTrie<T> withAll(List<? extends T> values, ToLongFunction<? super T> idGetter) {
+        Object edit = new Object();
+        Node newRoot = root;
+        int newShift = shift;
+        for (T value : values) {
+            long id = idGetter.applyAsLong(value);
+            if (id < 0) {
+                throw new IllegalArgumentException("Id не может быть отрицательным: " + id);
+            }
+            if (newRoot == null) {
+                newShift = 0;
+                while (!fits(id, newShift)) {
+                    newShift += BITS;
+                }
+            }
+            while (!fits(id, newShift)) {
+                Node grown = new Node(edit);
+                grown.slots[0] = newRoot;
+                grown.size = newRoot.size;
+                newRoot = grown;
+                newShift += BITS;
+            }
+            newRoot = put(newRoot, newShift, id, value, edit);
+        }
+        return newRoot == root ? this : new EntityTrie<>(newRoot, newShift);
+    }
+
+    public EntityTrie<T> without(long id) {
+        if (!containsId(id)) {
+            return this;
+        }
+        return new EntityTrie<>(remove(root, shift, id), shift);
+    }
+
+    /**
+     * До {@code limit} сущностей с id больше {@code afterId} по возрастанию id.
+     */
+    public List<T> page(long afterId, int limit) {
+        List<T> result = new ArrayList<>(Math.min(limit, 1024));
+        if (afterId == Long.MAX_VALUE) {
+            return result;
+        }
+        Iterator<T> cursor = new Cursor(Math.max(afterId + 1, 0));
+        while (result.size() < limit && cursor.hasNext()) {
+            result.add(cursor.next());
+        }
+        return result;
+    }
+
+    @Override
+    public int size() {
+        return root == null ? 0 : root.size;
+    }
+
+    @Override
+    public T get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Индекс " + index + " вне снимка размера " + size());
+        }
+        Node node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            for (Object slot : node.slots) {
+                if (slot != null) {
+                    Node child = (Node) slot;
+                    if (index < child.size) {
+                        node = child;
+                        break;
+                    }
+                    index -= child.size;
+                }
+            }
+        }
+        for (Object slot : node.slots) {
+            if (slot != null && index-- == 0) {
+                return cast(slot);
+            }
+        }
+        throw new IllegalStateException("Размеры узлов снимка не сходятся");
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Cursor(0);
+    }
+
+    /**
+     * Снимок как список, элементы которого проходят через {@code mapper} при каждом чтении:
+     * создаётся за O(1), дерево не копируется.
+     */
+    public <R> List<R> view(Function<? super T, ? extends R> mapper) {
+        return new AbstractList<>() {
+            @Override
+            public R get(int index) {
+                return mapper.apply(EntityTrie.this.get(index));
+            }
+
+            @Override
+            public int size() {
+                return EntityTrie.this.size();
+            }
+
+            @Override
+            public Iterator<R> iterator() {
+                Iterator<T> cursor = EntityTrie.this.iterator();
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return cursor.hasNext();
+                    }
+
+                    @Override
+                    public R next() {
+                        return mapper.apply(cursor.next());
+                    }
+                };
+            }
+        };
+    }
+
+    private Node put(Node node, int level, long id, Object value, Object edit) {
+        Node copy = node == null ? new Node(edit) : node.editable(edit);
+        int slot = slot(id, level);
+        if (level == 0) {
+            if (copy.slots[slot] == null) {
+                copy.size++;
+            }
+            copy.slots[slot] = value;
+            return copy;
+        }
+        Node child = (Node) copy.slots[slot];
+        int childSize = child == null ? 0 : child.size;
+        Node newChild = put(child, level - BITS, id, value, edit);
+        copy.slots[slot] = newChild;
+        copy.size += newChild.size - childSize;
+        return copy;
+    }
+
+    // Удаление существующего id; опустевшие узлы выбрасываются.
+    private static Node remove(Node node, int level, long id) {
+        if (node.size == 1) {
+            return null;
+        }
+        Node copy = node.editable(null);
+        int slot = slot(id, level);
+        copy.slots[slot] = level == 0 ? null : remove((Node) node.slots[slot], level - BITS, id);
+        copy.size--;
+        return copy;
+    }
+
+    private static boolean fits(long id, int shift) {
+        return shift + BITS >= Long.SIZE - 1 || id >>> (shift + BITS) == 0;
+    }
+
+    private static int slot(long id, int level) {
+        return (int) (id >>> level) & MASK;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(Object value) {
+        return (T) value;
+    }
+
+    private static final class Node {
+        private final Object[] slots;
+        // Узел с меткой текущей пачки ещё не опубликован и может меняться на месте.
+        private final Object edit;
+        private int size;
+
+        private Node(Object edit) {
+            this.slots = new Object[WIDTH];
+            this.edit = edit;
+        }
+
+        private Node(Node source, Object edit) {
+            this.slots = source.slots.clone();
+            this.edit = edit;
+            this.size = source.size;
+        }
+
+        private Node editable(Object edit) {
+            return edit != null && this.edit == edit ? this : new Node(this, edit);
+        }
+    }
+
+    /**
+     * Обход по возрастанию id, начиная с {@code fromId}: путь от корня и позиция на каждом уровне.
+     */
+    private final class Cursor implements Iterator<T> {
+        private final Node[] path;
+        private final int[] positions;
+        private int level;
+        private T next;
+
+        private Cursor(long fromId) {
+            int depth = shift / BITS + 1;
+            path = new Node[depth];
+            positions = new int[depth];
+            if (root == null || !fits(fromId, shift)) {
+                return;
+            }
+            path[0] = root;
+            for (level = 0; ; level++) {
+                int slot = slot(fromId, shift - level * BITS);
+                Object child = path[level].slots[slot];
+                if (level == depth - 1 || child == null) {
+                    positions[level] = level == depth - 1 ? slot : slot + 1;
+                    break;
+                }
+                positions[level] = slot;
+                path[level + 1] = (Node) child;
+            }
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public T next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            T result = next;
+            advance();
+            return result;
+        }
+
+        private void advance() {
+            int leaf = path.length - 1;
+            while (level >= 0) {
+                Object[] slots = path[level].slots;
+                int position = positions[level];
+                while (position < WIDTH && slots[position] == null) {
+                    position++;
+                }
+                if (position == WIDTH) {
+                    level--;
+                    if (level >= 0) {
+                        positions[level]++;
+                    }
+                } else if (level == leaf) {
+                    positions[level] = position + 1;
+                    next = cast(slots[position]);
+                    return;
+                } else {
+                    positions[level] = position;
+                    path[level + 1] = (Node) slots[position];
+                    positions[++level] = 0;
+                }
+            }
+            next = null;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmQuery;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Вторичные индексы фильмов по дате релиза, продолжительности и названию.
+ * Каждый индекс — упорядоченное множество пар (значение, id), так что диапазон дат или продолжительностей
+ * и начало названия читаются как подмножество за O(log n + совпадения).
+ * Запрос берёт кандидатов из самого узкого индекса, а остальные условия проверяет по сохранённым значениям,
+ * поэтому не зависит от размера каталога. Если узкого условия нет, фильмы обходятся по возрастанию id
+ * до {@code limit} совпадений. Фильм без значения поля в индекс этого поля не попадает.
+ */
+public class FilmSearchIndex {
+    private final NavigableMap<Long, Values> values = new TreeMap<>();
+    private final NavigableSet<Entry<LocalDate>> byReleaseDate = new TreeSet<>();
+    private final NavigableSet<Entry<Integer>> byDuration = new TreeSet<>();
+    private final NavigableSet<Entry<String>> byName = new TreeSet<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock readLock = lock.readLock();
+    private final Lock writeLock = lock.writeLock();
+
+    /**
+     * Добавляет фильм или заменяет его прежние значения.
+     */
+    public void put(Film film) {
+        Values updated = new Values(film.getReleaseDate(), film.getDuration(),
+                film.getName() == null ? null : FilmQuery.normalizeName(film.getName()));
+        writeLock.lock();
+        try {
+            Values old = values.put(film.getId(), updated);
+            if (old != null) {
+                unindex(film.getId(), old);
+            }
+            index(film.getId(), updated);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void remove(Long filmId) {
+        writeLock.lock();
+        try {
+            Values old = values.remove(filmId);
+            if (old != null) {
+                unindex(filmId, old);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Id фильмов, подходящих под все условия, по возрастанию: не больше {@code limit} id больше {@code afterId}.
+     */
+    public List<Long> search(FilmQuery query, long afterId, int limit) {
+        String prefix = query.getNamePrefix() == null ? null : FilmQuery.normalizeName(query.getNamePrefix());
+        readLock.lock();
+        try {
+            NavigableSet<? extends Entry<?>> candidates = narrowest(query, scanBudget(limit));
+            return candidates == null
+                    ? scanById(query, prefix, afterId, limit)
+                    : filterCandidates(candidates, query, prefix, afterId, limit);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Сколько кандидатов из индекса ещё дешевле обхода по id. Если кандидатов больше √(limit · n),
+     * совпадений, скорее всего, столько, что обход по возрастанию id наберёт {@code limit} раньше,
+     * чем закончится сортировка кандидатов.
+     */
+    private int scanBudget(int limit) {
+        return (int) Math.max(limit, Math.sqrt((double) limit * values.size()));
+    }
+
+    private List<Long> filterCandidates(NavigableSet<? extends Entry<?>> candidates, FilmQuery query, String prefix,
+                                        long afterId, int limit) {
+        long[] ids = new long[16];
+        int size = 0;
+        for (Entry<?> entry : candidates) {
+            if (entry.id > afterId && entry.values.matches(query, prefix)) {
+                if (size == ids.length) {
+                    ids = Arrays.copyOf(ids, size * 2);
+                }
+                ids[size++] = entry.id;
+            }
+        }
+        Arrays.sort(ids, 0, size);
+        List<Long> result = new ArrayList<>(Math.min(size, limit));
+        for (int i = 0; i < size && result.size() < limit; i++) {
+            result.add(ids[i]);
+        }
+        return result;
+    }
+
+    private List<Long> scanById(FilmQuery query, String prefix, long afterId, int limit) {
+        List<Long> result = new ArrayList<>(limit);
+        for (Map.Entry<Long, Values> film : values.tailMap(afterId, false).entrySet()) {
+            if (result.size() == limit) {
+                break;
+            }
+            if (film.getValue().matches(query, prefix)) {
+                result.add(film.getKey());
+            }
+        }
+        return result;
+    }
+
+    // Размер диапазона считается обходом, поэтому каждый следующий индекс обходится не дальше лучшего.
+    // Null, если даже самый узкий диапазон не меньше бюджета.
+    private NavigableSet<? extends Entry<?>> narrowest(FilmQuery query, int budget) {
+        List<NavigableSet<? extends Entry<?>>> ranges = new ArrayList<>(3);
+        if (query.getNamePrefix() != null && !query.getNamePrefix().isEmpty()) {
+            String prefix = FilmQuery.normalizeName(query.getNamePrefix());
+            ranges.add(byName.subSet(Entry.first(prefix), true, Entry.first(prefix + Character.MAX_VALUE), false));
+        }
+        if (query.getReleasedFrom() != null || query.getReleasedTo() != null) {
+            ranges.add(range(byReleaseDate, query.getReleasedFrom(), query.getReleasedTo()));
+        }
+        if (query.getMinDuration() != null || query.getMaxDuration() != null) {
+            ranges.add(range(byDuration, query.getMinDuration(), query.getMaxDuration()));
+        }
+
+        NavigableSet<? extends Entry<?>> best = null;
+        int bestSize = budget;
+        for (NavigableSet<? extends Entry<?>> range : ranges) {
+            int size = 0;
+            for (Entry<?> ignored : range) {
+                if (++size >= bestSize) {
+                    break;
+                }
+            }
+            if (size < bestSize) {
+                best = range;
+                bestSize = size;
+            }
+        }
+        return best;
+    }
+
+    private static <K extends Comparable<? super K>> NavigableSet<Entry<K>> range(NavigableSet<Entry<K>> index,
+                                                                                   K from, K to) {
+        if (from == null) {
+            return index.headSet(Entry.last(to), true);
+        }
+        if (to == null) {
+            return index.tailSet(Entry.first(from), true);
+        }
+        if (from.compareTo(to) > 0) {
+            return new TreeSet<>();
+        }
+        return index.subSet(Entry.first(from), true, Entry.last(to), true);
+    }
+
+    private void index(long filmId, Values film) {
+        if (film.releaseDate != null) {
+            byReleaseDate.add(new Entry<>(film.releaseDate, filmId, film));
+        }
+        if (film.duration != null) {
+            byDuration.add(new Entry<>(film.duration, filmId, film));
+        }
+        if (film.name != null) {
+            byName.add(new Entry<>(film.name, filmId, film));
+        }
+    }
+
+    private void unindex(long filmId, Values film) {
+        if (film.releaseDate != null) {
+            byReleaseDate.remove(new Entry<>(film.releaseDate, filmId, film));
+        }
+        if (film.duration != null) {
+            byDuration.remove(new Entry<>(film.duration, filmId, film));
+        }
+        if (film.name != null) {
+            byName.remove(new Entry<>(film.name, filmId, film));
+        }
+    }
+
+    private record Values(LocalDate releaseDate, Integer duration, String name) {
+        boolean matches(FilmQuery query, String prefix) {
+            return FilmQuery.inRange(releaseDate, query.getReleasedFrom(), query.getReleasedTo())
+                    && FilmQuery.inRange(duration, query.getMinDuration(), query.getMaxDuration())
+                    && (prefix == null || name != null && name.startsWith(prefix));
+        }
+    }
+
+    // Порядок — по значению и id; значения фильма лежат рядом, чтобы проверять условия без поиска по id.
+    private record Entry<K extends Comparable<? super K>>(K key, long id, Values values)
+            implements Comparable<Entry<K>> {
+        static <K extends Comparable<? super K>> Entry<K> first(K key) {
+            return new Entry<>(key, Long.MIN_VALUE, null);
+        }
+
+        static <K extends Comparable<? super K>> Entry<K> last(K key) {
+            return new Entry<>(key, Long.MAX_VALUE, null);
+        }
+
+        @Override
+        public int compareTo(Entry<K> other) {
+            int byKey = key.compareTo(other.key);
+            return byKey != 0 ? byKey : Long.compare(id, other.id);
+        }
+    }
+}
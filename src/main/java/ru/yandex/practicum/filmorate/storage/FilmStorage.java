@@ -1,6 +1,8 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import ru.yandex.practicum.filmorate.exception.VersionConflictException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmQuery;
 
 import java.util.List;
 
@@ -9,11 +11,41 @@ public interface FilmStorage {
 
     Film get(Long id);
 
+    /**
+     * Сущности с указанными id в том же порядке; отсутствующие id пропускаются.
+     */
+    List<Film> getByIds(List<Long> ids);
+
+    /**
+     * Страница по возрастанию id: не больше {@code limit} записей с id больше {@code afterId}.
+     */
+    List<Film> getPage(long afterId, int limit);
+
+    /**
+     * Фильмы, подходящие под все условия запроса, страницей по возрастанию id, как {@link #getPage}.
+     */
+    List<Film> search(FilmQuery query, long afterId, int limit);
+
+    /**
+     * Проставляет фильму id и начальную версию {@link Versions#INITIAL}.
+     */
     Film create(Film film);
 
+    /**
+     * Создаёт пачку фильмов одной операцией и проставляет им id и начальную версию.
+     */
+    List<Film> createAll(List<Film> films);
+
+    /**
+     * Заменяет фильм, если он есть, и проставляет ему следующую версию; возвращает null, если фильма нет.
+     * Если у фильма указана версия, замена проходит, только когда она равна текущей,
+     * иначе бросается {@link VersionConflictException}. Проверка и замена атомарны.
+     */
     Film update(Film film);
 
     boolean delete(Long id);
 
     boolean exists(Long id);
+
+    int count();
 }
@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.model.Friendship;
+
+import java.util.List;
+import java.util.Map;
+
+public interface FriendshipStorage {
+    boolean addFriend(Long userId, Long friendId);
+
+    /**
+     * Добавляет пачку дружб одной операцией: другие запросы не увидят её применённой наполовину.
+     * Для каждого элемента возвращает, была ли дружба добавлена; уже существующая даёт false.
+     */
+    boolean[] addFriends(List<Friendship> friendships);
+
+    boolean removeFriend(Long userId, Long friendId);
+
+    /**
+     * Удаляет все дружбы пользователя и возвращает id бывших друзей.
+     */
+    long[] removeFriends(Long userId);
+
+    List<Long> getFriendIds(Long userId);
+
+    /**
+     * Id друзей каждого из пользователей одним обращением к хранилищу, по возрастанию.
+     * Пользователи без друзей в ответ не попадают.
+     */
+    Map<Long, long[]> getFriendIdsByUser(List<Long> userIds);
+
+    List<Long> getCommonFriendIds(Long userId, Long otherId);
+}
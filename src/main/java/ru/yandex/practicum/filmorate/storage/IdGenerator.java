@@ -0,0 +1,11 @@
+package ru.yandex.practicum.filmorate.storage;
+
+public interface IdGenerator {
+    long nextId();
+
+    /**
+     * Гарантирует, что следующий выданный id будет больше {@code usedId}.
+     * Нужен при восстановлении данных из постоянного хранилища.
+     */
+    void advanceTo(long usedId);
+}
@@ -1,58 +1,162 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import io.micrometer.core.annotation.Timed;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmQuery;
+import ru.yandex.practicum.filmorate.model.FilmSnapshot;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Фильмы в неизменяемом снимке {@link EntityTrie}: запись копирует путь в дереве и подменяет снимок через CAS,
+ * чтение берёт текущий снимок без блокировок. Обновление и удаление фильма идут под его блокировкой
+ * из {@link EntityLocks}, чтобы сверка версии и запись были атомарны. Хранятся неизменяемые {@link FilmSnapshot}:
+ * переданный при записи объект остаётся за вызывающим, а каждый читатель получает свою копию фильма.
+ */
 @Component
+@Timed(value = "filmorate.storage", histogram = true)
+@ConditionalOnProperty(name = "filmorate.storage.type", havingValue = "memory", matchIfMissing = true)
 public class InMemoryFilmStorage implements FilmStorage {
-    private final Map<Long, Film> films = new HashMap<>();
+    private final AtomicReference<EntityTrie<FilmSnapshot>> films = new AtomicReference<>(EntityTrie.empty());
+    private final FilmSearchIndex index = new FilmSearchIndex();
+    private final EntityLocks locks = new EntityLocks();
+    private final IdGenerator idGenerator;
 
+    public InMemoryFilmStorage() {
+        this(new SequenceIdGenerator());
+    }
+
+    public InMemoryFilmStorage(IdGenerator idGenerator) {
+        this.idGenerator = idGenerator;
+    }
+
+    // Снимок неизменяем, поэтому отдаётся без копирования; фильм копируется при чтении элемента.
     @Override
     public List<Film> getAll() {
-        return new ArrayList<>(films.values());
+        return films.get().view(FilmSnapshot::toFilm);
     }
 
     @Override
     public Film get(Long id) {
-        return films.get(id);
+        FilmSnapshot film = films.get().byId(id);
+        return film == null ? null : film.toFilm();
+    }
+
+    @Override
+    public List<Film> getByIds(List<Long> ids) {
+        EntityTrie<FilmSnapshot> current = films.get();
+        List<Film> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            FilmSnapshot film = current.byId(id);
+            if (film != null) {
+                result.add(film.toFilm());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Film> getPage(long afterId, int limit) {
+        List<FilmSnapshot> page = films.get().page(afterId, limit);
+        List<Film> result = new ArrayList<>(page.size());
+        page.forEach(film -> result.add(film.toFilm()));
+        return result;
+    }
+
+    // Индекс обновляется вслед за картой, поэтому найденные фильмы перепроверяются по запросу.
+    // Отсеянные места добираются из индекса дальше последнего найденного id, пока страница не заполнится
+    // или индекс не кончится.
+    @Override
+    public List<Film> search(FilmQuery query, long afterId, int limit) {
+        List<Film> result = new ArrayList<>(Math.min(limit, 1024));
+        long after = afterId;
+        while (result.size() < limit) {
+            int wanted = limit - result.size();
+            List<Long> ids = index.search(query, after, wanted);
+            for (Film film : getByIds(ids)) {
+                if (query.matches(film)) {
+                    result.add(film);
+                }
+            }
+            if (ids.size() < wanted) {
+                break;
+            }
+            after = ids.get(ids.size() - 1);
+        }
+        return result;
     }
 
     @Override
     public Film create(Film film) {
-        long newId = getNextId();
-        film.setId(newId);
-        films.put(newId, film);
+        film.setId(idGenerator.nextId());
+        film.setVersion(Versions.INITIAL);
+        FilmSnapshot stored = FilmSnapshot.of(film);
+        films.updateAndGet(current -> current.with(stored.id(), stored));
+        index.put(film);
         return film;
     }
 
+    @Override
+    public List<Film> createAll(List<Film> batch) {
+        List<FilmSnapshot> stored = new ArrayList<>(batch.size());
+        for (Film film : batch) {
+            film.setId(idGenerator.nextId());
+            film.setVersion(Versions.INITIAL);
+            stored.add(FilmSnapshot.of(film));
+        }
+        films.updateAndGet(current -> current.withAll(stored, FilmSnapshot::id));
+        batch.forEach(index::put);
+        return batch;
+    }
+
+    // Версия сверяется под блокировкой этого фильма, снимок подменяется через CAS.
     @Override
     public Film update(Film film) {
-        films.put(film.getId(), film);
-        return film;
+        ReentrantLock lock = locks.of(film.getId());
+        lock.lock();
+        try {
+            FilmSnapshot existing = films.get().byId(film.getId());
+            if (existing == null) {
+                return null;
+            }
+            film.setVersion(Versions.next("Фильм", film.getId(), film.getVersion(), existing.version()));
+            FilmSnapshot stored = FilmSnapshot.of(film);
+            films.updateAndGet(current -> current.with(stored.id(), stored));
+            index.put(film);
+            return film;
+        } finally {
+            lock.unlock();
+        }
     }
 
     @Override
     public boolean delete(Long id) {
-        return films.remove(id) != null;
+        ReentrantLock lock = locks.of(id);
+        lock.lock();
+        try {
+            if (!exists(id)) {
+                return false;
+            }
+            index.remove(id);
+            films.updateAndGet(current -> current.without(id));
+            return true;
+        } finally {
+            lock.unlock();
+        }
     }
 
     @Override
     public boolean exists(Long id) {
-        return films.containsKey(id);
+        return films.get().containsId(id);
     }
 
-    private long getNextId() {
-        long currentMaxId = films.keySet()
-                .stream()
-                .mapToLong(id -> id)
-                .max()
-                .orElse(0);
-        return ++currentMaxId;
+    @Override
+    public int count() {
+        return films.get().size();
     }
-
 }
@@ -0,0 +1,224 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.annotation.Timed;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Friendship;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+@Timed(value = "filmorate.storage", histogram = true)
+@ConditionalOnProperty(name = "filmorate.storage.type", havingValue = "memory", matchIfMissing = true)
+public class InMemoryFriendshipStorage implements FriendshipStorage, MemoryFootprint {
+    // Узел ConcurrentHashMap вместе с ключом Long.
+    private static final long BYTES_PER_ENTRY = 32 + 16;
+
+    private final Map<Long, SortedLongSet> friends = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean addFriend(Long userId, Long friendId) {
+        SortedLongSet userFriends = friendsOf(userId);
+        SortedLongSet friendFriends = friendsOf(friendId);
+        lockInOrder(userId, friendId, userFriends, friendFriends);
+        try {
+            if (!userFriends.add(friendId)) {
+                return false;
+            }
+            friendFriends.add(userId);
+            return true;
+        } finally {
+            userFriends.lock().unlock();
+            friendFriends.lock().unlock();
+        }
+    }
+
+    @Override
+    public boolean[] addFriends(List<Friendship> batch) {
+        TreeMap<Long, SortedLongSet> locked = new TreeMap<>();
+        for (Friendship friendship : batch) {
+            locked.computeIfAbsent(friendship.getUserId(), this::friendsOf);
+            locked.computeIfAbsent(friendship.getFriendId(), this::friendsOf);
+        }
+        locked.values().forEach(userFriends -> userFriends.lock().lock());
+        try {
+            boolean[] added = new boolean[batch.size()];
+            for (int i = 0; i < batch.size(); i++) {
+                Friendship friendship = batch.get(i);
+                added[i] = locked.get(friendship.getUserId()).add(friendship.getFriendId());
+                if (added[i]) {
+                    locked.get(friendship.getFriendId()).add(friendship.getUserId());
+                }
+            }
+            return added;
+        } finally {
+            locked.values().forEach(userFriends -> userFriends.lock().unlock());
+        }
+    }
+
+    @Override
+    public boolean removeFriend(Long userId, Long friendId) {
+        SortedLongSet userFriends = friends.get(userId);
+        SortedLongSet friendFriends = friends.get(friendId);
+        if (userFriends == null || friendFriends == null) {
+            return false;
+        }
+        lockInOrder(userId, friendId, userFriends, friendFriends);
+        try {
+            if (!userFriends.remove(friendId)) {
+                return false;
+            }
+            friendFriends.remove(userId);
+            return true;
+        } finally {
+            userFriends.lock().unlock();
+            friendFriends.lock().unlock();
+        }
+    }
+
+    @Override
+    public long[] removeFriends(Long userId) {
+        long[] userFriends = getFriendIdsByUser(List.of(userId)).get(userId);
+        if (userFriends == null) {
+            return new long[0];
+        }
+        int removed = 0;
+        for (long friendId : userFriends) {
+            if (removeFriend(userId, friendId)) {
+                userFriends[removed++] = friendId;
+            }
+        }
+        friends.computeIfPresent(userId, (id, set) -> set.isEmpty() ? null : set);
+        return Arrays.copyOf(userFriends, removed);
+    }
+
+    @Override
+    public List<Long> getFriendIds(Long userId) {
+        SortedLongSet userFriends = friends.get(userId);
+        if (userFriends == null) {
+            return Collections.emptyList();
+        }
+        userFriends.lock().lock();
+        try {
+            return toList(userFriends.toArray());
+        } finally {
+            userFriends.lock().unlock();
+        }
+    }
+
+    @Override
+    public Map<Long, long[]> getFriendIdsByUser(List<Long> userIds) {
+        Map<Long, long[]> result = new HashMap<>();
+        for (Long userId : userIds) {
+            SortedLongSet userFriends = friends.get(userId);
+            if (userFriends == null) {
+                continue;
+            }
+            userFriends.lock().lock();
+            try {
+                if (!userFriends.isEmpty()) {
+                    result.put(userId, userFriends.toArray());
+                }
+            } finally {
+                userFriends.lock().unlock();
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Long> getCommonFriendIds(Long userId, Long otherId) {
+        SortedLongSet userFriends = friends.get(userId);
+        SortedLongSet otherFriends = friends.get(otherId);
+        if (userFriends == null || otherFriends == null) {
+            return Collections.emptyList();
+        }
+        if (userFriends == otherFriends) {
+            userFriends.lock().lock();
+            try {
+                return toList(userFriends.toArray());
+            } finally {
+                userFriends.lock().unlock();
+            }
+        }
+        lockInOrder(userId, otherId, userFriends, otherFriends);
+        try {
+            return toList(userFriends.intersect(otherFriends));
+        } finally {
+            userFriends.lock().unlock();
+            otherFriends.lock().unlock();
+        }
+    }
+
+    @Override
+    public long estimateMemoryBytes() {
+        long bytes = 0;
+        for (SortedLongSet userFriends : friends.values()) {
+            userFriends.lock().lock();
+            try {
+                bytes += BYTES_PER_ENTRY + userFriends.estimateMemoryBytes();
+            } finally {
+                userFriends.lock().unlock();
+            }
+        }
+        return bytes;
+    }
+
+    public Map<Long, long[]> getAllFriends() {
+        Map<Long, long[]> result = new HashMap<>();
+        friends.forEach((userId, userFriends) -> {
+            userFriends.lock().lock();
+            try {
+                if (!userFriends.isEmpty()) {
+                    result.put(userId, userFriends.toArray());
+                }
+            } finally {
+                userFriends.lock().unlock();
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Восстанавливает список друзей одного пользователя; обратные связи восстанавливаются отдельно.
+     */
+    public void restoreFriends(Long userId, long[] friendIds) {
+        SortedLongSet userFriends = friendsOf(userId);
+        userFriends.lock().lock();
+        try {
+            for (long friendId : friendIds) {
+                userFriends.add(friendId);
+            }
+        } finally {
+            userFriends.lock().unlock();
+        }
+    }
+
+    private SortedLongSet friendsOf(Long userId) {
+        return friends.computeIfAbsent(userId, id -> new SortedLongSet());
+    }
+
+    // Блокировки всегда берутся в порядке возрастания id, чтобы встречные запросы не взаимоблокировались;
+    // пакетное добавление берёт их в том же порядке.
+    private static void lockInOrder(Long id1, Long id2, SortedLongSet set1, SortedLongSet set2) {
+        SortedLongSet first = id1 < id2 ? set1 : set2;
+        SortedLongSet second = id1 < id2 ? set2 : set1;
+        first.lock().lock();
+        second.lock().lock();
+    }
+
+    private static List<Long> toList(long[] ids) {
+        List<Long> result = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            result.add(id);
+        }
+        return result;
+    }
+}
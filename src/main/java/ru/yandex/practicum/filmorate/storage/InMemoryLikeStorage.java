@@ -0,0 +1,278 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.annotation.Timed;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Like;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+@Timed(value = "filmorate.storage", histogram = true)
+@ConditionalOnProperty(name = "filmorate.storage.type", havingValue = "memory", matchIfMissing = true)
+public class InMemoryLikeStorage implements LikeStorage, MemoryFootprint {
+    // Узел ConcurrentHashMap вместе с ключом Long.
+    private static final long BYTES_PER_ENTRY = 32 + 16;
+
+    private final Map<Long, SortedLongSet> likes = new ConcurrentHashMap<>();
+    // Обратный индекс: фильмы, лайкнутые пользователем. Меняется под блокировкой множества фильма,
+    // своя блокировка берётся только после неё.
+    private final Map<Long, SortedLongSet> likedFilms = new ConcurrentHashMap<>();
+    private final PopularityIndex popularityIndex = new PopularityIndex();
+
+    @Override
+    public boolean addLike(Long filmId, Long userId) {
+        SortedLongSet filmLikes = likes.computeIfAbsent(filmId, id -> new SortedLongSet());
+        filmLikes.lock().lock();
+        try {
+            if (!filmLikes.add(userId)) {
+                return false;
+            }
+            addLikedFilm(userId, filmId);
+            popularityIndex.increment(filmId);
+            return true;
+        } finally {
+            filmLikes.lock().unlock();
+        }
+    }
+
+    @Override
+    public boolean[] addLikes(List<Like> batch) {
+        // Блокировки берутся по возрастанию id фильма, поэтому встречные пачки не взаимоблокируются.
+        TreeMap<Long, SortedLongSet> locked = new TreeMap<>();
+        for (Like like : batch) {
+            locked.computeIfAbsent(like.getFilmId(), filmId -> likes.computeIfAbsent(filmId, id -> new SortedLongSet()));
+        }
+        locked.values().forEach(filmLikes -> filmLikes.lock().lock());
+        try {
+            boolean[] added = new boolean[batch.size()];
+            Map<Long, Integer> counts = new HashMap<>();
+            for (int i = 0; i < batch.size(); i++) {
+                Like like = batch.get(i);
+                SortedLongSet filmLikes = locked.get(like.getFilmId());
+                added[i] = filmLikes.add(like.getUserId());
+                if (added[i]) {
+                    addLikedFilm(like.getUserId(), like.getFilmId());
+                    counts.put(like.getFilmId(), filmLikes.size());
+                }
+            }
+            popularityIndex.setAll(counts);
+            return added;
+        } finally {
+            locked.values().forEach(filmLikes -> filmLikes.lock().unlock());
+        }
+    }
+
+    @Override
+    public boolean removeLike(Long filmId, Long userId) {
+        SortedLongSet filmLikes = likes.get(filmId);
+        if (filmLikes == null) {
+            return false;
+        }
+        filmLikes.lock().lock();
+        try {
+            if (!filmLikes.remove(userId)) {
+                return false;
+            }
+            removeLikedFilm(userId, filmId);
+            popularityIndex.decrement(filmId);
+            return true;
+        } finally {
+            filmLikes.lock().unlock();
+        }
+    }
+
+    @Override
+    public boolean hasLike(Long filmId, Long userId) {
+        SortedLongSet filmLikes = likes.get(filmId);
+        if (filmLikes == null) {
+            return false;
+        }
+        filmLikes.lock().lock();
+        try {
+            return filmLikes.contains(userId);
+        } finally {
+            filmLikes.lock().unlock();
+        }
+    }
+
+    @Override
+    public int getLikesCount(Long filmId) {
+        return popularityIndex.getLikesCount(filmId);
+    }
+
+    @Override
+    public List<Long> getPopularFilmIds(int count) {
+        return popularityIndex.getTop(count);
+    }
+
+    @Override
+    public List<Long> getLikedFilmIds(Long userId) {
+        long[] films = getLikedFilmIdsByUser(List.of(userId)).get(userId);
+        if (films == null) {
+            return List.of();
+        }
+        List<Long> result = new ArrayList<>(films.length);
+        for (long filmId : films) {
+            result.add(filmId);
+        }
+        return result;
+    }
+
+    // Каждый лайк снимается как обычно, под блокировкой своего фильма: блокировка множества фильмов
+    // пользователя берётся после неё, поэтому список его фильмов читается заранее.
+    @Override
+    public long[] removeLikesByUser(Long userId) {
+        long[] films = getLikedFilmIdsByUser(List.of(userId)).get(userId);
+        if (films == null) {
+            return new long[0];
+        }
+        int removed = 0;
+        for (long filmId : films) {
+            if (removeLike(filmId, userId)) {
+                films[removed++] = filmId;
+            }
+        }
+        likedFilms.computeIfPresent(userId, (id, set) -> set.isEmpty() ? null : set);
+        return Arrays.copyOf(films, removed);
+    }
+
+    @Override
+    public Map<Long, long[]> getLikerIdsByFilm(List<Long> filmIds) {
+        return toArrays(likes, filmIds);
+    }
+
+    @Override
+    public Map<Long, long[]> getLikedFilmIdsByUser(List<Long> userIds) {
+        return toArrays(likedFilms, userIds);
+    }
+
+    @Override
+    public List<Long> getMostActiveUserIds(int count) {
+        if (count <= 0) {
+            return List.of();
+        }
+        // В корне кучи — наименее активный из отобранных: больше id при равном числе лайков.
+        PriorityQueue<long[]> top = new PriorityQueue<>(Comparator.<long[]>comparingLong(entry -> entry[1])
+                .thenComparing(entry -> entry[0], Comparator.reverseOrder()));
+        likedFilms.forEach((userId, films) -> {
+            int size;
+            films.lock().lock();
+            try {
+                size = films.size();
+            } finally {
+                films.lock().unlock();
+            }
+            if (size == 0) {
+                return;
+            }
+            top.offer(new long[]{userId, size});
+            if (top.size() > count) {
+                top.poll();
+            }
+        });
+        Long[] result = new Long[top.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = top.poll()[0];
+        }
+        return List.of(result);
+    }
+
+    @Override
+    public long estimateMemoryBytes() {
+        return estimateMemoryBytes(likes) + estimateMemoryBytes(likedFilms) + popularityIndex.estimateMemoryBytes();
+    }
+
+    private static long estimateMemoryBytes(Map<Long, SortedLongSet> sets) {
+        long bytes = 0;
+        for (SortedLongSet set : sets.values()) {
+            set.lock().lock();
+            try {
+                bytes += BYTES_PER_ENTRY + set.estimateMemoryBytes();
+            } finally {
+                set.lock().unlock();
+            }
+        }
+        return bytes;
+    }
+
+    private static Map<Long, long[]> toArrays(Map<Long, SortedLongSet> sets, List<Long> ids) {
+        Map<Long, long[]> result = new HashMap<>();
+        for (Long id : ids) {
+            SortedLongSet set = sets.get(id);
+            if (set == null) {
+                continue;
+            }
+            set.lock().lock();
+            try {
+                if (!set.isEmpty()) {
+                    result.put(id, set.toArray());
+                }
+            } finally {
+                set.lock().unlock();
+            }
+        }
+        return result;
+    }
+
+    private void addLikedFilm(long userId, long filmId) {
+        SortedLongSet films = likedFilms.computeIfAbsent(userId, id -> new SortedLongSet());
+        films.lock().lock();
+        try {
+            films.add(filmId);
+        } finally {
+            films.lock().unlock();
+        }
+    }
+
+    private void removeLikedFilm(long userId, long filmId) {
+        SortedLongSet films = likedFilms.get(userId);
+        if (films == null) {
+            return;
+        }
+        films.lock().lock();
+        try {
+            films.remove(filmId);
+        } finally {
+            films.lock().unlock();
+        }
+    }
+
+    public Map<Long, long[]> getAllLikes() {
+        Map<Long, long[]> result = new HashMap<>();
+        likes.forEach((filmId, filmLikes) -> {
+            filmLikes.lock().lock();
+            try {
+                if (!filmLikes.isEmpty()) {
+                    result.put(filmId, filmLikes.toArray());
+                }
+            } finally {
+                filmLikes.lock().unlock();
+            }
+        });
+        return result;
+    }
+
+    public void restoreLikes(Long filmId, long[] userIds) {
+        SortedLongSet filmLikes = likes.computeIfAbsent(filmId, id -> new SortedLongSet());
+        filmLikes.lock().lock();
+        try {
+            for (long userId : userIds) {
+                if (filmLikes.add(userId)) {
+                    addLikedFilm(userId, filmId);
+                }
+            }
+            popularityIndex.set(filmId, filmLikes.size());
+        } finally {
+            filmLikes.lock().unlock();
+        }
+    }
+}
@@ -1,57 +1,147 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import io.micrometer.core.annotation.Timed;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserSnapshot;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Пользователи в неизменяемом снимке {@link EntityTrie}, как фильмы в {@link InMemoryFilmStorage}.
+ */
 @Component
+@Timed(value = "filmorate.storage", histogram = true)
+@ConditionalOnProperty(name = "filmorate.storage.type", havingValue = "memory", matchIfMissing = true)
 public class InMemoryUserStorage implements UserStorage {
-    private final Map<Long, User> users = new HashMap<>();
+    private final AtomicReference<EntityTrie<UserSnapshot>> users = new AtomicReference<>(EntityTrie.empty());
+    private final UserKeyIndex keys = new UserKeyIndex();
+    private final EntityLocks locks = new EntityLocks();
+    private final IdGenerator idGenerator;
+
+    public InMemoryUserStorage() {
+        this(new SequenceIdGenerator());
+    }
+
+    public InMemoryUserStorage(IdGenerator idGenerator) {
+        this.idGenerator = idGenerator;
+    }
 
     @Override
     public List<User> getAll() {
-        return new ArrayList<>(users.values());
+        return users.get().view(UserSnapshot::toUser);
     }
 
     @Override
     public User get(Long id) {
-        return users.get(id);
+        UserSnapshot user = users.get().byId(id);
+        return user == null ? null : user.toUser();
+    }
+
+    @Override
+    public List<User> getByIds(List<Long> ids) {
+        EntityTrie<UserSnapshot> current = users.get();
+        List<User> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            UserSnapshot user = current.byId(id);
+            if (user != null) {
+                result.add(user.toUser());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<User> getPage(long afterId, int limit) {
+        List<UserSnapshot> page = users.get().page(afterId, limit);
+        List<User> result = new ArrayList<>(page.size());
+        page.forEach(user -> result.add(user.toUser()));
+        return result;
+    }
+
+    @Override
+    public User getByEmail(String email) {
+        Long id = keys.findByEmail(email);
+        return id == null ? null : get(id);
+    }
+
+    @Override
+    public User getByLogin(String login) {
+        Long id = keys.findByLogin(login);
+        return id == null ? null : get(id);
     }
 
     @Override
     public User create(User user) {
-        long newId = getNextId();
-        user.setId(newId);
-        users.put(newId, user);
+        user.setId(idGenerator.nextId());
+        user.setVersion(Versions.INITIAL);
+        UserSnapshot stored = UserSnapshot.of(user);
+        keys.put(user);
+        users.updateAndGet(current -> current.with(stored.id(), stored));
         return user;
     }
 
+    @Override
+    public List<User> createAll(List<User> batch) {
+        List<UserSnapshot> stored = new ArrayList<>(batch.size());
+        for (User user : batch) {
+            user.setId(idGenerator.nextId());
+            user.setVersion(Versions.INITIAL);
+            stored.add(UserSnapshot.of(user));
+        }
+        keys.putAll(batch);
+        users.updateAndGet(current -> current.withAll(stored, UserSnapshot::id));
+        return batch;
+    }
+
+    // Под блокировкой пользователя сверяются версия и ключи, поэтому при конфликте не меняется ни то, ни другое.
     @Override
     public User update(User user) {
-        users.put(user.getId(), user);
-        return user;
+        ReentrantLock lock = locks.of(user.getId());
+        lock.lock();
+        try {
+            UserSnapshot existing = users.get().byId(user.getId());
+            if (existing == null) {
+                return null;
+            }
+            long version = Versions.next("Пользователь", user.getId(), user.getVersion(), existing.version());
+            keys.put(user);
+            user.setVersion(version);
+            UserSnapshot stored = UserSnapshot.of(user);
+            users.updateAndGet(current -> current.with(stored.id(), stored));
+            return user;
+        } finally {
+            lock.unlock();
+        }
     }
 
     @Override
     public boolean delete(Long id) {
-        return users.remove(id) != null;
+        ReentrantLock lock = locks.of(id);
+        lock.lock();
+        try {
+            if (!exists(id)) {
+                return false;
+            }
+            users.updateAndGet(current -> current.without(id));
+            keys.remove(id);
+            return true;
+        } finally {
+            lock.unlock();
+        }
     }
 
     @Override
     public boolean exists(Long id) {
-        return users.containsKey(id);
+        return users.get().containsId(id);
     }
 
-    private long getNextId() {
-        long currentMaxId = users.keySet()
-                .stream()
-                .mapToLong(id -> id)
-                .max()
-                .orElse(0);
-        return ++currentMaxId;
+    @Override
+    public int count() {
+        return users.get().size();
     }
 }
@@ -0,0 +1,54 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.model.Like;
+
+import java.util.List;
+import java.util.Map;
+
+public interface LikeStorage {
+    boolean addLike(Long filmId, Long userId);
+
+    /**
+     * Ставит пачку лайков одной операцией: другие запросы не увидят её применённой наполовину.
+     * Для каждого элемента возвращает, был ли лайк поставлен; уже стоявший лайк даёт false.
+     */
+    boolean[] addLikes(List<Like> likes);
+
+    boolean removeLike(Long filmId, Long userId);
+
+    boolean hasLike(Long filmId, Long userId);
+
+    int getLikesCount(Long filmId);
+
+    /**
+     * Id самых популярных фильмов: по убыванию числа лайков, при равенстве — по возрастанию id.
+     * Фильмы без лайков реализация возвращать не обязана.
+     */
+    List<Long> getPopularFilmIds(int count);
+
+    /**
+     * Id фильмов, лайкнутых пользователем, по возрастанию.
+     */
+    List<Long> getLikedFilmIds(Long userId);
+
+    /**
+     * Снимает все лайки пользователя и возвращает id фильмов, с которых они сняты.
+     * Обходит только фильмы этого пользователя, а не весь каталог.
+     */
+    long[] removeLikesByUser(Long userId);
+
+    /**
+     * Id пользователей, лайкнувших каждый из фильмов, по возрастанию. Фильмы без лайков в ответ не попадают.
+     */
+    Map<Long, long[]> getLikerIdsByFilm(List<Long> filmIds);
+
+    /**
+     * Id фильмов, лайкнутых каждым из пользователей, по возрастанию. Пользователи без лайков в ответ не попадают.
+     */
+    Map<Long, long[]> getLikedFilmIdsByUser(List<Long> userIds);
+
+    /**
+     * Id пользователей с наибольшим числом лайков, по его убыванию.
+     */
+    List<Long> getMostActiveUserIds(int count);
+}
@@ -0,0 +1,12 @@
+package ru.yandex.practicum.filmorate.storage;
+
+/**
+ * Хранилище, которое держит индексы в памяти приложения и может оценить их размер.
+ */
+public interface MemoryFootprint {
+    /**
+     * Приблизительный объём занятой памяти в байтах: считается по размерам массивов
+     * и типичным накладным расходам объектов 64-битной JVM со сжатыми ссылками.
+     */
+    long estimateMemoryBytes();
+}
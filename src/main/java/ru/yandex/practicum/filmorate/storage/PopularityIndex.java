@@ -0,0 +1,143 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Рейтинг фильмов по количеству лайков.
+ * Фильмы хранятся в корзинах по числу лайков, поэтому лайк и снятие лайка стоят O(log n),
+ * а первые N фильмов читаются за O(N). При равном числе лайков порядок — по возрастанию id.
+ * Фильмы без лайков в индекс не попадают.
+ * Чтение рейтинга идёт под общей блокировкой чтения и не ждёт других читателей.
+ */
+public class PopularityIndex {
+    // Узел HashMap с Long и Integer плюс узел TreeMap внутри корзины.
+    private static final long BYTES_PER_FILM = 48 + 16 + 16 + 40;
+
+    private final Map<Long, Integer> likesByFilm = new HashMap<>();
+    private final NavigableMap<Integer, NavigableSet<Long>> filmsByLikes = new TreeMap<>(Collections.reverseOrder());
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock readLock = lock.readLock();
+    private final Lock writeLock = lock.writeLock();
+
+    public void increment(Long filmId) {
+        writeLock.lock();
+        try {
+            int likes = likesByFilm.getOrDefault(filmId, 0);
+            move(filmId, likes, likes + 1);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void decrement(Long filmId) {
+        writeLock.lock();
+        try {
+            int likes = likesByFilm.getOrDefault(filmId, 0);
+            if (likes == 0) {
+                return;
+            }
+            move(filmId, likes, likes - 1);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void set(Long filmId, int likes) {
+        writeLock.lock();
+        try {
+            move(filmId, likesByFilm.getOrDefault(filmId, 0), likes);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Выставляет число лайков сразу нескольким фильмам; читатели видят либо все изменения, либо ни одного.
+     */
+    public void setAll(Map<Long, Integer> likes) {
+        writeLock.lock();
+        try {
+            likes.forEach((filmId, count) -> move(filmId, likesByFilm.getOrDefault(filmId, 0), count));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void remove(Long filmId) {
+        writeLock.lock();
+        try {
+            Integer likes = likesByFilm.remove(filmId);
+            if (likes != null) {
+                removeFromBucket(filmId, likes);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public int getLikesCount(Long filmId) {
+        readLock.lock();
+        try {
+            return likesByFilm.getOrDefault(filmId, 0);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public List<Long> getTop(int count) {
+        readLock.lock();
+        try {
+            List<Long> top = new ArrayList<>(Math.min(count, likesByFilm.size()));
+            for (NavigableSet<Long> bucket : filmsByLikes.values()) {
+                for (Long filmId : bucket) {
+                    if (top.size() == count) {
+                        return top;
+                    }
+                    top.add(filmId);
+                }
+            }
+            return top;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public long estimateMemoryBytes() {
+        readLock.lock();
+        try {
+            return likesByFilm.size() * BYTES_PER_FILM;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private void move(Long filmId, int from, int to) {
+        if (from > 0) {
+            removeFromBucket(filmId, from);
+        }
+        if (to > 0) {
+            likesByFilm.put(filmId, to);
+            filmsByLikes.computeIfAbsent(to, k -> new TreeSet<>()).add(filmId);
+        } else {
+            likesByFilm.remove(filmId);
+        }
+    }
+
+    private void removeFromBucket(Long filmId, int likes) {
+        NavigableSet<Long> bucket = filmsByLikes.get(likes);
+        bucket.remove(filmId);
+        if (bucket.isEmpty()) {
+            filmsByLikes.remove(likes);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SequenceIdGenerator implements IdGenerator {
+    private final AtomicLong lastId;
+
+    public SequenceIdGenerator() {
+        this(0);
+    }
+
+    public SequenceIdGenerator(long lastId) {
+        this.lastId = new AtomicLong(lastId);
+    }
+
+    @Override
+    public long nextId() {
+        return lastId.incrementAndGet();
+    }
+
+    public long getLastId() {
+        return lastId.get();
+    }
+
+    @Override
+    public void advanceTo(long usedId) {
+        lastId.accumulateAndGet(usedId, Math::max);
+    }
+}
@@ -0,0 +1,106 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Отсортированное множество long-значений поверх примитивного массива.
+ * Занимает 8 байт на элемент вместо ~50 у HashSet&lt;Long&gt;.
+ * Класс не потокобезопасен: хранилище, которое им владеет, берёт {@link #lock()} вокруг каждого обращения.
+ * Используется ReentrantLock, а не монитор: на виртуальном потоке ожидание монитора держит поток-носитель.
+ */
+public class SortedLongSet {
+    private static final long[] EMPTY = new long[0];
+    // Заголовок и поля объекта, ReentrantLock с синхронизатором и заголовок массива.
+    private static final long OVERHEAD_BYTES = 24 + 48 + 16;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private long[] values = EMPTY;
+    private int size;
+
+    public ReentrantLock lock() {
+        return lock;
+    }
+
+    public boolean add(long value) {
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index >= 0) {
+            return false;
+        }
+        int insertAt = -index - 1;
+        if (size == values.length) {
+            values = Arrays.copyOf(values, Math.max(4, size + (size >> 1)));
+        }
+        System.arraycopy(values, insertAt, values, insertAt + 1, size - insertAt);
+        values[insertAt] = value;
+        size++;
+        return true;
+    }
+
+    public boolean remove(long value) {
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+        return true;
+    }
+
+    public boolean contains(long value) {
+        return Arrays.binarySearch(values, 0, size, value) >= 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long estimateMemoryBytes() {
+        return OVERHEAD_BYTES + (long) values.length * Long.BYTES;
+    }
+
+    public long[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Пересечение двух множеств без промежуточных коллекций.
+     * Если одно множество намного меньше другого, его элементы ищутся двоичным поиском,
+     * иначе оба массива проходятся слиянием.
+     */
+    public long[] intersect(SortedLongSet other) {
+        SortedLongSet small = size <= other.size ? this : other;
+        SortedLongSet large = small == this ? other : this;
+        long[] result = new long[small.size];
+        int count = 0;
+
+        if ((long) small.size * 32 < large.size) {
+            for (int i = 0; i < small.size; i++) {
+                if (large.contains(small.values[i])) {
+                    result[count++] = small.values[i];
+                }
+            }
+        } else {
+            int i = 0;
+            int j = 0;
+            while (i < small.size && j < large.size) {
+                long a = small.values[i];
+                long b = large.values[j];
+                if (a == b) {
+                    result[count++] = a;
+                    i++;
+                    j++;
+                } else if (a < b) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+}
@@ -0,0 +1,140 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.exception.ConflictException;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Уникальные индексы пользователей по email и логину: email сравнивается без учёта регистра, логин — точно.
+ * Ключ занимается через {@code putIfAbsent}, поэтому из одновременных попыток занять один email удаётся ровно одна.
+ * Индекс помнит ключи каждого пользователя и сам освобождает прежние при смене email или логина.
+ * Изменения одного и того же пользователя не должны идти одновременно.
+ */
+public class UserKeyIndex {
+    private final ConcurrentMap<String, Long> byEmail = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Long> byLogin = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, Keys> keysById = new ConcurrentHashMap<>();
+
+    public Long findByEmail(String email) {
+        return email == null ? null : byEmail.get(emailKey(email));
+    }
+
+    public Long findByLogin(String login) {
+        return login == null ? null : byLogin.get(login);
+    }
+
+    /**
+     * Закрепляет email и логин за пользователем. Если один из них занят другим пользователем,
+     * индекс не меняется и бросается {@link ConflictException}.
+     */
+    public void put(User user) {
+        Long id = user.getId();
+        Keys keys = Keys.of(user);
+        boolean emailClaimed = claim(byEmail, keys.email, id, "email", user.getEmail());
+        try {
+            claim(byLogin, keys.login, id, "логином", user.getLogin());
+        } catch (ConflictException e) {
+            if (emailClaimed) {
+                byEmail.remove(keys.email, id);
+            }
+            throw e;
+        }
+
+        Keys previous = keysById.put(id, keys);
+        if (previous != null) {
+            if (previous.email != null && !previous.email.equals(keys.email)) {
+                byEmail.remove(previous.email, id);
+            }
+            if (previous.login != null && !previous.login.equals(keys.login)) {
+                byLogin.remove(previous.login, id);
+            }
+        }
+    }
+
+    /**
+     * Закрепляет ключи новых пользователей пачки или, при первом конфликте, не закрепляет ни одного.
+     */
+    public void putAll(List<User> users) {
+        List<Long> added = new ArrayList<>(users.size());
+        try {
+            for (User user : users) {
+                put(user);
+                added.add(user.getId());
+            }
+        } catch (ConflictException e) {
+            added.forEach(this::remove);
+            throw e;
+        }
+    }
+
+    public void remove(Long id) {
+        Keys keys = keysById.remove(id);
+        if (keys != null) {
+            if (keys.email != null) {
+                byEmail.remove(keys.email, id);
+            }
+            if (keys.login != null) {
+                byLogin.remove(keys.login, id);
+            }
+        }
+    }
+
+    /**
+     * Бросает {@link ConflictException}, если пользователи пачки займут чужой ключ или повторяют ключи друг друга.
+     * Ничего не закрепляет: подходит, когда записи и так идут по одной под общей блокировкой.
+     */
+    public void checkAvailable(List<User> users) {
+        Set<String> emails = new HashSet<>();
+        Set<String> logins = new HashSet<>();
+        for (User user : users) {
+            Keys keys = Keys.of(user);
+            Long emailOwner = keys.email == null ? null : byEmail.get(keys.email);
+            if (keys.email != null && (!emails.add(keys.email)
+                    || emailOwner != null && !emailOwner.equals(user.getId()))) {
+                throw conflict("email", user.getEmail());
+            }
+            Long loginOwner = keys.login == null ? null : byLogin.get(keys.login);
+            if (keys.login != null && (!logins.add(keys.login)
+                    || loginOwner != null && !loginOwner.equals(user.getId()))) {
+                throw conflict("логином", user.getLogin());
+            }
+        }
+    }
+
+    public static String emailKey(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+
+    // True, если ключ занят этим вызовом, и false, если он уже принадлежал пользователю.
+    private static boolean claim(ConcurrentMap<String, Long> index, String key, Long id, String field, String value) {
+        if (key == null) {
+            return false;
+        }
+        Long owner = index.putIfAbsent(key, id);
+        if (owner == null) {
+            return true;
+        }
+        if (!Objects.equals(owner, id)) {
+            throw conflict(field, value);
+        }
+        return false;
+    }
+
+    private static ConflictException conflict(String field, String value) {
+        return new ConflictException("Пользователь с " + field + " " + value + " уже существует");
+    }
+
+    private record Keys(String email, String login) {
+        static Keys of(User user) {
+            return new Keys(user.getEmail() == null ? null : emailKey(user.getEmail()), user.getLogin());
+        }
+    }
+}
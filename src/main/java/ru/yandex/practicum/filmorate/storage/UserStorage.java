@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import ru.yandex.practicum.filmorate.exception.ConflictException;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.List;
@@ -9,11 +10,44 @@ public interface UserStorage {
 
     User get(Long id);
 
+    /**
+     * Сущности с указанными id в том же порядке; отсутствующие id пропускаются.
+     */
+    List<User> getByIds(List<Long> ids);
+
+    /**
+     * Страница по возрастанию id: не больше {@code limit} записей с id больше {@code afterId}.
+     */
+    List<User> getPage(long afterId, int limit);
+
+    /**
+     * Пользователь с указанным email без учёта регистра или null.
+     */
+    User getByEmail(String email);
+
+    User getByLogin(String login);
+
+    /**
+     * Проставляет пользователю id и начальную версию {@link Versions#INITIAL}.
+     * Email и логин уникальны: если они заняты другим пользователем, бросается {@link ConflictException}.
+     */
     User create(User user);
 
+    /**
+     * Создаёт пачку пользователей одной операцией и проставляет им id.
+     * При конфликте email или логина не создаётся ни один.
+     */
+    List<User> createAll(List<User> users);
+
+    /**
+     * Заменяет пользователя, как {@link FilmStorage#update}: с проверкой версии, если она указана,
+     * и null, если пользователя нет.
+     */
     User update(User user);
 
     boolean delete(Long id);
 
     boolean exists(Long id);
+
+    int count();
 }
@@ -0,0 +1,40 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.exception.VersionConflictException;
+
+/**
+ * Проверка версии при обновлении: без ожидаемой версии обновление безусловное.
+ */
+public final class Versions {
+    public static final long INITIAL = 1;
+
+    private Versions() {
+    }
+
+    /**
+     * Следующая версия сущности или {@link VersionConflictException}, если текущая не равна ожидаемой.
+     * Сущности, записанные до появления версий, считаются версией {@link #INITIAL}.
+     */
+    public static long next(String entity, long id, Long expected, Long current) {
+        long actual = current == null ? INITIAL : current;
+        if (expected != null && expected != actual) {
+            throw new VersionConflictException(entity + " с id = " + id + " уже изменён: текущая версия " + actual
+                    + ", в запросе " + expected);
+        }
+        return actual + 1;
+    }
+
+    /**
+     * Ожидаемая версия для обновления: из заголовка If-Match, если он есть, иначе из тела запроса.
+     * Если указаны обе и они расходятся, запрос противоречив — {@link IllegalArgumentException}.
+     */
+    public static Long expected(Long bodyVersion, Long ifMatchVersion) {
+        if (ifMatchVersion == null) {
+            return bodyVersion;
+        }
+        if (bodyVersion != null && !bodyVersion.equals(ifMatchVersion)) {
+            throw new IllegalArgumentException("Версия в теле запроса не совпадает с If-Match");
+        }
+        return ifMatchVersion;
+    }
+}
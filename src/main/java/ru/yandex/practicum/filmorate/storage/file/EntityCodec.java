@@ -0,0 +1,147 @@
+package ru.yandex.practicum.filmorate.storage.file;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.Versions;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+/**
+ * Двоичное представление сущности в снимке. Id хранится в индексе секции, а не в записи.
+ */
+public interface EntityCodec<T> {
+    void write(DataOutput out, T entity) throws IOException;
+
+    T read(ByteBuffer buffer, int position, long id);
+
+    EntityCodec<Film> FILM = new FilmCodec(true);
+    EntityCodec<User> USER = new UserCodec(true);
+    // Снимки формата 1 писались без версий, их сущности читаются с версией 1.
+    EntityCodec<Film> FILM_V1 = new FilmCodec(false);
+    EntityCodec<User> USER_V1 = new UserCodec(false);
+
+    final class FilmCodec implements EntityCodec<Film> {
+        private final boolean versioned;
+
+        private FilmCodec(boolean versioned) {
+            this.versioned = versioned;
+        }
+
+        @Override
+        public void write(DataOutput out, Film film) throws IOException {
+            writeString(out, film.getName());
+            writeString(out, film.getDescription());
+            writeDate(out, film.getReleaseDate());
+            out.writeInt(film.getDuration() == null ? Integer.MIN_VALUE : film.getDuration());
+            if (versioned) {
+                writeVersion(out, film.getVersion());
+            }
+        }
+
+        @Override
+        public Film read(ByteBuffer buffer, int position, long id) {
+            Cursor cursor = new Cursor(buffer, position);
+            Film film = new Film();
+            film.setId(id);
+            film.setName(cursor.readString());
+            film.setDescription(cursor.readString());
+            film.setReleaseDate(cursor.readDate());
+            int duration = cursor.readInt();
+            film.setDuration(duration == Integer.MIN_VALUE ? null : duration);
+            film.setVersion(versioned ? cursor.readLong() : Versions.INITIAL);
+            return film;
+        }
+    }
+
+    final class UserCodec implements EntityCodec<User> {
+        private final boolean versioned;
+
+        private UserCodec(boolean versioned) {
+            this.versioned = versioned;
+        }
+
+        @Override
+        public void write(DataOutput out, User user) throws IOException {
+            writeString(out, user.getEmail());
+            writeString(out, user.getLogin());
+            writeString(out, user.getName());
+            writeDate(out, user.getBirthday());
+            if (versioned) {
+                writeVersion(out, user.getVersion());
+            }
+        }
+
+        @Override
+        public User read(ByteBuffer buffer, int position, long id) {
+            Cursor cursor = new Cursor(buffer, position);
+            User user = new User();
+            user.setId(id);
+            user.setEmail(cursor.readString());
+            user.setLogin(cursor.readString());
+            user.setName(cursor.readString());
+            user.setBirthday(cursor.readDate());
+            user.setVersion(versioned ? cursor.readLong() : Versions.INITIAL);
+            return user;
+        }
+    }
+
+    private static void writeVersion(DataOutput out, Long version) throws IOException {
+        out.writeLong(version == null ? Versions.INITIAL : version);
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeDate(DataOutput out, LocalDate date) throws IOException {
+        out.writeLong(date == null ? Long.MIN_VALUE : date.toEpochDay());
+    }
+
+    final class Cursor {
+        private final ByteBuffer buffer;
+        private int position;
+
+        Cursor(ByteBuffer buffer, int position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        int readInt() {
+            int value = buffer.getInt(position);
+            position += Integer.BYTES;
+            return value;
+        }
+
+        long readLong() {
+            long value = buffer.getLong(position);
+            position += Long.BYTES;
+            return value;
+        }
+
+        String readString() {
+            int length = readInt();
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(position, bytes);
+            position += length;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        LocalDate readDate() {
+            long epochDay = readLong();
+            return epochDay == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(epochDay);
+        }
+    }
+}
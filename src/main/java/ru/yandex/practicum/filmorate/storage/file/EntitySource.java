@@ -0,0 +1,62 @@
+package ru.yandex.practicum.filmorate.storage.file;
+
+/**
+ * Неизменяемый набор сущностей, упорядоченный по id.
+ */
+public interface EntitySource<T> {
+    int size();
+
+    long idAt(int index);
+
+    T getAt(int index);
+
+    T get(long id);
+
+    boolean contains(long id);
+
+    /**
+     * Позиция первой сущности с id больше заданного; {@link #size()}, если таких нет.
+     */
+    default int indexAfter(long id) {
+        int low = 0;
+        int high = size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (idAt(mid) <= id) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    static <T> EntitySource<T> empty() {
+        return new EntitySource<>() {
+            @Override
+            public int size() {
+                return 0;
+            }
+
+            @Override
+            public long idAt(int index) {
+                throw new IndexOutOfBoundsException(index);
+            }
+
+            @Override
+            public T getAt(int index) {
+                throw new IndexOutOfBoundsException(index);
+            }
+
+            @Override
+            public T get(long id) {
+                return null;
+            }
+
+            @Override
+            public boolean contains(long id) {
+                return false;
+            }
+        };
+    }
+}
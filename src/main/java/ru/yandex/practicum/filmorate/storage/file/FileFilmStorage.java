@@ -0,0 +1,123 @@
+package ru.yandex.practicum.filmorate.storage.file;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmQuery;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.Versions;
+
+import java.util.List;
+import java.util.Objects;
+
+@Component
+@Timed(value = "filmorate.storage", histogram = true)
+@ConditionalOnProperty(name = "filmorate.storage.type", havingValue = "file")
+@RequiredArgsConstructor
+public class FileFilmStorage implements FilmStorage {
+    private final FileStorageEngine engine;
+
+    @Override
+    public List<Film> getAll() {
+        return engine.films().getAll();
+    }
+
+    @Override
+    public Film get(Long id) {
+        return engine.films().get(id);
+    }
+
+    @Override
+    public List<Film> getByIds(List<Long> ids) {
+        return ids.stream()
+                .map(engine.films()::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    public List<Film> getPage(long afterId, int limit) {
+        return engine.films().getPage(afterId, limit);
+    }
+
+    @Override
+    public List<Film> search(FilmQuery query, long afterId, int limit) {
+        return getByIds(engine.filmIndex().search(query, afterId, limit));
+    }
+
+    @Override
+    public Film create(Film film) {
+        return engine.write(undo -> {
+            film.setVersion(Versions.INITIAL);
+            return put(engine.films().create(film), undo);
+        }, LogRecord::filmPut);
+    }
+
+    @Override
+    public List<Film> createAll(List<Film> films) {
+        return engine.writeAll(undo -> {
+            films.forEach(film -> {
+                film.setVersion(Versions.INITIAL);
+                put(engine.films().create(film), undo);
+            });
+            return films;
+        }, created -> created.stream().map(LogRecord::filmPut).toList());
+    }
+
+    // Сверка версии и замена идут под блокировкой записи движка.
+    @Override
+    public Film update(Film film) {
+        return engine.write(undo -> {
+            Film existing = engine.films().get(film.getId());
+            if (existing == null) {
+                return null;
+            }
+            film.setVersion(Versions.next("Фильм", film.getId(), film.getVersion(), existing.getVersion()));
+            Film updated = engine.films().update(film);
+            engine.filmIndexed(updated);
+            undo.add(() -> restore(existing));
+            return updated;
+        }, updated -> updated == null ? null : LogRecord.filmPut(updated));
+    }
+
+    @Override
+    public boolean delete(Long id) {
+        return engine.write(undo -> {
+            Film existing = engine.films().get(id);
+            if (existing == null) {
+                return false;
+            }
+            engine.films().delete(id);
+            engine.filmUnindexed(id);
+            undo.add(() -> restore(existing));
+            return true;
+        }, deleted -> deleted ? LogRecord.filmDelete(id) : null);
+    }
+
+    @Override
+    public boolean exists(Long id) {
+        return engine.films().exists(id);
+    }
+
+    @Override
+    public int count() {
+        return engine.films().size();
+    }
+
+    private Film put(Film created, FileStorageEngine.Undo undo) {
+        engine.filmIndexed(created);
+        Long id = created.getId();
+        undo.add(() -> {
+            engine.films().delete(id);
+            engine.filmUnindexed(id);
+        });
+        return created;
+    }
+
+    private void restore(Film previous) {
+        engine.films().update(previous);
+        engine.filmIndexed(previous);
+    }
+}
@@ -0,0 +1,107 @@
+package ru.yandex.practicum.filmorate.storage.file;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.storage.FriendshipStorage;
+import ru.yandex.practicum.filmorate.storage.MemoryFootprint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Component
+@Timed(value = "filmorate.storage", histogram = true)
+@ConditionalOnProperty(name = "filmorate.storage.type", havingValue = "file")
+@RequiredArgsConstructor
+public class FileFriendshipStorage implements FriendshipStorage, MemoryFootprint {
+    private final FileStorageEngine engine;
+
+    @Override
+    public boolean addFriend(Long userId, Long friendId) {
+        return engine.write(undo -> {
+            boolean added = engine.friendships().addFriend(userId, friendId);
+            if (added) {
+                undo.add(() -> engine.friendships().removeFriend(userId, friendId));
+            }
+            return added;
+        }, added -> added ? LogRecord.friendAdd(userId, friendId) : null);
+    }
+
+    @Override
+    public boolean[] addFriends(List<Friendship> friendships) {
+        return engine.writeAll(undo -> {
+            boolean[] added = engine.friendships().addFriends(friendships);
+            undo.add(() -> {
+                for (int i = 0; i < added.length; i++) {
+                    if (added[i]) {
+                        Friendship friendship = friendships.get(i);
+                        engine.friendships().removeFriend(friendship.getUserId(), friendship.getFriendId());
+                    }
+                }
+            });
+            return added;
+        }, added -> {
+            List<LogRecord> records = new ArrayList<>();
+            for (int i = 0; i < added.length; i++) {
+                if (added[i]) {
+                    Friendship friendship = friendships.get(i);
+                    records.add(LogRecord.friendAdd(friendship.getUserId(), friendship.getFriendId()));
+                }
+            }
+            return records;
+        });
+    }
+
+    @Override
+    public boolean removeFriend(Long userId, Long friendId) {
+        return engine.write(undo -> {
+            boolean removed = engine.friendships().removeFriend(userId, friendId);
+            if (removed) {
+                undo.add(() -> engine.friendships().addFriend(userId, friendId));
+            }
+            return removed;
+        }, removed -> removed ? LogRecord.friendRemove(userId, friendId) : null);
+    }
+
+    @Override
+    public long[] removeFriends(Long userId) {
+        return engine.writeAll(undo -> {
+            long[] friends = engine.friendships().removeFriends(userId);
+            undo.add(() -> {
+                for (long friendId : friends) {
+                    engine.friendships().addFriend(userId, friendId);
+                }
+            });
+            return friends;
+        }, friends -> {
+            List<LogRecord> records = new ArrayList<>(friends.length);
+            for (long friendId : friends) {
+                records.add(LogRecord.friendRemove(userId, friendId));
+            }
+            return records;
+        });
+    }
+
+    @Override
+    public List<Long> getFriendIds(Long userId) {
+        return engine.friendships().getFriendIds(userId);
+    }
+
+    @Override
+    public Map<Long, long[]> getFriendIdsByUser(List<Long> userIds) {
+        return engine.friendships().getFriendIdsByUser(userIds);
+    }
+
+    @Override
+    public List<Long> getCommonFriendIds(Long userId, Long otherId) {
+        return engine.friendships().getCommonFriendIds(userId, otherId);
+    }
+
+    @Override
+    public long estimateMemoryBytes() {
+        return engine.friendships().estimateMemoryBytes();
+    }
+}
@@ -0,0 +1,125 @@
+package ru.yandex.practicum.filmorate.storage.file;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.storage.LikeStorage;
+import ru.yandex.practicum.filmorate.storage.MemoryFootprint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Component
+@Timed(value = "filmorate.storage", histogram = true)
+@ConditionalOnProperty(name = "filmorate.storage.type", havingValue = "file")
+@RequiredArgsConstructor
+public class FileLikeStorage implements LikeStorage, MemoryFootprint {
+    private final FileStorageEngine engine;
+
+    @Override
+    public boolean addLike(Long filmId, Long userId) {
+        return engine.write(undo -> {
+            boolean added = engine.likes().addLike(filmId, userId);
+            if (added) {
+                undo.add(() -> engine.likes().removeLike(filmId, userId));
+            }
+            return added;
+        }, added -> added ? LogRecord.likeAdd(filmId, userId) : null);
+    }
+
+    @Override
+    public boolean[] addLikes(List<Like> likes) {
+        return engine.writeAll(undo -> {
+            boolean[] added = engine.likes().addLikes(likes);
+            undo.add(() -> {
+                for (int i = 0; i < added.length; i++) {
+                    if (added[i]) {
+                        engine.likes().removeLike(likes.get(i).getFilmId(), likes.get(i).getUserId());
+                    }
+                }
+            });
+            return added;
+        }, added -> {
+            List<LogRecord> records = new ArrayList<>();
+            for (int i = 0; i < added.length; i++) {
+                if (added[i]) {
+                    records.add(LogRecord.likeAdd(likes.get(i).getFilmId(), likes.get(i).getUserId()));
+                }
+            }
+            return records;
+        });
+    }
+
+    @Override
+    public boolean removeLike(Long filmId, Long userId) {
+        return engine.write(undo -> {
+            boolean removed = engine.likes().removeLike(filmId, userId);
+            if (removed) {
+                undo.add(() -> engine.likes().addLike(filmId, userId));
+            }
+            return removed;
+        }, removed -> removed ? LogRecord.likeRemove(filmId, userId) : null);
+    }
+
+    @Override
+    public List<Long> getLikedFilmIds(Long userId) {
+        return engine.likes().getLikedFilmIds(userId);
+    }
+
+    @Override
+    public long[] removeLikesByUser(Long userId) {
+        return engine.writeAll(undo -> {
+            long[] films = engine.likes().removeLikesByUser(userId);
+            undo.add(() -> {
+                for (long filmId : films) {
+                    engine.likes().addLike(filmId, userId);
+                }
+            });
+            return films;
+        }, films -> {
+            List<LogRecord> records = new ArrayList<>(films.length);
+            for (long filmId : films) {
+                records.add(LogRecord.likeRemove(filmId, userId));
+            }
+            return records;
+        });
+    }
+
+    @Override
+    public boolean hasLike(Long filmId, Long userId) {
+        return engine.likes().hasLike(filmId, userId);
+    }
+
+    @Override
+    public int getLikesCount(Long filmId) {
+        return engine.likes().getLikesCount(filmId);
+    }
+
+    @Override
+    public List<Long> getPopularFilmIds(int count) {
+        return engine.likes().getPopularFilmIds(count);
+    }
+
+    @Override
+    public Map<Long, long[]> getLikerIdsByFilm(List<Long> filmIds) {
+        return engine.likes().getLikerIdsByFilm(filmIds);
+    }
+
+    @Override
+    public Map<Long, long[]> getLikedFilmIdsByUser(List<Long> userIds) {
+        return engine.likes().getLikedFilmIdsByUser(userIds);
+    }
+
+    @Override
+    public List<Long> getMostActiveUserIds(int count) {
+        return engine.likes().getMostActiveUserIds(count);
+    }
+
+    @Override
+    public long estimateMemoryBytes() {
+        return engine.likes().estimateMemoryBytes();
+    }
+}
@@ -0,0 +1,503 @@
+package ru.yandex.practicum.filmorate.storage.file;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.ConflictException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSnapshot;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserSnapshot;
+import ru.yandex.practicum.filmorate.storage.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.InMemoryFriendshipStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryLikeStorage;
+import ru.yandex.practicum.filmorate.storage.SequenceIdGenerator;
+import ru.yandex.practicum.filmorate.storage.UserKeyIndex;
+import ru.yandex.practicum.filmorate.storage.Versions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Файловое хранилище: каждое изменение пишется в журнал (wal-N.log),
+ * периодически состояние целиком сбрасывается в двоичный снимок (snapshot-N.snap).
+ * Снимок N содержит все изменения из журналов с номерами меньше N, поэтому при старте
+ * последний снимок отображается в память и поверх него проигрываются журналы с номерами от N.
+ * Фильмы и пользователи читаются из снимка по требованию, лайки и друзья загружаются в память сразу.
+ * Изменение становится видно читателям до того, как запись о нём окажется на диске; если журнал её не принял,
+ * изменение откатывается, а после первой ошибки журнал не принимает записей до перезапуска.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "filmorate.storage.type", havingValue = "file")
+public class FileStorageEngine implements DisposableBean {
+    private static final Pattern WAL_FILE = Pattern.compile("wal-(\\d+)\\.log");
+    private static final Pattern SNAPSHOT_FILE = Pattern.compile("snapshot-(\\d+)\\.snap");
+
+    private final Path directory;
+    private final ObjectMapper objectMapper;
+
+    private final SequenceIdGenerator filmIds = new SequenceIdGenerator();
+    private final SequenceIdGenerator userIds = new SequenceIdGenerator();
+    private final LayeredEntityStore<Film, FilmSnapshot> films;
+    private final LayeredEntityStore<User, UserSnapshot> users;
+    private final InMemoryLikeStorage likes = new InMemoryLikeStorage();
+    private final InMemoryFriendshipStorage friendships = new InMemoryFriendshipStorage();
+    // Строятся при первом обращении, чтобы запуск не читал все фильмы и всех пользователей из снимка.
+    private volatile FilmSearchIndex filmIndex;
+    private volatile UserKeyIndex userKeys;
+
+    // Изменение в памяти и постановка записи в журнал идут под одной блокировкой,
+    // чтобы порядок записей в журнале совпадал с порядком изменений.
+    private final ReentrantLock writeLock = new ReentrantLock();
+    // Изменения, ещё не подтверждённые журналом, в порядке их записей в журнале; доступ под writeLock.
+    private final Deque<PendingWrite> pending = new ArrayDeque<>();
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+    private final ScheduledExecutorService scheduler;
+    private final WriteAheadLog wal;
+    private long segment;
+
+    public FileStorageEngine(@Value("${filmorate.storage.file.directory:data}") Path directory,
+                             @Value("${filmorate.storage.file.snapshot-interval:PT10M}") Duration snapshotInterval,
+                             ObjectMapper objectMapper) throws IOException {
+        this.directory = directory;
+        this.objectMapper = objectMapper;
+
+        Files.createDirectories(directory);
+        long snapshotSegment = latest(SNAPSHOT_FILE);
+        MappedSnapshot snapshot = snapshotSegment > 0 ? MappedSnapshot.open(snapshotFile(snapshotSegment)) : null;
+        films = new LayeredEntityStore<>(filmIds, Film::getId, Film::setId, FilmSnapshot::of, FilmSnapshot::toFilm,
+                snapshot == null ? EntitySource.empty() : snapshot.films());
+        users = new LayeredEntityStore<>(userIds, User::getId, User::setId, UserSnapshot::of, UserSnapshot::toUser,
+                snapshot == null ? EntitySource.empty() : snapshot.users());
+        segment = recover(snapshotSegment, snapshot) + 1;
+        wal = new WriteAheadLog(walFile(segment));
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "storage-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = snapshotInterval.toMillis();
+        scheduler.scheduleAtFixedRate(this::snapshotQuietly, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public LayeredEntityStore<Film, FilmSnapshot> films() {
+        return films;
+    }
+
+    public LayeredEntityStore<User, UserSnapshot> users() {
+        return users;
+    }
+
+    public InMemoryLikeStorage likes() {
+        return likes;
+    }
+
+    public InMemoryFriendshipStorage friendships() {
+        return friendships;
+    }
+
+    /**
+     * Индекс поиска фильмов; при первом обращении строится по всем фильмам под блокировкой записи.
+     */
+    public FilmSearchIndex filmIndex() {
+        FilmSearchIndex index = filmIndex;
+        if (index != null) {
+            return index;
+        }
+        writeLock.lock();
+        try {
+            if (filmIndex == null) {
+                FilmSearchIndex built = new FilmSearchIndex();
+                films.getAll().forEach(built::put);
+                filmIndex = built;
+            }
+            return filmIndex;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Уникальные индексы email и логинов; при первом обращении строятся по всем пользователям под блокировкой записи.
+     * Пользователи, чьи ключи уже заняты (данные, записанные до появления индекса), в индекс не попадают.
+     */
+    public UserKeyIndex userKeys() {
+        UserKeyIndex index = userKeys;
+        if (index != null) {
+            return index;
+        }
+        writeLock.lock();
+        try {
+            if (userKeys == null) {
+                UserKeyIndex built = new UserKeyIndex();
+                for (User user : users.getAll()) {
+                    try {
+                        built.put(user);
+                    } catch (ConflictException e) {
+                        log.warn("Пользователь {} не попал в индекс: {}", user.getId(), e.getMessage());
+                    }
+                }
+                userKeys = built;
+            }
+            return userKeys;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Обновляет фильм в индексе поиска, если тот уже построен. Вызывается внутри изменения {@link #write}.
+     */
+    public void filmIndexed(Film film) {
+        FilmSearchIndex index = filmIndex;
+        if (index != null) {
+            index.put(film);
+        }
+    }
+
+    /**
+     * Убирает фильм из индекса поиска, если тот уже построен. Вызывается внутри изменения {@link #write}.
+     */
+    public void filmUnindexed(Long filmId) {
+        FilmSearchIndex index = filmIndex;
+        if (index != null) {
+            index.remove(filmId);
+        }
+    }
+
+    /**
+     * Применяет изменение и дожидается, пока запись о нём окажется на диске.
+     * Если {@code toRecord} вернул null, изменение ничего не поменяло и в журнал не пишется.
+     * Изменение регистрирует в {@link Undo} действия, отменяющие его в памяти: они выполнятся,
+     * если запись не удастся сохранить, и тогда вызов завершится исключением.
+     */
+    public <T> T write(Function<Undo, T> mutation, Function<T, LogRecord> toRecord) {
+        return writeAll(mutation, result -> {
+            LogRecord record = toRecord.apply(result);
+            return record == null ? List.of() : List.of(record);
+        });
+    }
+
+    /**
+     * Как {@link #write}, но одно изменение порождает несколько записей.
+     * Они уходят в журнал одним блоком и фиксируются одним fsync.
+     */
+    public <T> T writeAll(Function<Undo, T> mutation, Function<T, List<LogRecord>> toRecords) {
+        Undo undo = new Undo();
+        PendingWrite write;
+        T result;
+
+        writeLock.lock();
+        try {
+            while (!pending.isEmpty() && pending.peekFirst().isDurable()) {
+                pending.pollFirst();
+            }
+            try {
+                result = mutation.apply(undo);
+                List<LogRecord> records = toRecords.apply(result);
+                if (records.isEmpty()) {
+                    return result;
+                }
+                write = new PendingWrite(undo, wal.append(serialize(records)));
+            } catch (RuntimeException e) {
+                undo.run();
+                throw e;
+            }
+            pending.addLast(write);
+        } finally {
+            writeLock.unlock();
+        }
+
+        try {
+            write.durable.join();
+        } catch (CompletionException e) {
+            rollBack(write);
+            throw new IllegalStateException("Изменение не записано в журнал и отменено", e.getCause());
+        }
+        return result;
+    }
+
+    public void snapshot() throws IOException {
+        snapshotLock.lock();
+        try {
+            long lastFilmId;
+            long lastUserId;
+            EntitySource<Film> filmState;
+            EntitySource<User> userState;
+            Map<Long, long[]> likeState;
+            Map<Long, long[]> friendState;
+            long snapshotSegment;
+            CompletableFuture<Void> rotated;
+
+            writeLock.lock();
+            try {
+                lastFilmId = filmIds.getLastId();
+                lastUserId = userIds.getLastId();
+                filmState = films.freeze();
+                userState = users.freeze();
+                likeState = likes.getAllLikes();
+                friendState = friendships.getAllFriends();
+                snapshotSegment = ++segment;
+                rotated = wal.rotate(walFile(snapshotSegment));
+            } finally {
+                writeLock.unlock();
+            }
+            try {
+                rotated.join();
+            } catch (CompletionException e) {
+                unfreeze();
+                throw new IOException("Не удалось переключить журнал перед снимком", e.getCause());
+            }
+
+            Path target = snapshotFile(snapshotSegment);
+            Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+            MappedSnapshot snapshot;
+            try {
+                MappedSnapshot.write(tmp, lastFilmId, lastUserId, filmState, userState, likeState, friendState);
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+                snapshot = MappedSnapshot.open(target);
+            } catch (IOException | RuntimeException e) {
+                unfreeze();
+                throw e;
+            }
+
+            writeLock.lock();
+            try {
+                films.replaceBase(snapshot.films());
+                users.replaceBase(snapshot.users());
+            } finally {
+                writeLock.unlock();
+            }
+            deleteFilesBefore(snapshotSegment);
+            log.info("Сохранён снимок {}: фильмов {}, пользователей {}", target.getFileName(),
+                    filmState.size(), userState.size());
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+        snapshotQuietly();
+        wal.close();
+    }
+
+    // Журнал после ошибки не принимает записей, поэтому все изменения новее неудавшегося тоже не сохранятся:
+    // они откатываются вместе с ним, от новых к старым, чтобы каждое отменялось поверх того состояния,
+    // которое само и оставило.
+    private void rollBack(PendingWrite failed) {
+        writeLock.lock();
+        try {
+            while (!failed.rolledBack) {
+                PendingWrite last = pending.pollLast();
+                last.undo.run();
+                last.rolledBack = true;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void unfreeze() {
+        writeLock.lock();
+        try {
+            films.unfreeze();
+            users.unfreeze();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private long recover(long snapshotSegment, MappedSnapshot snapshot) throws IOException {
+        long started = System.nanoTime();
+        long lastSegment = snapshotSegment;
+
+        if (snapshot != null) {
+            filmIds.advanceTo(snapshot.getLastFilmId());
+            userIds.advanceTo(snapshot.getLastUserId());
+            snapshot.forEachLikes(likes::restoreLikes);
+            snapshot.forEachFriends(friendships::restoreFriends);
+        }
+
+        long replayed = 0;
+        List<Long> walSegments = segments(WAL_FILE);
+        for (long walSegment : walSegments) {
+            if (walSegment < snapshotSegment) {
+                continue;
+            }
+            long[] count = {0};
+            boolean last = walSegment == walSegments.get(walSegments.size() - 1);
+            WriteAheadLog.replay(walFile(walSegment), last, line -> {
+                apply(line);
+                count[0]++;
+            });
+            replayed += count[0];
+            lastSegment = Math.max(lastSegment, walSegment);
+        }
+
+        log.info("Хранилище восстановлено за {} мс: фильмов в снимке {}, пользователей в снимке {}, "
+                        + "записей журнала {}", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started),
+                snapshot == null ? 0 : snapshot.films().size(), snapshot == null ? 0 : snapshot.users().size(),
+                replayed);
+        return lastSegment;
+    }
+
+    private void apply(String line) {
+        LogRecord record;
+        try {
+            record = objectMapper.readValue(line, LogRecord.class);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        switch (record.operation()) {
+            case FILM_PUT -> {
+                filmIds.advanceTo(record.id());
+                films.update(versioned(record.film()));
+            }
+            case FILM_DELETE -> films.delete(record.id());
+            case USER_PUT -> {
+                userIds.advanceTo(record.id());
+                users.update(versioned(record.user()));
+            }
+            case USER_DELETE -> users.delete(record.id());
+            case LIKE_ADD -> likes.addLike(record.id(), record.otherId());
+            case LIKE_REMOVE -> likes.removeLike(record.id(), record.otherId());
+            case FRIEND_ADD -> friendships.addFriend(record.id(), record.otherId());
+            case FRIEND_REMOVE -> friendships.removeFriend(record.id(), record.otherId());
+        }
+    }
+
+    // Записи журнала, сделанные до появления версий, получают версию 1.
+    private static Film versioned(Film film) {
+        if (film.getVersion() == null) {
+            film.setVersion(Versions.INITIAL);
+        }
+        return film;
+    }
+
+    private static User versioned(User user) {
+        if (user.getVersion() == null) {
+            user.setVersion(Versions.INITIAL);
+        }
+        return user;
+    }
+
+    private byte[] serialize(List<LogRecord> records) {
+        ByteArrayOutputStream lines = new ByteArrayOutputStream();
+        try {
+            for (LogRecord record : records) {
+                lines.write(objectMapper.writeValueAsBytes(record));
+                lines.write('\n');
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Не удалось сериализовать запись журнала", e);
+        }
+        return lines.toByteArray();
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            log.error("Не удалось сохранить снимок хранилища: {}", e.getMessage(), e);
+        }
+    }
+
+    private void deleteFilesBefore(long snapshotSegment) throws IOException {
+        for (long walSegment : segments(WAL_FILE)) {
+            if (walSegment < snapshotSegment) {
+                Files.deleteIfExists(walFile(walSegment));
+            }
+        }
+        for (long oldSnapshot : segments(SNAPSHOT_FILE)) {
+            if (oldSnapshot < snapshotSegment) {
+                Files.deleteIfExists(snapshotFile(oldSnapshot));
+            }
+        }
+    }
+
+    private long latest(Pattern pattern) throws IOException {
+        List<Long> found = segments(pattern);
+        return found.isEmpty() ? 0 : found.get(found.size() - 1);
+    }
+
+    private List<Long> segments(Pattern pattern) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> pattern.matcher(file.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(matcher -> Long.parseLong(matcher.group(1)))
+                    .sorted()
+                    .toList();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private Path walFile(long number) {
+        return directory.resolve(String.format("wal-%06d.log", number));
+    }
+
+    private Path snapshotFile(long number) {
+        return directory.resolve(String.format("snapshot-%06d.snap", number));
+    }
+
+    /**
+     * Действия, отменяющие изменение в памяти. Выполняются в обратном порядке под блокировкой записи.
+     */
+    public static final class Undo {
+        private final List<Runnable> actions = new ArrayList<>();
+
+        public void add(Runnable action) {
+            actions.add(action);
+        }
+
+        private void run() {
+            for (int i = actions.size() - 1; i >= 0; i--) {
+                actions.get(i).run();
+            }
+        }
+    }
+
+    private static final class PendingWrite {
+        private final Undo undo;
+        private final CompletableFuture<Void> durable;
+        private boolean rolledBack;
+
+        private PendingWrite(Undo undo, CompletableFuture<Void> durable) {
+            this.undo = undo;
+            this.durable = durable;
+        }
+
+        private boolean isDurable() {
+            return durable.isDone() && !durable.isCompletedExceptionally();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package ru.yandex.practicum.filmorate.storage.file;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.storage.Versions;
+
+import java.util.List;
+import java.util.Objects;
+
+@Component
+@Timed(value = "filmorate.storage", histogram = true)
+@ConditionalOnProperty(name = "filmorate.storage.type", havingValue = "file")
+@RequiredArgsConstructor
+public class FileUserStorage implements UserStorage {
+    private final FileStorageEngine engine;
+
+    @Override
+    public List<User> getAll() {
+        return engine.users().getAll();
+    }
+
+    @Override
+    public User get(Long id) {
+        return engine.users().get(id);
+    }
+
+    @Override
+    public List<User> getByIds(List<Long> ids) {
+        return ids.stream()
+                .map(engine.users()::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    public List<User> getPage(long afterId, int limit) {
+        return engine.users().getPage(afterId, limit);
+    }
+
+    @Override
+    public User getByEmail(String email) {
+        Long id = engine.userKeys().findByEmail(email);
+        return id == null ? null : engine.users().get(id);
+    }
+
+    @Override
+    public User getByLogin(String login) {
+        Long id = engine.userKeys().findByLogin(login);
+        return id == null ? null : engine.users().get(id);
+    }
+
+    // Записи идут под блокировкой движка, поэтому проверка ключей и запись не разделяются другими изменениями.
+    @Override
+    public User create(User user) {
+        return engine.write(undo -> {
+            engine.userKeys().checkAvailable(List.of(user));
+            user.setVersion(Versions.INITIAL);
+            return put(engine.users().create(user), undo);
+        }, LogRecord::userPut);
+    }
+
+    @Override
+    public List<User> createAll(List<User> users) {
+        return engine.writeAll(undo -> {
+            engine.userKeys().checkAvailable(users);
+            users.forEach(user -> {
+                user.setVersion(Versions.INITIAL);
+                put(engine.users().create(user), undo);
+            });
+            return users;
+        }, created -> created.stream().map(LogRecord::userPut).toList());
+    }
+
+    @Override
+    public User update(User user) {
+        return engine.write(undo -> {
+            User existing = engine.users().get(user.getId());
+            if (existing == null) {
+                return null;
+            }
+            long version = Versions.next("Пользователь", user.getId(), user.getVersion(), existing.getVersion());
+            engine.userKeys().checkAvailable(List.of(user));
+            user.setVersion(version);
+            User updated = engine.users().update(user);
+            engine.userKeys().put(updated);
+            undo.add(() -> restore(existing));
+            return updated;
+        }, updated -> updated == null ? null : LogRecord.userPut(updated));
+    }
+
+    @Override
+    public boolean delete(Long id) {
+        return engine.write(undo -> {
+            User existing = engine.users().get(id);
+            if (existing == null) {
+                return false;
+            }
+            engine.users().delete(id);
+            engine.userKeys().remove(id);
+            undo.add(() -> restore(existing));
+            return true;
+        }, deleted -> deleted ? LogRecord.userDelete(id) : null);
+    }
+
+    @Override
+    public boolean exists(Long id) {
+        return engine.users().exists(id);
+    }
+
+    @Override
+    public int count() {
+        return engine.users().size();
+    }
+
+    private User put(User created, FileStorageEngine.Undo undo) {
+        engine.userKeys().put(created);
+        Long id = created.getId();
+        undo.add(() -> {
+            engine.users().delete(id);
+            engine.userKeys().remove(id);
+        });
+        return created;
+    }
+
+    private void restore(User previous) {
+        engine.users().update(previous);
+        engine.userKeys().put(previous);
+    }
+}
@@ -0,0 +1,280 @@
+package ru.yandex.practicum.filmorate.storage.file;
+
+import ru.yandex.practicum.filmorate.storage.IdGenerator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Сущности поверх отображённого в память снимка.
+ * Изменения после снимка лежат в верхнем слое, удаления отмечаются надгробиями,
+ * всё остальное читается из снимка по требованию.
+ * На время записи нового снимка текущий слой замораживается, а изменения идут в новый слой над ним.
+ * Изменения должны выполняться под внешней блокировкой; чтение блокировок не требует.
+ * В слоях изменений лежит неизменяемое состояние {@code S}, а каждый читатель получает свою копию сущности,
+ * поэтому в хранилище не попадают ни дальнейшие правки записанного объекта, ни правки прочитанного.
+ */
+public class LayeredEntityStore<T, S> {
+    private static final Object TOMBSTONE = new Object();
+
+    private final IdGenerator idGenerator;
+    private final Function<T, Long> idGetter;
+    private final BiConsumer<T, Long> idSetter;
+    private final Function<T, S> toStored;
+    private final Function<S, T> fromStored;
+    private volatile Layers layers;
+
+    public LayeredEntityStore(IdGenerator idGenerator, Function<T, Long> idGetter, BiConsumer<T, Long> idSetter,
+                              Function<T, S> toStored, Function<S, T> fromStored, EntitySource<T> base) {
+        this.idGenerator = idGenerator;
+        this.idGetter = idGetter;
+        this.idSetter = idSetter;
+        this.toStored = toStored;
+        this.fromStored = fromStored;
+        this.layers = new Layers(new ConcurrentSkipListMap<>(), null, base);
+    }
+
+    /**
+     * Все сущности по возрастанию id, в том же порядке, что и страницы {@link #getPage}.
+     */
+    public List<T> getAll() {
+        Layers current = layers;
+        List<T> result = new ArrayList<>(current.base.size() + current.top.size());
+        collect(current, Long.MIN_VALUE, Integer.MAX_VALUE, result);
+        return result;
+    }
+
+    /**
+     * Страница по возрастанию id: слияние трёх упорядоченных слоёв, начиная с первого id больше {@code afterId}.
+     */
+    public List<T> getPage(long afterId, int limit) {
+        List<T> result = new ArrayList<>(Math.min(limit, 1024));
+        collect(layers, afterId, limit, result);
+        return result;
+    }
+
+    private void collect(Layers current, long afterId, int limit, List<T> result) {
+        Iterator<Map.Entry<Long, Object>> top = current.top.tailMap(afterId, false).entrySet().iterator();
+        Iterator<Map.Entry<Long, Object>> frozen = current.frozen == null ? null
+                : current.frozen.tailMap(afterId, false).entrySet().iterator();
+        Map.Entry<Long, Object> topEntry = next(top);
+        Map.Entry<Long, Object> frozenEntry = next(frozen);
+        int baseIndex = current.base.indexAfter(afterId);
+
+        while (result.size() < limit) {
+            long id = Long.MAX_VALUE;
+            if (topEntry != null) {
+                id = topEntry.getKey();
+            }
+            if (frozenEntry != null) {
+                id = Math.min(id, frozenEntry.getKey());
+            }
+            if (baseIndex < current.base.size()) {
+                id = Math.min(id, current.base.idAt(baseIndex));
+            } else if (topEntry == null && frozenEntry == null) {
+                break;
+            }
+
+            Object value = null;
+            T fromBase = null;
+            if (topEntry != null && topEntry.getKey() == id) {
+                value = topEntry.getValue();
+                topEntry = next(top);
+            }
+            if (frozenEntry != null && frozenEntry.getKey() == id) {
+                if (value == null) {
+                    value = frozenEntry.getValue();
+                }
+                frozenEntry = next(frozen);
+            }
+            if (baseIndex < current.base.size() && current.base.idAt(baseIndex) == id) {
+                if (value == null) {
+                    fromBase = current.base.getAt(baseIndex);
+                    value = fromBase;
+                }
+                baseIndex++;
+            }
+            if (fromBase != null) {
+                result.add(fromBase);
+            } else if (value != TOMBSTONE) {
+                result.add(load(value));
+            }
+        }
+    }
+
+    /**
+     * Число сущностей: размер снимка, поправленный на изменения поверх него.
+     * Стоит O(k log n), где k — число изменений после снимка.
+     */
+    public int size() {
+        Layers current = layers;
+        int size = current.base.size();
+        if (current.frozen != null) {
+            for (Map.Entry<Long, Object> change : current.frozen.entrySet()) {
+                size += sizeDelta(change.getValue(), current.base.contains(change.getKey()));
+            }
+        }
+        for (Map.Entry<Long, Object> change : current.top.entrySet()) {
+            Object below = current.frozen == null ? null : current.frozen.get(change.getKey());
+            boolean presentBelow = below != null ? below != TOMBSTONE : current.base.contains(change.getKey());
+            size += sizeDelta(change.getValue(), presentBelow);
+        }
+        return size;
+    }
+
+    public T get(Long id) {
+        return layers.get(id);
+    }
+
+    public boolean exists(Long id) {
+        return layers.get(id) != null;
+    }
+
+    public T create(T entity) {
+        long newId = idGenerator.nextId();
+        idSetter.accept(entity, newId);
+        layers.top.put(newId, toStored.apply(entity));
+        return entity;
+    }
+
+    public T update(T entity) {
+        layers.top.put(idGetter.apply(entity), toStored.apply(entity));
+        return entity;
+    }
+
+    public boolean delete(Long id) {
+        if (!exists(id)) {
+            return false;
+        }
+        layers.top.put(id, TOMBSTONE);
+        return true;
+    }
+
+    /**
+     * Замораживает текущие изменения и возвращает состояние на этот момент, упорядоченное по id.
+     */
+    public EntitySource<T> freeze() {
+        Layers current = layers;
+        if (current.frozen != null) {
+            throw new IllegalStateException("Предыдущий снимок ещё не завершён");
+        }
+        layers = new Layers(new ConcurrentSkipListMap<>(), current.top, current.base);
+        return merge(current.top, current.base);
+    }
+
+    /**
+     * Подменяет снимок и замороженный слой новым снимком, в котором они уже объединены.
+     */
+    public void replaceBase(EntitySource<T> base) {
+        Layers current = layers;
+        layers = new Layers(current.top, null, base);
+    }
+
+    /**
+     * Возвращает замороженные изменения в верхний слой, если снимок записать не удалось.
+     */
+    public void unfreeze() {
+        Layers current = layers;
+        if (current.frozen == null) {
+            return;
+        }
+        current.frozen.forEach(current.top::putIfAbsent);
+        layers = new Layers(current.top, null, current.base);
+    }
+
+    private EntitySource<T> merge(Map<Long, Object> changes, EntitySource<T> base) {
+        long[] ids = new long[base.size() + changes.size()];
+        int count = 0;
+        for (int i = 0; i < base.size(); i++) {
+            long id = base.idAt(i);
+            if (!changes.containsKey(id)) {
+                ids[count++] = id;
+            }
+        }
+        for (Map.Entry<Long, Object> change : changes.entrySet()) {
+            if (change.getValue() != TOMBSTONE) {
+                ids[count++] = change.getKey();
+            }
+        }
+        long[] sorted = Arrays.copyOf(ids, count);
+        Arrays.sort(sorted);
+
+        return new EntitySource<>() {
+            @Override
+            public int size() {
+                return sorted.length;
+            }
+
+            @Override
+            public long idAt(int index) {
+                return sorted[index];
+            }
+
+            @Override
+            public T getAt(int index) {
+                return get(sorted[index]);
+            }
+
+            @Override
+            public T get(long id) {
+                Object changed = changes.get(id);
+                if (changed != null) {
+                    return changed == TOMBSTONE ? null : load(changed);
+                }
+                return base.get(id);
+            }
+
+            @Override
+            public boolean contains(long id) {
+                return Arrays.binarySearch(sorted, id) >= 0;
+            }
+        };
+    }
+
+    private static int sizeDelta(Object value, boolean presentBelow) {
+        if (value == TOMBSTONE) {
+            return presentBelow ? -1 : 0;
+        }
+        return presentBelow ? 0 : 1;
+    }
+
+    private static Map.Entry<Long, Object> next(Iterator<Map.Entry<Long, Object>> iterator) {
+        return iterator != null && iterator.hasNext() ? iterator.next() : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T load(Object stored) {
+        return fromStored.apply((S) stored);
+    }
+
+    private final class Layers {
+        private final ConcurrentNavigableMap<Long, Object> top;
+        private final ConcurrentNavigableMap<Long, Object> frozen;
+        private final EntitySource<T> base;
+
+        private Layers(ConcurrentNavigableMap<Long, Object> top, ConcurrentNavigableMap<Long, Object> frozen,
+                       EntitySource<T> base) {
+            this.top = top;
+            this.frozen = frozen;
+            this.base = base;
+        }
+
+        private T get(long id) {
+            Object value = top.get(id);
+            if (value == null && frozen != null) {
+                value = frozen.get(id);
+            }
+            if (value != null) {
+                return value == TOMBSTONE ? null : load(value);
+            }
+            return base.get(id);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package ru.yandex.practicum.filmorate.storage.file;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record LogRecord(Operation operation, Long id, Long otherId, Film film, User user) {
+
+    public enum Operation {
+        FILM_PUT, FILM_DELETE, USER_PUT, USER_DELETE, LIKE_ADD, LIKE_REMOVE, FRIEND_ADD, FRIEND_REMOVE
+    }
+
+    public static LogRecord filmPut(Film film) {
+        return new LogRecord(Operation.FILM_PUT, film.getId(), null, film, null);
+    }
+
+    public static LogRecord filmDelete(Long id) {
+        return new LogRecord(Operation.FILM_DELETE, id, null, null, null);
+    }
+
+    public static LogRecord userPut(User user) {
+        return new LogRecord(Operation.USER_PUT, user.getId(), null, null, user);
+    }
+
+    public static LogRecord userDelete(Long id) {
+        return new LogRecord(Operation.USER_DELETE, id, null, null, null);
+    }
+
+    public static LogRecord likeAdd(Long filmId, Long userId) {
+        return new LogRecord(Operation.LIKE_ADD, filmId, userId, null, null);
+    }
+
+    public static LogRecord likeRemove(Long filmId, Long userId) {
+        return new LogRecord(Operation.LIKE_REMOVE, filmId, userId, null, null);
+    }
+
+    public static LogRecord friendAdd(Long userId, Long friendId) {
+        return new LogRecord(Operation.FRIEND_ADD, userId, friendId, null, null);
+    }
+
+    public static LogRecord friendRemove(Long userId, Long friendId) {
+        return new LogRecord(Operation.FRIEND_REMOVE, userId, friendId, null, null);
+    }
+}
@@ -0,0 +1,261 @@
+package ru.yandex.practicum.filmorate.storage.file;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Двоичный снимок хранилища, который читается через {@link FileChannel#map} без разбора всего файла.
+ * <p>
+ * Формат: заголовок фиксированного размера, затем четыре секции — фильмы, пользователи, лайки, друзья.
+ * Секция сущностей: записи подряд, за ними отсортированный массив id (long), массив смещений записей (int)
+ * и число записей (int) в самом конце. Поиск по id — двоичный поиск по массиву id прямо в отображённой памяти,
+ * запись декодируется только при обращении. Секции связей: число владельцев, затем для каждого
+ * id, количество и отсортированные id связанных сущностей.
+ * С версии формата 2 запись сущности заканчивается её версией; снимки версии 1 читаются с версией сущностей 1.
+ */
+public final class MappedSnapshot {
+    private static final int MAGIC = 0x464C4D53;
+    private static final int VERSION = 2;
+    private static final int SECTIONS = 4;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + SECTIONS * 16;
+
+    private final long lastFilmId;
+    private final long lastUserId;
+    private final MappedSection<Film> films;
+    private final MappedSection<User> users;
+    private final ByteBuffer likes;
+    private final ByteBuffer friends;
+
+    private MappedSnapshot(int version, long lastFilmId, long lastUserId, ByteBuffer[] sections) {
+        this.lastFilmId = lastFilmId;
+        this.lastUserId = lastUserId;
+        this.films = new MappedSection<>(sections[0], version == 1 ? EntityCodec.FILM_V1 : EntityCodec.FILM);
+        this.users = new MappedSection<>(sections[1], version == 1 ? EntityCodec.USER_V1 : EntityCodec.USER);
+        this.likes = sections[2];
+        this.friends = sections[3];
+    }
+
+    public static MappedSnapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            int version = header.getInt() == MAGIC ? header.getInt() : 0;
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Неизвестный формат снимка: " + file);
+            }
+            long lastFilmId = header.getLong();
+            long lastUserId = header.getLong();
+            ByteBuffer[] sections = new ByteBuffer[SECTIONS];
+            for (int i = 0; i < SECTIONS; i++) {
+                long start = header.getLong();
+                long length = header.getLong();
+                sections[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            }
+            return new MappedSnapshot(version, lastFilmId, lastUserId, sections);
+        }
+    }
+
+    public static void write(Path file, long lastFilmId, long lastUserId, EntitySource<Film> films,
+                             EntitySource<User> users, Map<Long, long[]> likes,
+                             Map<Long, long[]> friends) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.position(HEADER_SIZE);
+            CountingOutputStream counter = new CountingOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), HEADER_SIZE);
+            DataOutputStream out = new DataOutputStream(counter);
+
+            long[] bounds = new long[SECTIONS * 2];
+            writeSection(counter, bounds, 0, () -> writeEntities(out, counter, films, EntityCodec.FILM));
+            writeSection(counter, bounds, 1, () -> writeEntities(out, counter, users, EntityCodec.USER));
+            writeSection(counter, bounds, 2, () -> writeLinks(out, likes));
+            writeSection(counter, bounds, 3, () -> writeLinks(out, friends));
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putLong(lastFilmId).putLong(lastUserId);
+            for (long bound : bounds) {
+                header.putLong(bound);
+            }
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        }
+    }
+
+    public long getLastFilmId() {
+        return lastFilmId;
+    }
+
+    public long getLastUserId() {
+        return lastUserId;
+    }
+
+    public EntitySource<Film> films() {
+        return films;
+    }
+
+    public EntitySource<User> users() {
+        return users;
+    }
+
+    public void forEachLikes(BiConsumer<Long, long[]> consumer) {
+        readLinks(likes, consumer);
+    }
+
+    public void forEachFriends(BiConsumer<Long, long[]> consumer) {
+        readLinks(friends, consumer);
+    }
+
+    private static void writeSection(CountingOutputStream counter, long[] bounds, int section,
+                                     SectionWriter writer) throws IOException {
+        long start = counter.count;
+        writer.write();
+        long length = counter.count - start;
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Секция снимка больше 2 ГБ");
+        }
+        bounds[section * 2] = start;
+        bounds[section * 2 + 1] = length;
+    }
+
+    private static <T> void writeEntities(DataOutputStream out, CountingOutputStream counter,
+                                          EntitySource<T> source, EntityCodec<T> codec) throws IOException {
+        long start = counter.count;
+        int size = source.size();
+        int[] offsets = new int[size];
+        for (int i = 0; i < size; i++) {
+            offsets[i] = (int) (counter.count - start);
+            codec.write(out, source.getAt(i));
+        }
+        for (int i = 0; i < size; i++) {
+            out.writeLong(source.idAt(i));
+        }
+        for (int offset : offsets) {
+            out.writeInt(offset);
+        }
+        out.writeInt(size);
+    }
+
+    private static void writeLinks(DataOutputStream out, Map<Long, long[]> links) throws IOException {
+        out.writeInt(links.size());
+        for (Map.Entry<Long, long[]> entry : links.entrySet()) {
+            out.writeLong(entry.getKey());
+            out.writeInt(entry.getValue().length);
+            for (long id : entry.getValue()) {
+                out.writeLong(id);
+            }
+        }
+    }
+
+    private static void readLinks(ByteBuffer section, BiConsumer<Long, long[]> consumer) {
+        ByteBuffer buffer = section.duplicate();
+        int owners = buffer.getInt();
+        for (int i = 0; i < owners; i++) {
+            long ownerId = buffer.getLong();
+            long[] ids = new long[buffer.getInt()];
+            buffer.asLongBuffer().get(ids);
+            buffer.position(buffer.position() + ids.length * Long.BYTES);
+            consumer.accept(ownerId, ids);
+        }
+    }
+
+    @FunctionalInterface
+    private interface SectionWriter {
+        void write() throws IOException;
+    }
+
+    private static final class MappedSection<T> implements EntitySource<T> {
+        private final ByteBuffer buffer;
+        private final EntityCodec<T> codec;
+        private final int size;
+        private final int idsStart;
+        private final int offsetsStart;
+
+        private MappedSection(ByteBuffer buffer, EntityCodec<T> codec) {
+            this.buffer = buffer;
+            this.codec = codec;
+            this.size = buffer.getInt(buffer.limit() - Integer.BYTES);
+            this.offsetsStart = buffer.limit() - Integer.BYTES - size * Integer.BYTES;
+            this.idsStart = offsetsStart - size * Long.BYTES;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public long idAt(int index) {
+            return buffer.getLong(idsStart + index * Long.BYTES);
+        }
+
+        @Override
+        public T getAt(int index) {
+            return codec.read(buffer, buffer.getInt(offsetsStart + index * Integer.BYTES), idAt(index));
+        }
+
+        @Override
+        public T get(long id) {
+            int index = indexOf(id);
+            return index < 0 ? null : getAt(index);
+        }
+
+        @Override
+        public boolean contains(long id) {
+            return indexOf(id) >= 0;
+        }
+
+        private int indexOf(long id) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                long midId = idAt(mid);
+                if (midId < id) {
+                    low = mid + 1;
+                } else if (midId > id) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(OutputStream out, long initialCount) {
+            super(out);
+            this.count = initialCount;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package ru.yandex.practicum.filmorate.storage.file;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Журнал упреждающей записи: одна строка — одна операция.
+ * Записи копятся в очереди, отдельный поток пишет их пачкой и делает один fsync на пачку (group commit).
+ * Future, возвращаемый {@link #append}, завершается, когда запись гарантированно на диске.
+ * После ошибки записи несохранённый хвост отрезается, а журнал отклоняет все следующие записи:
+ * иначе они легли бы в файл после дыры.
+ */
+@Slf4j
+public class WriteAheadLog implements Closeable {
+    private static final int MAX_BATCH = 1024;
+
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    // Постановка в очередь и закрытие взаимоисключающие, чтобы после маркера закрытия в очередь ничего не попало.
+    private final ReentrantLock queueLock = new ReentrantLock();
+    private final Thread writer;
+    private FileChannel channel;
+    // Длина файла, подтверждённая последним fsync; меняется только потоком записи.
+    private long synced;
+    private long unsynced;
+    private volatile Exception failure;
+    private boolean closed;
+
+    public WriteAheadLog(Path file) {
+        this.channel = open(file);
+        this.synced = size(channel);
+        this.writer = new Thread(this::writeLoop, "wal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public CompletableFuture<Void> append(byte[] record) {
+        return enqueue(new Entry(record, null));
+    }
+
+    /**
+     * Переключает запись на новый файл. Все записи, добавленные до вызова, попадут в старый файл.
+     */
+    public CompletableFuture<Void> rotate(Path newFile) {
+        return enqueue(new Entry(null, newFile));
+    }
+
+    /**
+     * Передаёт записи файла по порядку. Если {@code consumer} не смог разобрать запись, это допустимо
+     * только для последней записи последнего файла журнала ({@code last}): её не дописала аварийная остановка,
+     * и она отрезается от файла. Нечитаемая запись в любом другом месте — повреждение, после которого
+     * проигрывать журнал дальше нельзя.
+     *
+     * @param consumer бросает {@link UncheckedIOException}, если запись не разбирается
+     */
+    public static void replay(Path file, boolean last, Consumer<String> consumer) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            long number = 0;
+            String line = nextRecord(reader);
+            while (line != null) {
+                number++;
+                String following = nextRecord(reader);
+                try {
+                    consumer.accept(line);
+                } catch (UncheckedIOException e) {
+                    if (!last || following != null) {
+                        throw new IOException("Журнал " + file.getFileName() + " повреждён в записи " + number,
+                                e.getCause());
+                    }
+                    log.warn("Отрезана недописанная последняя запись журнала {}: {}", file.getFileName(),
+                            e.getCause().getMessage());
+                    truncateTail(file);
+                    return;
+                }
+                line = following;
+            }
+        }
+    }
+
+    /**
+     * Дописывает принятые записи и закрывает файл. Записи, не попавшие в файл, завершаются ошибкой.
+     */
+    @Override
+    public void close() {
+        queueLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.add(Entry.CLOSE);
+        } finally {
+            queueLock.unlock();
+        }
+        try {
+            writer.join();
+            channel.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        queue.forEach(WriteAheadLog::reject);
+    }
+
+    private CompletableFuture<Void> enqueue(Entry entry) {
+        queueLock.lock();
+        try {
+            if (closed) {
+                reject(entry);
+            } else if (failure != null) {
+                entry.done.completeExceptionally(failure);
+            } else {
+                queue.add(entry);
+            }
+        } finally {
+            queueLock.unlock();
+        }
+        return entry.done;
+    }
+
+    private void writeLoop() {
+        List<Entry> batch = new ArrayList<>(MAX_BATCH);
+        boolean running = true;
+        while (running) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+            running = writeBatch(batch);
+            batch.clear();
+        }
+    }
+
+    private boolean writeBatch(List<Entry> batch) {
+        List<Entry> written = new ArrayList<>(batch.size());
+        boolean running = true;
+        try {
+            for (Entry entry : batch) {
+                if (entry == Entry.CLOSE) {
+                    running = false;
+                    break;
+                }
+                if (failure != null) {
+                    entry.done.completeExceptionally(failure);
+                    continue;
+                }
+                if (entry.rotateTo != null) {
+                    sync(written);
+                    channel.close();
+                    channel = open(entry.rotateTo);
+                    synced = size(channel);
+                    entry.done.complete(null);
+                    continue;
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(entry.record);
+                unsynced += buffer.remaining();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                written.add(entry);
+            }
+            sync(written);
+        } catch (IOException | UncheckedIOException e) {
+            log.error("Ошибка записи в журнал, следующие записи будут отклонены: {}", e.getMessage(), e);
+            failure = e;
+            discardUnsynced();
+            batch.forEach(entry -> entry.done.completeExceptionally(e));
+        }
+        if (!running) {
+            batch.forEach(WriteAheadLog::reject);
+        }
+        return running;
+    }
+
+    private void sync(List<Entry> written) throws IOException {
+        if (written.isEmpty()) {
+            return;
+        }
+        channel.force(false);
+        synced += unsynced;
+        unsynced = 0;
+        written.forEach(entry -> entry.done.complete(null));
+        written.clear();
+    }
+
+    // Записи, о которых писателям сообщено как о несохранённых, не должны всплыть при восстановлении.
+    private void discardUnsynced() {
+        unsynced = 0;
+        try {
+            channel.truncate(synced);
+            channel.force(false);
+        } catch (IOException e) {
+            log.error("Не удалось отрезать несохранённый хвост журнала: {}", e.getMessage(), e);
+        }
+    }
+
+    // Уже завершённые записи не меняются: complete срабатывает только один раз.
+    private static void reject(Entry entry) {
+        entry.done.completeExceptionally(new IllegalStateException("Журнал закрыт"));
+    }
+
+    private static String nextRecord(BufferedReader reader) throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+        } while (line != null && line.isBlank());
+        return line;
+    }
+
+    // Отрезает последнюю непустую строку файла вместе со всем, что после неё.
+    private static void truncateTail(Path file) throws IOException {
+        try (FileChannel tail = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer block = ByteBuffer.allocate(4096);
+            long end = tail.size();
+            boolean inRecord = false;
+            while (end > 0) {
+                long start = Math.max(0, end - block.capacity());
+                block.clear().limit((int) (end - start));
+                while (block.hasRemaining()) {
+                    tail.read(block, start + block.position());
+                }
+                for (int i = block.limit() - 1; i >= 0; i--, end--) {
+                    byte b = block.get(i);
+                    if (b == '\n' && inRecord) {
+                        tail.truncate(end);
+                        tail.force(false);
+                        return;
+                    }
+                    inRecord |= !Character.isWhitespace(b);
+                }
+            }
+            tail.truncate(0);
+            tail.force(false);
+        }
+    }
+
+    private static long size(FileChannel channel) {
+        try {
+            return channel.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static FileChannel open(Path file) {
+        try {
+            return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class Entry {
+        private static final Entry CLOSE = new Entry(null, null);
+
+        private final byte[] record;
+        private final Path rotateTo;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private Entry(byte[] record, Path rotateTo) {
+            this.record = record;
+            this.rotateTo = rotateTo;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package ru.yandex.practicum.filmorate.storage.jdbc;
+
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Собирает строки запроса (ключ, id) в массивы id по ключу. Порядок id задаёт ORDER BY запроса,
+ * список ключей передаётся параметром {@code :ids}.
+ */
+final class IdLists {
+    private IdLists() {
+    }
+
+    static Map<Long, long[]> query(NamedParameterJdbcTemplate namedJdbc, String sql, List<Long> keys) {
+        if (keys.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<Long, List<Long>> ids = new HashMap<>();
+        namedJdbc.query(sql, Map.of("ids", keys), (RowCallbackHandler) rs ->
+                ids.computeIfAbsent(rs.getLong(1), key -> new ArrayList<>()).add(rs.getLong(2)));
+        Map<Long, long[]> result = new HashMap<>();
+        ids.forEach((key, values) -> result.put(key, values.stream().mapToLong(Long::longValue).toArray()));
+        return result;
+    }
+}
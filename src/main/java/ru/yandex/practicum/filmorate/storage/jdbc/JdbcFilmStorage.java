@@ -0,0 +1,214 @@
+package ru.yandex.practicum.filmorate.storage.jdbc;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmQuery;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.Versions;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Component
+@Timed(value = "filmorate.storage", histogram = true)
+@ConditionalOnProperty(name = "filmorate.storage.type", havingValue = "jdbc")
+@RequiredArgsConstructor
+public class JdbcFilmStorage implements FilmStorage {
+    private static final String SELECT = "SELECT id, name, description, release_date, duration, version FROM films";
+
+    private final JdbcTemplate jdbc;
+    private final NamedParameterJdbcTemplate namedJdbc;
+
+    @Override
+    public List<Film> getAll() {
+        return jdbc.query(SELECT + " ORDER BY id", JdbcFilmStorage::mapRow);
+    }
+
+    @Override
+    public Film get(Long id) {
+        return jdbc.query(SELECT + " WHERE id = ?", JdbcFilmStorage::mapRow, id).stream()
+                .findFirst()
+                .orElse(null);
+    }
+
+    @Override
+    public List<Film> getByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, Film> films = namedJdbc.query(SELECT + " WHERE id IN (:ids)", Map.of("ids", ids),
+                        JdbcFilmStorage::mapRow).stream()
+                .collect(Collectors.toMap(Film::getId, Function.identity()));
+        return ids.stream()
+                .map(films::get)
+                .filter(film -> film != null)
+                .toList();
+    }
+
+    @Override
+    public List<Film> getPage(long afterId, int limit) {
+        return jdbc.query(SELECT + " WHERE id > ? ORDER BY id LIMIT ?", JdbcFilmStorage::mapRow, afterId, limit);
+    }
+
+    @Override
+    public List<Film> search(FilmQuery query, long afterId, int limit) {
+        List<String> conditions = new ArrayList<>();
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("afterId", afterId)
+                .addValue("limit", limit);
+        conditions.add("id > :afterId");
+        if (query.getReleasedFrom() != null) {
+            conditions.add("release_date >= :releasedFrom");
+            params.addValue("releasedFrom", query.getReleasedFrom(), Types.DATE);
+        }
+        if (query.getReleasedTo() != null) {
+            conditions.add("release_date <= :releasedTo");
+            params.addValue("releasedTo", query.getReleasedTo(), Types.DATE);
+        }
+        if (query.getMinDuration() != null) {
+            conditions.add("duration >= :minDuration");
+            params.addValue("minDuration", query.getMinDuration());
+        }
+        if (query.getMaxDuration() != null) {
+            conditions.add("duration <= :maxDuration");
+            params.addValue("maxDuration", query.getMaxDuration());
+        }
+        if (query.getNamePrefix() != null && !query.getNamePrefix().isEmpty()) {
+            conditions.add("name_lower LIKE :namePrefix ESCAPE '\\'");
+            params.addValue("namePrefix", FilmQuery.normalizeName(query.getNamePrefix())
+                    .replaceAll("[\\\\%_]", "\\\\$0") + "%");
+        }
+        return namedJdbc.query(SELECT + " WHERE " + String.join(" AND ", conditions) + " ORDER BY id LIMIT :limit",
+                params, JdbcFilmStorage::mapRow);
+    }
+
+    @Override
+    public Film create(Film film) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbc.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO films (name, description, release_date, duration) VALUES (?, ?, ?, ?)",
+                    new String[]{"id"});
+            bind(statement, film);
+            return statement;
+        }, keyHolder);
+        film.setId(keyHolder.getKeyAs(Long.class));
+        film.setVersion(Versions.INITIAL);
+        return film;
+    }
+
+    @Override
+    @Transactional
+    public List<Film> createAll(List<Film> films) {
+        if (films.isEmpty()) {
+            return films;
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbc.batchUpdate(connection -> connection.prepareStatement(
+                        "INSERT INTO films (name, description, release_date, duration) VALUES (?, ?, ?, ?)", new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement statement, int i) throws SQLException {
+                        bind(statement, films.get(i));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return films.size();
+                    }
+                }, keyHolder);
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < films.size(); i++) {
+            films.get(i).setId(((Number) keys.get(i).get("id")).longValue());
+            films.get(i).setVersion(Versions.INITIAL);
+        }
+        return films;
+    }
+
+    // Версия сверяется в самом UPDATE: строка меняется, только если её версия всё ещё та, что прочитана.
+    @Override
+    public Film update(Film film) {
+        Long expected = film.getVersion();
+        while (true) {
+            Long current = version(film.getId());
+            if (current == null) {
+                return null;
+            }
+            long next = Versions.next("Фильм", film.getId(), expected, current);
+            int updated = jdbc.update(connection -> {
+                PreparedStatement statement = connection.prepareStatement("UPDATE films SET name = ?, description = ?,"
+                        + " release_date = ?, duration = ?, version = ? WHERE id = ? AND version = ?");
+                bind(statement, film);
+                statement.setLong(5, next);
+                statement.setLong(6, film.getId());
+                statement.setLong(7, current);
+                return statement;
+            });
+            if (updated > 0) {
+                film.setVersion(next);
+                return film;
+            }
+        }
+    }
+
+    private Long version(long id) {
+        return jdbc.query("SELECT version FROM films WHERE id = ?", (rs, rowNum) -> rs.getLong(1), id).stream()
+                .findFirst()
+                .orElse(null);
+    }
+
+    @Override
+    public boolean delete(Long id) {
+        return jdbc.update("DELETE FROM films WHERE id = ?", id) > 0;
+    }
+
+    @Override
+    public boolean exists(Long id) {
+        return Boolean.TRUE.equals(jdbc.queryForObject("SELECT EXISTS (SELECT 1 FROM films WHERE id = ?)",
+                Boolean.class, id));
+    }
+
+    @Override
+    public int count() {
+        Integer count = jdbc.queryForObject("SELECT COUNT(*) FROM films", Integer.class);
+        return count == null ? 0 : count;
+    }
+
+    static Film mapRow(ResultSet rs, int rowNum) throws SQLException {
+        Film film = new Film();
+        film.setId(rs.getLong("id"));
+        film.setName(rs.getString("name"));
+        film.setDescription(rs.getString("description"));
+        Date releaseDate = rs.getDate("release_date");
+        film.setReleaseDate(releaseDate == null ? null : releaseDate.toLocalDate());
+        film.setDuration(rs.getObject("duration", Integer.class));
+        film.setVersion(rs.getLong("version"));
+        return film;
+    }
+
+    private static void bind(PreparedStatement statement, Film film) throws SQLException {
+        statement.setString(1, film.getName());
+        statement.setString(2, film.getDescription());
+        statement.setObject(3, film.getReleaseDate(), Types.DATE);
+        statement.setObject(4, film.getDuration(), Types.INTEGER);
+    }
+}
@@ -0,0 +1,111 @@
+package ru.yandex.practicum.filmorate.storage.jdbc;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.storage.FriendshipStorage;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+@Component
+@Timed(value = "filmorate.storage", histogram = true)
+@ConditionalOnProperty(name = "filmorate.storage.type", havingValue = "jdbc")
+@RequiredArgsConstructor
+public class JdbcFriendshipStorage implements FriendshipStorage {
+    private final JdbcTemplate jdbc;
+    private final NamedParameterJdbcTemplate namedJdbc;
+
+    // Обе строки дружбы уходят одним пакетом в одной транзакции.
+    @Override
+    @Transactional
+    public boolean addFriend(Long userId, Long friendId) {
+        try {
+            jdbc.batchUpdate("INSERT INTO friendships (user_id, friend_id) VALUES (?, ?)",
+                    List.of(new Object[]{userId, friendId}, new Object[]{friendId, userId}));
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    @Override
+    @Transactional
+    public boolean[] addFriends(List<Friendship> friendships) {
+        boolean[] added = new boolean[friendships.size()];
+        if (friendships.isEmpty()) {
+            return added;
+        }
+        List<Long> ids = friendships.stream()
+                .flatMap(friendship -> Stream.of(friendship.getUserId(), friendship.getFriendId()))
+                .distinct()
+                .toList();
+        Set<Friendship> present = new HashSet<>(namedJdbc.query(
+                "SELECT user_id, friend_id FROM friendships WHERE user_id IN (:ids) AND friend_id IN (:ids)",
+                Map.of("ids", ids),
+                (rs, rowNum) -> new Friendship(rs.getLong("user_id"), rs.getLong("friend_id"))));
+
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < friendships.size(); i++) {
+            Friendship friendship = friendships.get(i);
+            added[i] = present.add(friendship);
+            if (added[i]) {
+                present.add(new Friendship(friendship.getFriendId(), friendship.getUserId()));
+                rows.add(new Object[]{friendship.getUserId(), friendship.getFriendId()});
+                rows.add(new Object[]{friendship.getFriendId(), friendship.getUserId()});
+            }
+        }
+        jdbc.batchUpdate("INSERT INTO friendships (user_id, friend_id) VALUES (?, ?)", rows);
+        return added;
+    }
+
+    @Override
+    @Transactional
+    public boolean removeFriend(Long userId, Long friendId) {
+        int[] removed = jdbc.batchUpdate("DELETE FROM friendships WHERE user_id = ? AND friend_id = ?",
+                List.of(new Object[]{userId, friendId}, new Object[]{friendId, userId}));
+        return removed[0] > 0;
+    }
+
+    // Дружба хранится двумя строками; строки, где пользователь — друг, находятся по friendships_friend_id_idx.
+    @Override
+    @Transactional
+    public long[] removeFriends(Long userId) {
+        long[] friends = getFriendIds(userId).stream().mapToLong(Long::longValue).toArray();
+        jdbc.update("DELETE FROM friendships WHERE user_id = ? OR friend_id = ?", userId, userId);
+        return friends;
+    }
+
+    @Override
+    public List<Long> getFriendIds(Long userId) {
+        return jdbc.queryForList("SELECT friend_id FROM friendships WHERE user_id = ? ORDER BY friend_id",
+                Long.class, userId);
+    }
+
+    @Override
+    public Map<Long, long[]> getFriendIdsByUser(List<Long> userIds) {
+        return IdLists.query(namedJdbc,
+                "SELECT user_id, friend_id FROM friendships WHERE user_id IN (:ids) ORDER BY user_id, friend_id",
+                userIds);
+    }
+
+    @Override
+    public List<Long> getCommonFriendIds(Long userId, Long otherId) {
+        return jdbc.queryForList("""
+                SELECT f1.friend_id
+                FROM friendships f1
+                JOIN friendships f2 ON f2.friend_id = f1.friend_id AND f2.user_id = ?
+                WHERE f1.user_id = ?
+                ORDER BY f1.friend_id""", Long.class, otherId, userId);
+    }
+}
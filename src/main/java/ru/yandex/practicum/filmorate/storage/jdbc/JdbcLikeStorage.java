@@ -0,0 +1,163 @@
+package ru.yandex.practicum.filmorate.storage.jdbc;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.storage.LikeStorage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Component
+@Timed(value = "filmorate.storage", histogram = true)
+@ConditionalOnProperty(name = "filmorate.storage.type", havingValue = "jdbc")
+@RequiredArgsConstructor
+public class JdbcLikeStorage implements LikeStorage {
+    private static final String INSERT_LIKE = """
+            INSERT INTO likes (film_id, user_id)
+            SELECT CAST(? AS BIGINT), CAST(? AS BIGINT)
+            WHERE NOT EXISTS (SELECT 1 FROM likes WHERE film_id = ? AND user_id = ?)""";
+
+    private final JdbcTemplate jdbc;
+    private final NamedParameterJdbcTemplate namedJdbc;
+
+    // Вставка и счётчик меняются под блокировкой строки фильма: параллельная вставка того же лайка
+    // ждёт её и видит уже вставленную строку, а не падает на первичном ключе.
+    @Override
+    @Transactional
+    public boolean addLike(Long filmId, Long userId) {
+        lockFilms(List.of(filmId));
+        if (jdbc.update(INSERT_LIKE, filmId, userId, filmId, userId) == 0) {
+            return false;
+        }
+        jdbc.update("UPDATE films SET likes_count = likes_count + 1 WHERE id = ?", filmId);
+        return true;
+    }
+
+    // Лайки вставляются одним пакетом, добавленные определяются по числу вставленных строк каждой записи пакета.
+    @Override
+    @Transactional
+    public boolean[] addLikes(List<Like> likes) {
+        boolean[] added = new boolean[likes.size()];
+        if (likes.isEmpty()) {
+            return added;
+        }
+        lockFilms(likes.stream().map(Like::getFilmId).distinct().toList());
+
+        Set<Like> seen = new HashSet<>();
+        List<Integer> positions = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < likes.size(); i++) {
+            Like like = likes.get(i);
+            if (seen.add(like)) {
+                positions.add(i);
+                rows.add(new Object[]{like.getFilmId(), like.getUserId(), like.getFilmId(), like.getUserId()});
+            }
+        }
+        int[] inserted = jdbc.batchUpdate(INSERT_LIKE, rows);
+
+        Map<Long, Integer> delta = new HashMap<>();
+        for (int i = 0; i < inserted.length; i++) {
+            if (inserted[i] > 0) {
+                int position = positions.get(i);
+                added[position] = true;
+                delta.merge(likes.get(position).getFilmId(), 1, Integer::sum);
+            }
+        }
+        jdbc.batchUpdate("UPDATE films SET likes_count = likes_count + ? WHERE id = ?", delta.entrySet().stream()
+                .map(entry -> new Object[]{entry.getValue(), entry.getKey()})
+                .toList());
+        return added;
+    }
+
+    @Override
+    @Transactional
+    public boolean removeLike(Long filmId, Long userId) {
+        lockFilms(List.of(filmId));
+        if (jdbc.update("DELETE FROM likes WHERE film_id = ? AND user_id = ?", filmId, userId) == 0) {
+            return false;
+        }
+        jdbc.update("UPDATE films SET likes_count = likes_count - 1 WHERE id = ?", filmId);
+        return true;
+    }
+
+    @Override
+    public List<Long> getLikedFilmIds(Long userId) {
+        return jdbc.queryForList("SELECT film_id FROM likes WHERE user_id = ? ORDER BY film_id", Long.class, userId);
+    }
+
+    // Выборки идут по индексу likes_user_id_idx. Удаляются только лайки фильмов, чьи строки заблокированы,
+    // поэтому счётчики уменьшаются ровно на удалённое.
+    @Override
+    @Transactional
+    public long[] removeLikesByUser(Long userId) {
+        List<Long> liked = getLikedFilmIds(userId);
+        if (liked.isEmpty()) {
+            return new long[0];
+        }
+        lockFilms(liked);
+        Map<String, Object> params = Map.of("userId", userId, "filmIds", liked);
+        List<Long> films = namedJdbc.queryForList(
+                "SELECT film_id FROM likes WHERE user_id = :userId AND film_id IN (:filmIds) ORDER BY film_id",
+                params, Long.class);
+        if (films.isEmpty()) {
+            return new long[0];
+        }
+        namedJdbc.update("DELETE FROM likes WHERE user_id = :userId AND film_id IN (:filmIds)", params);
+        namedJdbc.update("UPDATE films SET likes_count = likes_count - 1 WHERE id IN (:ids)", Map.of("ids", films));
+        return films.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    @Override
+    public boolean hasLike(Long filmId, Long userId) {
+        return Boolean.TRUE.equals(jdbc.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM likes WHERE film_id = ? AND user_id = ?)", Boolean.class,
+                filmId, userId));
+    }
+
+    @Override
+    public int getLikesCount(Long filmId) {
+        Integer count = jdbc.queryForObject("SELECT COUNT(*) FROM likes WHERE film_id = ?", Integer.class, filmId);
+        return count == null ? 0 : count;
+    }
+
+    // Первые N читаются по индексу films_likes_count_idx. Фильмы без лайков тоже попадают в выборку,
+    // поэтому дополнять её в сервисе не приходится.
+    @Override
+    public List<Long> getPopularFilmIds(int count) {
+        return jdbc.queryForList("SELECT id FROM films ORDER BY likes_count DESC, id LIMIT ?", Long.class, count);
+    }
+
+    @Override
+    public Map<Long, long[]> getLikerIdsByFilm(List<Long> filmIds) {
+        return IdLists.query(namedJdbc,
+                "SELECT film_id, user_id FROM likes WHERE film_id IN (:ids) ORDER BY film_id, user_id", filmIds);
+    }
+
+    @Override
+    public Map<Long, long[]> getLikedFilmIdsByUser(List<Long> userIds) {
+        return IdLists.query(namedJdbc,
+                "SELECT user_id, film_id FROM likes WHERE user_id IN (:ids) ORDER BY user_id, film_id", userIds);
+    }
+
+    @Override
+    public List<Long> getMostActiveUserIds(int count) {
+        return jdbc.queryForList("SELECT user_id FROM likes GROUP BY user_id ORDER BY COUNT(*) DESC, user_id LIMIT ?",
+                Long.class, count);
+    }
+
+    // Строки фильмов блокируются по возрастанию id, поэтому пачки не ждут друг друга по кругу.
+    private void lockFilms(List<Long> filmIds) {
+        namedJdbc.queryForList("SELECT id FROM films WHERE id IN (:ids) ORDER BY id FOR UPDATE",
+                Map.of("ids", filmIds), Long.class);
+    }
+}
@@ -0,0 +1,220 @@
+package ru.yandex.practicum.filmorate.storage.jdbc;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exception.ConflictException;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.storage.Versions;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Component
+@Timed(value = "filmorate.storage", histogram = true)
+@ConditionalOnProperty(name = "filmorate.storage.type", havingValue = "jdbc")
+@RequiredArgsConstructor
+public class JdbcUserStorage implements UserStorage {
+    private static final String SELECT = "SELECT id, email, login, name, birthday, version FROM users";
+
+    private final JdbcTemplate jdbc;
+    private final NamedParameterJdbcTemplate namedJdbc;
+
+    @Override
+    public List<User> getAll() {
+        return jdbc.query(SELECT + " ORDER BY id", JdbcUserStorage::mapRow);
+    }
+
+    @Override
+    public User get(Long id) {
+        return jdbc.query(SELECT + " WHERE id = ?", JdbcUserStorage::mapRow, id).stream()
+                .findFirst()
+                .orElse(null);
+    }
+
+    @Override
+    public List<User> getByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, User> users = namedJdbc.query(SELECT + " WHERE id IN (:ids)", Map.of("ids", ids),
+                        JdbcUserStorage::mapRow).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        return ids.stream()
+                .map(users::get)
+                .filter(user -> user != null)
+                .toList();
+    }
+
+    @Override
+    public List<User> getPage(long afterId, int limit) {
+        return jdbc.query(SELECT + " WHERE id > ? ORDER BY id LIMIT ?", JdbcUserStorage::mapRow, afterId, limit);
+    }
+
+    @Override
+    public User getByEmail(String email) {
+        return jdbc.query(SELECT + " WHERE email_lower = LOWER(?)", JdbcUserStorage::mapRow, email).stream()
+                .findFirst()
+                .orElse(null);
+    }
+
+    @Override
+    public User getByLogin(String login) {
+        return jdbc.query(SELECT + " WHERE login = ?", JdbcUserStorage::mapRow, login).stream()
+                .findFirst()
+                .orElse(null);
+    }
+
+    @Override
+    public User create(User user) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        try {
+            jdbc.update(connection -> {
+                PreparedStatement statement = connection.prepareStatement(
+                        "INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)", new String[]{"id"});
+                bind(statement, user);
+                return statement;
+            }, keyHolder);
+        } catch (DuplicateKeyException e) {
+            throw conflict(user, e);
+        }
+        user.setId(keyHolder.getKeyAs(Long.class));
+        user.setVersion(Versions.INITIAL);
+        return user;
+    }
+
+    @Override
+    @Transactional
+    public List<User> createAll(List<User> users) {
+        if (users.isEmpty()) {
+            return users;
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        try {
+            jdbc.batchUpdate(connection -> connection.prepareStatement(
+                            "INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)", new String[]{"id"}),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement statement, int i) throws SQLException {
+                            bind(statement, users.get(i));
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return users.size();
+                        }
+                    }, keyHolder);
+        } catch (DuplicateKeyException e) {
+            throw new ConflictException("Email или логин пользователя из пачки уже заняты");
+        }
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < users.size(); i++) {
+            users.get(i).setId(((Number) keys.get(i).get("id")).longValue());
+            users.get(i).setVersion(Versions.INITIAL);
+        }
+        return users;
+    }
+
+    // Версия сверяется в самом UPDATE, как в JdbcFilmStorage.
+    @Override
+    public User update(User user) {
+        Long expected = user.getVersion();
+        while (true) {
+            Long current = version(user.getId());
+            if (current == null) {
+                return null;
+            }
+            long next = Versions.next("Пользователь", user.getId(), expected, current);
+            int updated;
+            try {
+                updated = jdbc.update(connection -> {
+                    PreparedStatement statement = connection.prepareStatement("UPDATE users SET email = ?, login = ?,"
+                            + " name = ?, birthday = ?, version = ? WHERE id = ? AND version = ?");
+                    bind(statement, user);
+                    statement.setLong(5, next);
+                    statement.setLong(6, user.getId());
+                    statement.setLong(7, current);
+                    return statement;
+                });
+            } catch (DuplicateKeyException e) {
+                throw conflict(user, e);
+            }
+            if (updated > 0) {
+                user.setVersion(next);
+                return user;
+            }
+        }
+    }
+
+    private Long version(long id) {
+        return jdbc.query("SELECT version FROM users WHERE id = ?", (rs, rowNum) -> rs.getLong(1), id).stream()
+                .findFirst()
+                .orElse(null);
+    }
+
+    @Override
+    public boolean delete(Long id) {
+        return jdbc.update("DELETE FROM users WHERE id = ?", id) > 0;
+    }
+
+    @Override
+    public boolean exists(Long id) {
+        return Boolean.TRUE.equals(jdbc.queryForObject("SELECT EXISTS (SELECT 1 FROM users WHERE id = ?)",
+                Boolean.class, id));
+    }
+
+    @Override
+    public int count() {
+        Integer count = jdbc.queryForObject("SELECT COUNT(*) FROM users", Integer.class);
+        return count == null ? 0 : count;
+    }
+
+    static User mapRow(ResultSet rs, int rowNum) throws SQLException {
+        User user = new User();
+        user.setId(rs.getLong("id"));
+        user.setEmail(rs.getString("email"));
+        user.setLogin(rs.getString("login"));
+        user.setName(rs.getString("name"));
+        Date birthday = rs.getDate("birthday");
+        user.setBirthday(birthday == null ? null : birthday.toLocalDate());
+        user.setVersion(rs.getLong("version"));
+        return user;
+    }
+
+    // Нарушение уникального индекса переводится в конфликт с указанием занятого поля.
+    private ConflictException conflict(User user, DuplicateKeyException e) {
+        User owner = getByEmail(user.getEmail());
+        if (owner != null && !owner.getId().equals(user.getId())) {
+            return new ConflictException("Пользователь с email " + user.getEmail() + " уже существует");
+        }
+        owner = getByLogin(user.getLogin());
+        if (owner != null && !owner.getId().equals(user.getId())) {
+            return new ConflictException("Пользователь с логином " + user.getLogin() + " уже существует");
+        }
+        return new ConflictException("Email или логин пользователя уже заняты");
+    }
+
+    private static void bind(PreparedStatement statement, User user) throws SQLException {
+        statement.setString(1, user.getEmail());
+        statement.setString(2, user.getLogin());
+        statement.setString(3, user.getName());
+        statement.setObject(4, user.getBirthday(), Types.DATE);
+    }
+}
@@ -0,0 +1,55 @@
+CREATE TABLE IF NOT EXISTS films (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name         VARCHAR(255) NOT NULL,
+    description  VARCHAR(200),
+    release_date DATE,
+    duration     INTEGER
+);
+
+-- Версия меняется при каждом обновлении и сверяется в UPDATE ... WHERE version = ?.
+ALTER TABLE films ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 1 NOT NULL;
+
+-- Индексы поиска фильмов: диапазоны дат и продолжительностей, начало названия без учёта регистра.
+ALTER TABLE films ADD COLUMN IF NOT EXISTS name_lower VARCHAR(255) GENERATED ALWAYS AS (LOWER(name));
+CREATE INDEX IF NOT EXISTS films_release_date_idx ON films (release_date);
+CREATE INDEX IF NOT EXISTS films_duration_idx ON films (duration);
+CREATE INDEX IF NOT EXISTS films_name_lower_idx ON films (name_lower);
+
+CREATE TABLE IF NOT EXISTS users (
+    id       BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email    VARCHAR(255) NOT NULL,
+    login    VARCHAR(255) NOT NULL,
+    name     VARCHAR(255),
+    birthday DATE
+);
+
+ALTER TABLE users ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 1 NOT NULL;
+
+-- Email уникален без учёта регистра, логин — точно.
+ALTER TABLE users ADD COLUMN IF NOT EXISTS email_lower VARCHAR(255) GENERATED ALWAYS AS (LOWER(email));
+CREATE UNIQUE INDEX IF NOT EXISTS users_email_lower_uq ON users (email_lower);
+CREATE UNIQUE INDEX IF NOT EXISTS users_login_uq ON users (login);
+
+CREATE TABLE IF NOT EXISTS likes (
+    film_id BIGINT NOT NULL REFERENCES films (id) ON DELETE CASCADE,
+    user_id BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    PRIMARY KEY (film_id, user_id)
+);
+
+CREATE INDEX IF NOT EXISTS likes_user_id_idx ON likes (user_id);
+
+-- Число лайков меняется в одной транзакции со вставкой и удалением лайка; первые N популярных
+-- читаются по индексу без агрегации таблицы likes. При запуске счётчик сверяется с likes:
+-- так он заполняется у баз, созданных до появления столбца.
+ALTER TABLE films ADD COLUMN IF NOT EXISTS likes_count INTEGER DEFAULT 0 NOT NULL;
+UPDATE films f SET likes_count = (SELECT COUNT(*) FROM likes l WHERE l.film_id = f.id);
+CREATE INDEX IF NOT EXISTS films_likes_count_idx ON films (likes_count DESC, id);
+
+-- Дружба взаимная и хранится двумя строками: (user_id, friend_id) и (friend_id, user_id).
+CREATE TABLE IF NOT EXISTS friendships (
+    user_id   BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    friend_id BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    PRIMARY KEY (user_id, friend_id)
+);
+
+CREATE INDEX IF NOT EXISTS friendships_friend_id_idx ON friendships (friend_id);
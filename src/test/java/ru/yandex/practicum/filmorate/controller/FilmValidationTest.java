@@ -1,19 +1,38 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Validation;
 import jakarta.validation.Validator;
 import jakarta.validation.ValidatorFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.PreconditionFailedException;
+import ru.yandex.practicum.filmorate.exception.VersionConflictException;
+import ru.yandex.practicum.filmorate.model.BatchResult;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.DataChange;
+import ru.yandex.practicum.filmorate.service.FilmRecommendations;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.FilmTextSearch;
+import ru.yandex.practicum.filmorate.service.TrendingFilms;
+import ru.yandex.practicum.filmorate.service.UserLocks;
 import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryLikeStorage;
 import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -26,19 +45,85 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 class FilmValidationTest {
 
     private FilmController filmController;
+    private FilmService filmService;
+    private ObjectMapper objectMapper;
+    private InMemoryUserStorage userStorage;
     private LocalDate minReleaseDate;
     private Validator validator;
 
     @BeforeEach
     void setUp() {
-        FilmService filmService = new FilmService(new InMemoryFilmStorage(), new InMemoryUserStorage());
-        filmController = new FilmController(filmService);
+        userStorage = new InMemoryUserStorage();
+        InMemoryLikeStorage likeStorage = new InMemoryLikeStorage();
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        objectMapper = new ObjectMapper().findAndRegisterModules();
+        ResponseCache responseCache = new ResponseCache(objectMapper, DataSize.ofMegabytes(1));
+        filmService = new FilmService(filmStorage, userStorage, likeStorage,
+                new FilmRecommendations(likeStorage, 0, Duration.ofMinutes(10)), new TrendingFilms(),
+                new FilmTextSearch(filmStorage), new UserLocks(), event -> responseCache.onChange((DataChange) event));
+        filmController = new FilmController(filmService, objectMapper, responseCache);
         minReleaseDate = LocalDate.of(1895, 12, 28);
 
         ValidatorFactory factory = Validation.buildDefaultValidatorFactory();
         validator = factory.getValidator();
     }
 
+    @Test
+    void whenLikesAddedInBatch_thenEachItemReported() throws IOException {
+        Film film = filmController.create(createValidFilm());
+        User user = new User();
+        user.setEmail("user@example.com");
+        user.setLogin("user");
+        Long userId = userStorage.create(user).getId();
+
+        List<BatchResult> results = filmController.addLikes(Arrays.asList(
+                new Like(film.getId(), userId),
+                new Like(film.getId(), userId),
+                new Like(999L, userId),
+                new Like(film.getId(), null),
+                null));
+
+        assertEquals(List.of(BatchResult.Status.APPLIED, BatchResult.Status.UNCHANGED, BatchResult.Status.REJECTED,
+                        BatchResult.Status.REJECTED, BatchResult.Status.REJECTED),
+                results.stream().map(BatchResult::getStatus).toList());
+        assertEquals("Фильм с id = 999 не найден", results.get(2).getError());
+        assertEquals(List.of(film), objectMapper.readValue(filmController.getPopularFilms(10).getBody(),
+                new TypeReference<List<Film>>() {
+                }));
+    }
+
+    @Test
+    void whenFewFilmsLiked_thenPopularPaddedWithUnlikedFilmsById() throws IOException {
+        for (int i = 0; i < 4; i++) {
+            filmController.create(createValidFilm());
+        }
+        User user = new User();
+        user.setEmail("user@example.com");
+        user.setLogin("user");
+        Long userId = userStorage.create(user).getId();
+        filmController.addLike(3L, userId);
+
+        assertEquals(List.of(3L, 1L, 2L), popularIds(3));
+        assertEquals(List.of(3L, 1L, 2L, 4L), popularIds(10));
+    }
+
+    @Test
+    void whenFilmsChangedBypassingController_thenCachedResponsesRefreshed() throws IOException {
+        Film film = filmController.create(createValidFilm());
+        assertEquals(List.of(film.getId()), popularIds(10));
+        filmController.getFilm(film.getId());
+
+        filmService.createAll(List.of(createValidFilm()));
+        Film renamed = createValidFilm();
+        renamed.setId(film.getId());
+        renamed.setName("Переименован");
+        filmService.update(renamed);
+
+        assertEquals(List.of(film.getId(), film.getId() + 1), popularIds(10));
+        assertEquals("Переименован",
+                objectMapper.readValue(filmController.getFilm(film.getId()).getBody(), Film.class).getName());
+    }
+
     @Test
     void whenCreateValidFilm_thenFilmCreated() {
         Film film = createValidFilm();
@@ -92,18 +177,44 @@ class FilmValidationTest {
         updatedFilm.setName("Updated Film");
         updatedFilm.setDescription("Updated description");
 
-        Film result = filmController.update(updatedFilm);
+        Film result = filmController.update(updatedFilm, null).getBody();
 
         assertEquals(updatedFilm.getName(), result.getName());
         assertEquals(updatedFilm.getDescription(), result.getDescription());
     }
 
+    @Test
+    void whenUpdatedWithStaleVersion_thenConflictOrPreconditionFailed() {
+        Film createdFilm = filmController.create(createValidFilm());
+        assertEquals(1L, createdFilm.getVersion());
+
+        Film firstEdit = createValidFilm();
+        firstEdit.setId(createdFilm.getId());
+        ResponseEntity<Film> response = filmController.update(firstEdit, "\"1\"");
+        assertEquals("\"2\"", response.getHeaders().getETag());
+
+        Film weakEdit = createValidFilm();
+        weakEdit.setId(createdFilm.getId());
+        assertThrows(PreconditionFailedException.class, () -> filmController.update(weakEdit, "W/\"2\""));
+
+        Film staleEdit = createValidFilm();
+        staleEdit.setId(createdFilm.getId());
+        staleEdit.setVersion(1L);
+        assertThrows(VersionConflictException.class, () -> filmController.update(staleEdit, null));
+        staleEdit.setVersion(null);
+        assertThrows(PreconditionFailedException.class, () -> filmController.update(staleEdit, "\"1\""));
+
+        staleEdit.setVersion(null);
+        staleEdit.setName("Без версии");
+        assertEquals(3L, filmController.update(staleEdit, null).getBody().getVersion());
+    }
+
     @Test
     void whenUpdateFilmWithNullId_thenThrowValidationException() {
         Film film = createValidFilm();
         film.setId(null);
 
-        assertThrows(IllegalArgumentException.class, () -> filmController.update(film));
+        assertThrows(IllegalArgumentException.class, () -> filmController.update(film, null));
     }
 
     @Test
@@ -111,7 +222,7 @@ class FilmValidationTest {
         Film film = createValidFilm();
         film.setId(999L);
 
-        assertThrows(NotFoundException.class, () -> filmController.update(film));
+        assertThrows(NotFoundException.class, () -> filmController.update(film, null));
     }
 
     @Test
@@ -123,7 +234,7 @@ class FilmValidationTest {
         updatedFilm.setId(createdFilm.getId());
         updatedFilm.setReleaseDate(minReleaseDate.minusDays(1));
 
-        assertThrows(IllegalArgumentException.class, () -> filmController.update(updatedFilm));
+        assertThrows(IllegalArgumentException.class, () -> filmController.update(updatedFilm, null));
     }
 
     @Test
@@ -172,7 +283,7 @@ class FilmValidationTest {
         updatedFilm.setId(createdFilm.getId());
         updatedFilm.setReleaseDate(null);
 
-        Film result = filmController.update(updatedFilm);
+        Film result = filmController.update(updatedFilm, null).getBody();
 
         assertNull(result.getReleaseDate());
     }
@@ -328,6 +439,12 @@ class FilmValidationTest {
         assertTrue(violations.isEmpty());
     }
 
+    private List<Long> popularIds(int count) throws IOException {
+        return objectMapper.readValue(filmController.getPopularFilms(count).getBody(),
+                new TypeReference<List<Film>>() {
+                }).stream().map(Film::getId).toList();
+    }
+
     private Film createValidFilm() {
         Film film = new Film();
         film.setName("Valid Film");
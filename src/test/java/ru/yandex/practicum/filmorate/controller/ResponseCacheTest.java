@@ -0,0 +1,132 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
+import ru.yandex.practicum.filmorate.exception.PreconditionFailedException;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ResponseCacheTest {
+
+    private ResponseCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ResponseCache(new ObjectMapper().findAndRegisterModules(), DataSize.ofMegabytes(1));
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void whenFilmRequestedTwice_thenLoadedOnceWithSameBodyAndEtag() {
+        ResponseEntity<byte[]> first = cache.film(1, () -> load(film(1, "Фильм")));
+        ResponseEntity<byte[]> second = cache.film(1, () -> load(film(1, "Фильм")));
+
+        assertEquals(1, loads.get());
+        assertArrayEquals(first.getBody(), second.getBody());
+        assertEquals(first.getHeaders().getETag(), second.getHeaders().getETag());
+    }
+
+    @Test
+    void whenFilmUpdated_thenReloadedWithNewEtag() {
+        ResponseEntity<byte[]> before = cache.film(1, () -> load(film(1, "Фильм")));
+
+        cache.filmUpdated(1);
+        ResponseEntity<byte[]> after = cache.film(1, () -> load(film(1, "Новое название")));
+
+        assertEquals(2, loads.get());
+        assertNotEquals(before.getHeaders().getETag(), after.getHeaders().getETag());
+    }
+
+    @Test
+    void whenFilmVersioned_thenEtagIsVersion() {
+        Film film = film(1, "Фильм");
+        film.setVersion(3L);
+
+        ResponseEntity<byte[]> response = cache.film(1, () -> film);
+
+        assertEquals("\"3\"", response.getHeaders().getETag());
+        assertEquals(3L, VersionTags.parseIfMatch(" \"3\" "));
+        assertThrows(PreconditionFailedException.class, () -> VersionTags.parseIfMatch("W/\"3\""));
+        assertThrows(PreconditionFailedException.class, () -> VersionTags.parseIfMatch("\"abc\""));
+    }
+
+    @Test
+    void whenOtherFilmUpdated_thenCachedFilmKept() {
+        cache.film(1, () -> load(film(1, "Фильм")));
+
+        cache.filmUpdated(2);
+        cache.film(1, () -> load(film(1, "Фильм")));
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void whenLikeCannotChangeFullPopularList_thenListKept() {
+        // В списке из двух фильмов у последнего 5 лайков; фильм 3 с двумя лайками в него не попадает.
+        IntFunction<List<Film>> popular = count -> load(List.of(film(1, "Первый"), film(2, "Второй")));
+        cache.popular(2, popular, filmId -> 5);
+
+        cache.likeAdded(3, 2);
+        cache.popular(2, popular, filmId -> 5);
+        assertEquals(1, loads.get());
+
+        cache.likeAdded(3, 5);
+        cache.popular(2, popular, filmId -> 5);
+        assertEquals(2, loads.get());
+
+        cache.likeRemoved(2);
+        cache.popular(2, popular, filmId -> 5);
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void whenFilmCreated_thenOnlyIncompletePopularListsDropped() {
+        cache.popular(1, count -> load(List.of(film(1, "Первый"))), filmId -> 0);
+        cache.popular(5, count -> load(List.of(film(1, "Первый"))), filmId -> 0);
+
+        cache.filmsCreated();
+        cache.popular(1, count -> load(List.of(film(1, "Первый"))), filmId -> 0);
+        cache.popular(5, count -> load(List.of(film(1, "Первый"), film(2, "Второй"))), filmId -> 0);
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void whenLikesChangeWhilePopularListLoads_thenLoadedListNotCached() {
+        cache.popular(2, count -> {
+            cache.likesChanged();
+            return load(List.of(film(1, "Первый")));
+        }, filmId -> 1);
+
+        cache.popular(2, count -> load(List.of(film(1, "Первый"))), filmId -> 1);
+
+        assertEquals(2, loads.get());
+    }
+
+    private <T> T load(T value) {
+        loads.incrementAndGet();
+        return value;
+    }
+
+    private static Film film(long id, String name) {
+        Film film = new Film();
+        film.setId(id);
+        film.setName(name);
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        return film;
+    }
+}
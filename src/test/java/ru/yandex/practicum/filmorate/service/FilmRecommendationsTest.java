@@ -0,0 +1,94 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.InMemoryLikeStorage;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FilmRecommendationsTest {
+    private static final int USERS = 1000;
+    private static final int FILMS = 300;
+
+    private InMemoryLikeStorage storage;
+    private FilmRecommendations recommendations;
+    private Random random;
+
+    @BeforeEach
+    void setUp() {
+        storage = new InMemoryLikeStorage();
+        recommendations = new FilmRecommendations(storage, 10, Duration.ofMinutes(10));
+        random = new Random(42);
+        // Пользователь 1 лайкнул почти все фильмы: списки лайкнувших дают десятки тысяч id.
+        for (long film = 1; film <= 250; film++) {
+            storage.addLike(film, 1L);
+        }
+        for (int i = 0; i < 60_000; i++) {
+            storage.addLike(1L + random.nextInt(FILMS), 1L + random.nextInt(USERS));
+        }
+    }
+
+    @Test
+    void whenRanked_thenMatchesBruteForce() {
+        for (long userId : List.of(1L, 2L, 500L, 1000L)) {
+            assertEquals(bruteForce(userId), recommendations.recommend(userId, FilmRecommendations.MAX_RECOMMENDATIONS));
+        }
+    }
+
+    @Test
+    void whenUserHasNoLikes_thenNoRecommendations() {
+        assertEquals(List.of(), recommendations.recommend(USERS + 1, 10));
+    }
+
+    @Test
+    void whenPrecomputed_thenFilmsLikedSinceSkipped() {
+        long userId = storage.getMostActiveUserIds(1).get(0);
+        recommendations.precompute();
+        List<Long> before = recommendations.recommend(userId, 5);
+
+        storage.addLike(before.get(0), userId);
+
+        assertEquals(before.subList(1, 5), recommendations.recommend(userId, 4));
+        recommendations.precompute();
+        assertEquals(bruteForce(userId), recommendations.recommend(userId, FilmRecommendations.MAX_RECOMMENDATIONS));
+    }
+
+    private List<Long> bruteForce(long userId) {
+        Map<Long, Set<Long>> likedByUser = new HashMap<>();
+        for (long film = 1; film <= FILMS; film++) {
+            for (long user = 1; user <= USERS; user++) {
+                if (storage.hasLike(film, user)) {
+                    likedByUser.computeIfAbsent(user, id -> new HashSet<>()).add(film);
+                }
+            }
+        }
+        Set<Long> liked = likedByUser.getOrDefault(userId, Set.of());
+        Map<Long, Integer> overlaps = new HashMap<>();
+        likedByUser.forEach((user, films) -> {
+            int overlap = (int) films.stream().filter(liked::contains).count();
+            if (user != userId && overlap > 0) {
+                overlaps.put(user, overlap);
+            }
+        });
+        Map<Long, Integer> scores = new HashMap<>();
+        overlaps.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(FilmRecommendations.NEIGHBOURS)
+                .forEach(neighbour -> likedByUser.get(neighbour.getKey()).stream()
+                        .filter(film -> !liked.contains(film))
+                        .forEach(film -> scores.merge(film, neighbour.getValue(), Integer::sum)));
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(FilmRecommendations.MAX_RECOMMENDATIONS)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+}
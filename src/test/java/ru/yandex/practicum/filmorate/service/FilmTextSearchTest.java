@@ -0,0 +1,198 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FilmTextSearchTest {
+
+    private final InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+    private final FilmTextSearch search = new FilmTextSearch(filmStorage);
+
+    @Test
+    void whenTokenized_thenCyrillicLowercasedAndYoFolded() {
+        List<String> words = new ArrayList<>();
+        FilmTextSearch.tokenize("Ёжик в тумане, 1975-го: «ЁЛКИ»!", words::add);
+
+        assertEquals(List.of("ежик", "в", "тумане", "1975", "го", "елки"), words);
+    }
+
+    @Test
+    void whenRussianWordsInflected_thenSameTerm() {
+        assertEquals(List.of("ежик", "ежик", "ежик"), terms("ёжик ёжика ёжики"));
+        assertEquals(List.of("фильм", "фильм", "фильм"), terms("фильм фильмы фильмов"));
+        assertEquals(List.of("красив", "красив"), terms("красивая красивейший"));
+        assertEquals(List.of("matrix", "2"), terms("Matrix 2"));
+    }
+
+    @Test
+    void whenWordInName_thenRankedAboveWordInDescription() {
+        Film inDescription = put("Сказка", "Мультфильм про ежика и медвежонка");
+        Film inName = put("Ёжик в тумане", "Мультфильм Норштейна");
+        put("Другое", "Совсем другое кино");
+
+        assertEquals(List.of(inName.getId(), inDescription.getId()), search.search("ЕЖИК", 10));
+        assertEquals(List.of(), search.search("несуществующее", 10));
+        assertEquals(List.of(), search.search("  ", 10));
+    }
+
+    @Test
+    void whenFilmUpdated_thenOldTextNotFound() {
+        Film film = put("Старое название", "описание");
+        film.setName("Новое название");
+        filmStorage.update(film);
+        search.put(film);
+
+        assertEquals(List.of(), search.search("старое", 10));
+        assertEquals(List.of(film.getId()), search.search("новое", 10));
+    }
+
+    @Test
+    void whenOlderVersionIndexedLate_thenNewerTextKept() {
+        Film film = put("Исходное", "описание");
+        Film older = copy(film);
+        older.setName("Промежуточное");
+        filmStorage.update(older);
+        Film newer = copy(older);
+        newer.setName("Итоговое");
+        filmStorage.update(newer);
+
+        search.put(newer);
+        search.put(older);
+
+        assertEquals(List.of(), search.search("промежуточное", 10));
+        assertEquals(List.of(film.getId()), search.search("итоговое", 10));
+    }
+
+    @Test
+    void whenIndexBuiltFromStorage_thenExistingFilmsFound() {
+        Film film = new Film();
+        film.setName("Сталкер");
+        film.setDescription("Зона исполняет желания");
+        filmStorage.create(film);
+
+        search.afterPropertiesSet();
+
+        assertEquals(List.of(film.getId()), search.search("зона", 10));
+    }
+
+    @Test
+    void whenManyFilmsAndUpdates_thenTopScoresSameAsFullScan() {
+        Random random = new Random(7);
+        String[] vocabulary = new String[300];
+        for (int i = 0; i < vocabulary.length; i++) {
+            vocabulary[i] = "слово" + i;
+        }
+        Map<Long, Film> films = new HashMap<>();
+        for (int i = 0; i < 3_000; i++) {
+            Film film = put(text(random, vocabulary, 3), text(random, vocabulary, 20));
+            films.put(film.getId(), film);
+        }
+        // Столько же замен, сколько фильмов: последняя уплотняет индекс, и частоты слов снова точные.
+        for (int i = 0; i < 3_000; i++) {
+            Film film = films.get(1L + random.nextInt(films.size()));
+            film.setDescription(text(random, vocabulary, 20));
+            filmStorage.update(film);
+            search.put(film);
+        }
+
+        for (int i = 0; i < 50; i++) {
+            String query = text(random, vocabulary, 1 + random.nextInt(4));
+            Map<Long, Double> expected = bm25(films, query);
+            List<Double> expectedTop = expected.values().stream()
+                    .sorted((a, b) -> Double.compare(b, a))
+                    .limit(20)
+                    .toList();
+
+            List<Long> found = search.search(query, 20);
+
+            assertEquals(expectedTop.size(), found.size(), query);
+            for (int rank = 0; rank < found.size(); rank++) {
+                assertEquals(expectedTop.get(rank), expected.get(found.get(rank)), 1e-4, query);
+            }
+        }
+    }
+
+    private static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        FilmTextSearch.terms(text, terms::add);
+        return terms;
+    }
+
+    private static Film copy(Film film) {
+        Film copy = new Film();
+        copy.setId(film.getId());
+        copy.setName(film.getName());
+        copy.setDescription(film.getDescription());
+        copy.setVersion(film.getVersion());
+        return copy;
+    }
+
+    private Film put(String name, String description) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription(description);
+        filmStorage.create(film);
+        search.put(film);
+        return film;
+    }
+
+    // Оценка BM25 по определению: вес названия, k1 = 1.2, b = 0.75.
+    private static Map<Long, Double> bm25(Map<Long, Film> films, String query) {
+        Set<String> words = new LinkedHashSet<>();
+        FilmTextSearch.terms(query, words::add);
+        Map<Long, Map<String, Integer>> frequencies = new HashMap<>();
+        Map<Long, Integer> lengths = new HashMap<>();
+        long totalLength = 0;
+        for (Film film : films.values()) {
+            Map<String, Integer> counts = new HashMap<>();
+            int[] length = {0};
+            FilmTextSearch.terms(film.getName(), word -> {
+                counts.merge(word, FilmTextSearch.NAME_WEIGHT, Integer::sum);
+                length[0] += FilmTextSearch.NAME_WEIGHT;
+            });
+            FilmTextSearch.terms(film.getDescription(), word -> {
+                counts.merge(word, 1, Integer::sum);
+                length[0]++;
+            });
+            frequencies.put(film.getId(), counts);
+            lengths.put(film.getId(), length[0]);
+            totalLength += length[0];
+        }
+        double averageLength = (double) totalLength / films.size();
+
+        Map<Long, Double> scores = new HashMap<>();
+        for (String word : words) {
+            long containing = frequencies.values().stream().filter(counts -> counts.containsKey(word)).count();
+            double idf = Math.log(1 + (films.size() - containing + 0.5) / (containing + 0.5));
+            frequencies.forEach((filmId, counts) -> {
+                Integer frequency = counts.get(word);
+                if (frequency != null) {
+                    double norm = 1.2 * (1 - 0.75 + 0.75 * lengths.get(filmId) / averageLength);
+                    scores.merge(filmId, idf * frequency * 2.2 / (frequency + norm), Double::sum);
+                }
+            });
+        }
+        return scores;
+    }
+
+    private static String text(Random random, String[] vocabulary, int words) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            // Квадрат делает первые слова словаря частыми, а последние — редкими.
+            double position = random.nextDouble();
+            text.append(vocabulary[(int) (position * position * vocabulary.length)]).append(' ');
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,107 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.storage.InMemoryFriendshipStorage;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FriendRecommendationsTest {
+    private static final int USERS = 1500;
+
+    private InMemoryFriendshipStorage storage;
+    private FriendRecommendations recommendations;
+    private Random random;
+
+    @BeforeEach
+    void setUp() {
+        storage = new InMemoryFriendshipStorage();
+        recommendations = new FriendRecommendations(storage, USERS);
+        random = new Random(42);
+        // У пользователя 1 около 300 друзей с сотнями своих: десятки тысяч id, диапазон делится между задачами.
+        for (long friend = 2; friend <= 300; friend++) {
+            storage.addFriend(1L, friend);
+        }
+        for (int i = 0; i < 100_000; i++) {
+            long userId = 1 + random.nextInt(USERS);
+            long friendId = 1 + random.nextInt(USERS);
+            if (userId != friendId) {
+                storage.addFriend(userId, friendId);
+            }
+        }
+    }
+
+    @Test
+    void whenRanked_thenMatchesBruteForce() {
+        for (long userId : List.of(1L, 2L, 700L, 1500L)) {
+            assertEquals(bruteForce(userId), recommendations.recommend(userId, FriendRecommendations.MAX_RECOMMENDATIONS));
+        }
+    }
+
+    @Test
+    void whenUserHasNoFriends_thenNoRecommendations() {
+        assertEquals(List.of(), recommendations.recommend(USERS + 1, 10));
+    }
+
+    @Test
+    void whenFriendshipsChange_thenCachedRankingsStayExact() {
+        for (long userId = 1; userId <= USERS; userId++) {
+            recommendations.recommend(userId, FriendRecommendations.MAX_RECOMMENDATIONS);
+        }
+
+        for (int i = 0; i < 300; i++) {
+            long userId = 1 + random.nextInt(USERS);
+            long friendId = 1 + random.nextInt(USERS);
+            if (userId == friendId) {
+                continue;
+            }
+            boolean changed = random.nextBoolean()
+                    ? storage.addFriend(userId, friendId)
+                    : storage.removeFriend(userId, friendId);
+            if (changed) {
+                recommendations.friendshipChanged(userId, friendId);
+            }
+        }
+
+        for (long userId = 1; userId <= USERS; userId++) {
+            assertEquals(bruteForce(userId), recommendations.recommend(userId, FriendRecommendations.MAX_RECOMMENDATIONS),
+                    "Рекомендации пользователя " + userId);
+        }
+    }
+
+    @Test
+    void whenBatchAdded_thenAffectedRankingsRecomputed() {
+        recommendations.recommend(1L, 10);
+        List<Friendship> batch = List.of(new Friendship(1501L, 1502L), new Friendship(2L, 1502L));
+        storage.addFriends(batch);
+
+        recommendations.friendshipsChanged(batch);
+
+        assertEquals(bruteForce(1L), recommendations.recommend(1L, FriendRecommendations.MAX_RECOMMENDATIONS));
+    }
+
+    private List<Long> bruteForce(long userId) {
+        Set<Long> friends = new HashSet<>(storage.getFriendIds(userId));
+        Map<Long, Integer> mutual = new HashMap<>();
+        for (Long friend : friends) {
+            for (Long candidate : storage.getFriendIds(friend)) {
+                if (candidate != userId && !friends.contains(candidate)) {
+                    mutual.merge(candidate, 1, Integer::sum);
+                }
+            }
+        }
+        return mutual.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(FriendRecommendations.MAX_RECOMMENDATIONS)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+}
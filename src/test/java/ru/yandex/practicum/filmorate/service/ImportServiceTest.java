@@ -0,0 +1,108 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryFriendshipStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryLikeStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.StringJoiner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImportServiceTest {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    private InMemoryFilmStorage filmStorage;
+    private InMemoryUserStorage userStorage;
+    private ImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        filmStorage = new InMemoryFilmStorage();
+        userStorage = new InMemoryUserStorage();
+        InMemoryFriendshipStorage friendshipStorage = new InMemoryFriendshipStorage();
+        InMemoryLikeStorage likeStorage = new InMemoryLikeStorage();
+        FilmRecommendations filmRecommendations = new FilmRecommendations(likeStorage, 0, Duration.ofMinutes(10));
+        TrendingFilms trendingFilms = new TrendingFilms();
+        UserLocks userLocks = new UserLocks();
+        importService = new ImportService(objectMapper, Validation.buildDefaultValidatorFactory().getValidator(),
+                new FilmService(filmStorage, userStorage, likeStorage, filmRecommendations, trendingFilms,
+                        new FilmTextSearch(filmStorage), userLocks, event -> { }),
+                new UserService(userStorage, friendshipStorage, likeStorage,
+                        new FriendRecommendations(friendshipStorage, 1000), filmRecommendations, trendingFilms, userLocks,
+                        event -> { }));
+    }
+
+    @Test
+    void whenArraySpansSeveralChunks_thenValidRecordsImportedAndInvalidReported() throws IOException {
+        int records = ImportService.CHUNK_SIZE * 2 + 7;
+        StringJoiner body = new StringJoiner(",", "[", "]");
+        for (int i = 0; i < records; i++) {
+            String releaseDate = i % 100 == 0 ? "1800-01-01" : "2000-01-01";
+            body.add("{\"name\":\"Film " + i + "\",\"releaseDate\":\"" + releaseDate + "\",\"duration\":90}");
+        }
+
+        ImportResult result = importService.importFilms(stream(body.toString()));
+
+        assertTrue(result.isCompleted());
+        assertEquals(records - 11, result.getImported());
+        assertEquals(11, result.getRejected());
+        assertEquals(100, result.getErrors().get(1).getIndex());
+        assertEquals(records - 11, filmStorage.getAll().size());
+    }
+
+    @Test
+    void whenNdjsonBrokenMidway_thenRecordsBeforeBreakKept() throws IOException {
+        String body = """
+                {"email":"first@example.com","login":"first"}
+                {"email":"not-an-email","login":"second"}
+                {"email":"third@example.com","login":"third"}
+                {"email":""";
+
+        ImportResult result = importService.importUsers(stream(body));
+
+        assertFalse(result.isCompleted());
+        assertEquals(2, result.getImported());
+        assertEquals(2, result.getRejected());
+        assertEquals("first", userStorage.get(1L).getName());
+        assertEquals(3, result.getErrors().get(1).getIndex());
+    }
+
+    @Test
+    void whenUserKeysTaken_thenOnlyConflictingRecordsRejected() throws IOException {
+        String body = """
+                {"email":"first@example.com","login":"first"}
+                {"email":"second@example.com","login":"second"}
+                {"email":"FIRST@example.com","login":"other"}
+                {"email":"third@example.com","login":"second"}
+                """;
+
+        ImportResult result = importService.importUsers(stream(body));
+
+        assertEquals(2, result.getImported());
+        assertEquals(2, result.getRejected());
+        assertEquals(2, result.getErrors().get(0).getIndex());
+        assertEquals(3, result.getErrors().get(1).getIndex());
+        assertEquals(List.of("first", "second"), userStorage.getAll().stream().map(User::getLogin).toList());
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,225 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryLikeStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TrendingFilmsTest {
+
+    private ManualClock clock;
+    private TrendingFilms trending;
+
+    @BeforeEach
+    void setUp() {
+        clock = new ManualClock();
+        trending = new TrendingFilms(clock);
+    }
+
+    @Test
+    void whenLikesLeaveWindow_thenFilmDropsOut() {
+        trending.likeAdded(1L, 1L);
+        trending.likeAdded(1L, 2L);
+        clock.advance(Duration.ofMinutes(30));
+        trending.likeAdded(2L, 1L);
+
+        assertEquals(List.of(1L, 2L), top(TrendingFilms.Window.HOUR));
+
+        clock.advance(Duration.ofMinutes(31));
+        assertEquals(List.of(2L), top(TrendingFilms.Window.HOUR));
+        assertEquals(List.of(1L, 2L), top(TrendingFilms.Window.DAY));
+
+        clock.advance(Duration.ofDays(7));
+        assertEquals(List.of(), top(TrendingFilms.Window.WEEK));
+    }
+
+    @Test
+    void whenLikeRemoved_thenItsBucketDecremented() {
+        trending.likesAdded(List.of(new Like(1L, 1L), new Like(1L, 2L), new Like(2L, 1L), new Like(3L, 1L)));
+        trending.likeRemoved(1L, 1L);
+        trending.likesRemoved(1L, new long[]{3L});
+
+        assertEquals(List.of(1L, 2L), top(TrendingFilms.Window.HOUR));
+        assertEquals(List.of(1L, 2L), trending.getTop(TrendingFilms.Window.HOUR, 10, true));
+    }
+
+    @Test
+    void whenLikeRemovedAfterLeavingWindow_thenNewerLikesKept() {
+        trending.likeAdded(1L, 1L);
+        clock.advance(Duration.ofMinutes(90));
+        trending.likeAdded(1L, 2L);
+        trending.likeAdded(2L, 1L);
+        trending.likeAdded(2L, 2L);
+        trending.likeAdded(3L, 1L);
+
+        trending.likeRemoved(1L, 1L);
+        trending.likeRemoved(3L, 3L);
+
+        assertEquals(List.of(2L, 1L, 3L), top(TrendingFilms.Window.HOUR));
+        assertEquals(List.of(2L, 1L, 3L), top(TrendingFilms.Window.DAY));
+    }
+
+    @Test
+    void whenOldLikeRemoved_thenItsOwnDecayedWeightSubtracted() {
+        trending.likeAdded(1L, 1L);
+        clock.advance(Duration.ofHours(2));
+        trending.likeAdded(1L, 2L);
+        trending.likeAdded(2L, 2L);
+        trending.likeAdded(3L, 1L);
+        trending.likeAdded(3L, 3L);
+
+        trending.likeRemoved(1L, 1L);
+        trending.likeRemoved(3L, 1L);
+        trending.likeRemoved(3L, 3L);
+        trending.likeRemoved(3L, 4L);
+
+        assertEquals(List.of(1L, 2L), trending.getTop(TrendingFilms.Window.HOUR, 10, true));
+    }
+
+    @Test
+    void whenDecayedScoreNegligible_thenFilmForgotten() {
+        trending.likeAdded(1L, 1L);
+        clock.advance(Duration.ofHours(40));
+        trending.likeAdded(2L, 1L);
+
+        assertEquals(List.of(2L), trending.getTop(TrendingFilms.Window.HOUR, 10, true));
+        assertEquals(List.of(2L, 1L), trending.getTop(TrendingFilms.Window.WEEK, 10, true));
+    }
+
+    @Test
+    void whenDecayRequested_thenFreshLikesWeighMore() {
+        trending.likesAdded(List.of(new Like(1L, 1L), new Like(1L, 2L), new Like(1L, 3L)));
+        clock.advance(Duration.ofHours(3));
+        trending.likeAdded(2L, 1L);
+
+        assertEquals(List.of(2L, 1L), trending.getTop(TrendingFilms.Window.HOUR, 10, true));
+        assertEquals(List.of(1L, 2L), trending.getTop(TrendingFilms.Window.WEEK, 10, true));
+        assertEquals(List.of(1L, 2L), top(TrendingFilms.Window.WEEK));
+    }
+
+    @Test
+    void whenDecayRunsForManyHalfLives_thenScoresRebasedWithoutOverflow() {
+        for (int hour = 0; hour < 200; hour++) {
+            trending.likeAdded(1L + hour % 2, hour);
+            clock.advance(Duration.ofHours(1));
+        }
+        trending.likeAdded(2L, 1000L);
+        trending.likeRemoved(2L, 1000L);
+        trending.likeAdded(3L, 1000L);
+
+        assertEquals(List.of(3L, 2L, 1L), trending.getTop(TrendingFilms.Window.HOUR, 10, true));
+    }
+
+    @Test
+    void whenSameLikeAddedAndRemovedConcurrently_thenNoPhantomLikeInTrending() throws Exception {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        // Пауза после записи лайка расширяет окно между хранилищем и трендами.
+        InMemoryLikeStorage likeStorage = new InMemoryLikeStorage() {
+            @Override
+            public boolean addLike(Long filmId, Long userId) {
+                boolean added = super.addLike(filmId, userId);
+                LockSupport.parkNanos(20_000);
+                return added;
+            }
+        };
+        FilmService filmService = new FilmService(filmStorage, userStorage, likeStorage,
+                new FilmRecommendations(likeStorage, 0, Duration.ofMinutes(10)), trending,
+                new FilmTextSearch(filmStorage), new UserLocks(), event -> { });
+        Film film = new Film();
+        film.setName("Фильм");
+        long filmId = filmStorage.create(film).getId();
+        User user = new User();
+        user.setEmail("user@mail.ru");
+        user.setLogin("user");
+        long userId = userStorage.create(user).getId();
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            boolean adding = t % 2 == 0;
+            threads.add(Thread.ofPlatform().start(() -> {
+                awaitQuietly(start);
+                for (int i = 0; i < 2_000; i++) {
+                    try {
+                        if (adding) {
+                            filmService.addLike(filmId, userId);
+                        } else {
+                            filmService.removeLike(filmId, userId);
+                        }
+                    } catch (IllegalArgumentException | NotFoundException e) {
+                        // Лайк уже стоит или уже снят другим потоком.
+                    }
+                }
+            }));
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        if (likeStorage.getLikesCount(filmId) == 1) {
+            filmService.removeLike(filmId, userId);
+        }
+        assertEquals(List.of(), top(TrendingFilms.Window.HOUR));
+        assertEquals(List.of(), trending.getTop(TrendingFilms.Window.HOUR, 10, true));
+    }
+
+    @Test
+    void whenUnknownWindow_thenRejected() {
+        assertThrows(IllegalArgumentException.class, () -> TrendingFilms.Window.of("1y"));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private List<Long> top(TrendingFilms.Window window) {
+        return trending.getTop(window, 10, false);
+    }
+
+    private static final class ManualClock extends Clock {
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class UserLocksTest {
+    private final UserLocks userLocks = new UserLocks();
+
+    @Test
+    void whenUserShared_thenDeletionWaitsForRelease() throws Exception {
+        CountDownLatch shared = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> adding = CompletableFuture.runAsync(() -> userLocks.sharing(List.of(1L, 2L), () -> {
+            shared.countDown();
+            await(release);
+            return null;
+        }));
+        shared.await();
+
+        CompletableFuture<String> deleting = CompletableFuture.supplyAsync(() -> userLocks.exclusive(2L, () -> "удалён"));
+        assertThrows(TimeoutException.class, () -> deleting.get(200, TimeUnit.MILLISECONDS));
+
+        release.countDown();
+        adding.get(5, TimeUnit.SECONDS);
+        assertEquals("удалён", deleting.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void whenUsersShared_thenOtherSharingAndOtherUsersNotBlocked() throws Exception {
+        CountDownLatch shared = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> adding = CompletableFuture.runAsync(() -> userLocks.sharing(List.of(1L), () -> {
+            shared.countDown();
+            await(release);
+            return null;
+        }));
+        shared.await();
+
+        assertEquals(1, userLocks.sharing(List.of(1L, 2L), () -> 1));
+        assertEquals(2, userLocks.exclusive(2L, () -> 2));
+        assertFalse(adding.isDone());
+
+        release.countDown();
+        adding.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void whenActionFails_thenLocksReleased() throws Exception {
+        assertThrows(IllegalStateException.class, () -> userLocks.sharing(List.of(1L, 2L), () -> {
+            throw new IllegalStateException();
+        }));
+
+        CompletableFuture<Integer> deleting = CompletableFuture.supplyAsync(() -> userLocks.exclusive(1L, () -> 1));
+        assertEquals(1, deleting.get(5, TimeUnit.SECONDS));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
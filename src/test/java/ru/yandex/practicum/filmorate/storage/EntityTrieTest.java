@@ -0,0 +1,89 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EntityTrieTest {
+
+    @Test
+    void whenChanged_thenOldSnapshotUnchanged() {
+        EntityTrie<String> first = EntityTrie.<String>empty().with(1, "a").with(2, "b");
+
+        EntityTrie<String> second = first.with(1, "A").without(2).with(1_000_000, "c");
+
+        assertEquals(List.of("a", "b"), first);
+        assertEquals(List.of("A", "c"), second);
+        assertEquals("c", second.byId(1_000_000));
+        assertNull(second.byId(2));
+        assertNull(second.byId(-1));
+        assertSame(second, second.without(5));
+        assertEquals(List.of(), first.without(1).without(2));
+        assertEquals(List.of("A!", "c!"), second.view(value -> value + "!"));
+        assertEquals("c!", second.view(value -> value + "!").get(1));
+    }
+
+    @Test
+    void whenIdsHuge_thenTreeGrowsAndOrderKept() {
+        EntityTrie<Long> trie = EntityTrie.<Long>empty()
+                .with(Long.MAX_VALUE, Long.MAX_VALUE)
+                .with(0, 0L)
+                .with(1L << 40, 1L << 40);
+
+        assertEquals(List.of(0L, 1L << 40, Long.MAX_VALUE), trie);
+        assertEquals(List.of(Long.MAX_VALUE), trie.page(1L << 40, 10));
+        assertEquals(List.of(), trie.page(Long.MAX_VALUE, 10));
+        assertThrows(IllegalArgumentException.class, () -> trie.with(-1, -1L));
+    }
+
+    @Test
+    void whenRandomChanges_thenSameAsSortedMap() {
+        Random random = new Random(11);
+        TreeMap<Long, Long> expected = new TreeMap<>();
+        EntityTrie<Long> trie = EntityTrie.empty();
+
+        for (int i = 0; i < 20_000; i++) {
+            long id = random.nextInt(5_000);
+            int operation = random.nextInt(10);
+            if (operation < 6) {
+                expected.put(id, (long) i);
+                trie = trie.with(id, (long) i);
+            } else if (operation < 9) {
+                expected.remove(id);
+                trie = trie.without(id);
+            } else {
+                List<Long> batch = new ArrayList<>();
+                for (int j = 0; j < 50; j++) {
+                    long batchId = 5_000 + random.nextInt(2_000);
+                    expected.put(batchId, batchId);
+                    batch.add(batchId);
+                }
+                trie = trie.withAll(batch, Long::longValue);
+            }
+
+            if (i % 500 == 0) {
+                assertEquals(new ArrayList<>(expected.values()), trie);
+                int index = expected.isEmpty() ? 0 : random.nextInt(expected.size());
+                if (!expected.isEmpty()) {
+                    assertEquals(new ArrayList<>(expected.values()).get(index), trie.get(index));
+                }
+                long afterId = random.nextInt(7_000) - 1;
+                assertEquals(expected.tailMap(afterId, false).values().stream().limit(20).toList(),
+                        trie.page(afterId, 20));
+            }
+        }
+        for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), trie.byId(entry.getKey()));
+        }
+        assertEquals(expected.size(), trie.size());
+    }
+}
@@ -0,0 +1,106 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmQuery;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FilmSearchIndexTest {
+
+    private final FilmSearchIndex index = new FilmSearchIndex();
+
+    @Test
+    void whenSearchedByPrefix_thenCaseIgnoredAndIdsAscending() {
+        index.put(film(3, "Матрица", 1999, 136));
+        index.put(film(1, "матрица: Перезагрузка", 2003, 138));
+        index.put(film(2, "Мастер и Маргарита", 2024, 157));
+
+        assertEquals(List.of(1L, 3L), index.search(query("МАТ", null, null, null, null), 0, 10));
+        assertEquals(List.of(1L, 2L, 3L), index.search(query("ма", null, null, null, null), 0, 10));
+        assertEquals(List.of(3L), index.search(query("ма", null, null, null, null), 2, 10));
+        assertEquals(List.of(1L), index.search(query("ма", null, null, null, null), 0, 1));
+    }
+
+    @Test
+    void whenRangesCombined_thenAllConditionsApplied() {
+        index.put(film(1, "Первый", 1999, 90));
+        index.put(film(2, "Второй", 2005, 150));
+        index.put(film(3, "Третий", 2005, 90));
+        index.put(film(4, "Без даты", 0, 90));
+
+        FilmQuery query = query(null, LocalDate.of(2000, 1, 1), LocalDate.of(2010, 1, 1), null, 100);
+
+        assertEquals(List.of(3L), index.search(query, 0, 10));
+        assertEquals(List.of(1L, 3L, 4L), index.search(query(null, null, null, 90, 90), 0, 10));
+    }
+
+    @Test
+    void whenFilmUpdatedOrRemoved_thenOldValuesNotFound() {
+        index.put(film(1, "Старое", 2000, 100));
+        index.put(film(1, "Новое", 2010, 100));
+        index.put(film(2, "Старое", 2000, 100));
+        index.remove(2L);
+
+        assertEquals(List.of(), index.search(query("стар", null, null, null, null), 0, 10));
+        assertEquals(List.of(), index.search(query(null, LocalDate.of(2000, 1, 1), LocalDate.of(2000, 1, 1),
+                null, null), 0, 10));
+        assertEquals(List.of(1L), index.search(query("нов", null, null, 100, null), 0, 10));
+    }
+
+    @Test
+    void whenRandomQueries_thenSameAsFullScan() {
+        Random random = new Random(42);
+        String[] names = {"Аватар", "Алиса", "Ад", "Brazil", "Batman", "Бэтмен", "Ёлки"};
+        List<Film> films = new ArrayList<>();
+        for (int id = 1; id <= 2_000; id++) {
+            Film film = film(id, names[random.nextInt(names.length)] + " " + random.nextInt(100),
+                    random.nextInt(10) == 0 ? 0 : 1950 + random.nextInt(70), 60 + random.nextInt(120));
+            films.add(film);
+            index.put(film);
+        }
+
+        for (int i = 0; i < 200; i++) {
+            int fromYear = 1950 + random.nextInt(70);
+            int minDuration = 60 + random.nextInt(120);
+            FilmQuery query = query(random.nextBoolean() ? names[random.nextInt(names.length)].substring(0, 2) : null,
+                    random.nextBoolean() ? LocalDate.of(fromYear, 1, 1) : null,
+                    random.nextBoolean() ? LocalDate.of(fromYear + random.nextInt(20), 12, 31) : null,
+                    random.nextBoolean() ? minDuration : null,
+                    minDuration + random.nextInt(60));
+            long afterId = random.nextInt(500);
+
+            List<Long> expected = films.stream()
+                    .filter(film -> film.getId() > afterId && query.matches(film))
+                    .map(Film::getId)
+                    .limit(50)
+                    .toList();
+            assertEquals(expected, index.search(query, afterId, 50), query.toString());
+        }
+    }
+
+    private static FilmQuery query(String namePrefix, LocalDate from, LocalDate to, Integer minDuration,
+                                   Integer maxDuration) {
+        FilmQuery query = new FilmQuery();
+        query.setNamePrefix(namePrefix);
+        query.setReleasedFrom(from);
+        query.setReleasedTo(to);
+        query.setMinDuration(minDuration);
+        query.setMaxDuration(maxDuration);
+        return query;
+    }
+
+    private static Film film(long id, String name, int year, int duration) {
+        Film film = new Film();
+        film.setId(id);
+        film.setName(name);
+        film.setReleaseDate(year == 0 ? null : LocalDate.of(year, 6, 1));
+        film.setDuration(duration);
+        return film;
+    }
+}
@@ -0,0 +1,124 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Friendship;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryFriendshipStorageTest {
+
+    private InMemoryFriendshipStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new InMemoryFriendshipStorage();
+    }
+
+    @Test
+    void whenFriendAdded_thenFriendshipIsMutual() {
+        assertTrue(storage.addFriend(1L, 2L));
+        assertFalse(storage.addFriend(2L, 1L));
+
+        assertEquals(List.of(2L), storage.getFriendIds(1L));
+        assertEquals(List.of(1L), storage.getFriendIds(2L));
+    }
+
+    @Test
+    void whenUserFriendsRemoved_thenBothDirectionsDropped() {
+        storage.addFriend(1L, 2L);
+        storage.addFriend(3L, 1L);
+        storage.addFriend(2L, 3L);
+
+        assertArrayEquals(new long[]{2L, 3L}, storage.removeFriends(1L));
+
+        assertEquals(List.of(), storage.getFriendIds(1L));
+        assertEquals(List.of(3L), storage.getFriendIds(2L));
+        assertEquals(List.of(2L), storage.getFriendIds(3L));
+    }
+
+    @Test
+    void whenFriendsAddedInBatch_thenMutualAndDuplicatesReported() {
+        storage.addFriend(1L, 2L);
+
+        boolean[] added = storage.addFriends(List.of(new Friendship(2L, 1L), new Friendship(3L, 1L),
+                new Friendship(1L, 3L), new Friendship(3L, 2L)));
+
+        assertArrayEquals(new boolean[]{false, true, false, true}, added);
+        assertEquals(List.of(2L, 3L), storage.getFriendIds(1L));
+        assertEquals(List.of(1L, 2L), storage.getFriendIds(3L));
+    }
+
+    @Test
+    void whenFriendRemoved_thenRemovedOnBothSides() {
+        storage.addFriend(1L, 2L);
+
+        assertTrue(storage.removeFriend(2L, 1L));
+        assertFalse(storage.removeFriend(1L, 2L));
+
+        assertTrue(storage.getFriendIds(1L).isEmpty());
+        assertTrue(storage.getFriendIds(2L).isEmpty());
+    }
+
+    @Test
+    void whenUsersShareFriends_thenCommonFriendsReturned() {
+        storage.addFriend(1L, 3L);
+        storage.addFriend(1L, 4L);
+        storage.addFriend(1L, 5L);
+        storage.addFriend(2L, 5L);
+        storage.addFriend(2L, 3L);
+
+        assertEquals(List.of(3L, 5L), storage.getCommonFriendIds(1L, 2L));
+        assertTrue(storage.getCommonFriendIds(1L, 99L).isEmpty());
+    }
+
+    @Test
+    void whenSetSizesDiffer_thenIntersectionIsCorrect() {
+        SortedLongSet small = new SortedLongSet();
+        SortedLongSet large = new SortedLongSet();
+        for (long i = 0; i < 10_000; i += 2) {
+            large.add(i);
+        }
+        small.add(3);
+        small.add(4);
+        small.add(9_998);
+
+        assertArrayEquals(new long[]{4, 9_998}, small.intersect(large));
+        assertArrayEquals(new long[]{4, 9_998}, large.intersect(small));
+    }
+
+    @Test
+    void whenFriendsAddedFromBothSidesConcurrently_thenNoDeadlockAndGraphConsistent() throws Exception {
+        int users = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        for (int t = 0; t < 8; t++) {
+            boolean reversed = t % 2 == 0;
+            executor.submit(() -> {
+                for (long u = 1; u < users; u++) {
+                    if (reversed) {
+                        storage.addFriend(u, 0L);
+                    } else {
+                        storage.addFriend(0L, u);
+                    }
+                    storage.getCommonFriendIds(0L, u);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(users - 1, storage.getFriendIds(0L).size());
+        for (long u = 1; u < users; u++) {
+            assertEquals(List.of(0L), storage.getFriendIds(u));
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Like;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryLikeStorageTest {
+
+    private InMemoryLikeStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new InMemoryLikeStorage();
+    }
+
+    @Test
+    void whenLikeAddedTwice_thenSecondAddRejected() {
+        assertTrue(storage.addLike(1L, 10L));
+        assertFalse(storage.addLike(1L, 10L));
+
+        assertTrue(storage.hasLike(1L, 10L));
+        assertEquals(1, storage.getLikesCount(1L));
+    }
+
+    @Test
+    void whenLikesAddedInBatch_thenDuplicatesReportedAndRatingUpdated() {
+        storage.addLike(2L, 10L);
+
+        boolean[] added = storage.addLikes(List.of(new Like(1L, 10L), new Like(2L, 10L), new Like(2L, 11L),
+                new Like(1L, 10L), new Like(2L, 12L)));
+
+        assertArrayEquals(new boolean[]{true, false, true, false, true}, added);
+        assertEquals(1, storage.getLikesCount(1L));
+        assertEquals(3, storage.getLikesCount(2L));
+        assertEquals(List.of(2L, 1L), storage.getPopularFilmIds(10));
+    }
+
+    @Test
+    void whenLikeRemoved_thenCountDecreases() {
+        storage.addLike(1L, 10L);
+        storage.addLike(1L, 11L);
+
+        assertTrue(storage.removeLike(1L, 10L));
+        assertFalse(storage.removeLike(1L, 10L));
+        assertFalse(storage.removeLike(2L, 10L));
+
+        assertFalse(storage.hasLike(1L, 10L));
+        assertEquals(1, storage.getLikesCount(1L));
+    }
+
+    @Test
+    void whenFilmsLiked_thenPopularFilmIdsRanked() {
+        storage.addLike(1L, 10L);
+        storage.addLike(2L, 10L);
+        storage.addLike(2L, 11L);
+
+        assertEquals(List.of(2L, 1L), storage.getPopularFilmIds(10));
+    }
+
+    @Test
+    void whenLikesChange_thenReverseIndexFollows() {
+        storage.addLikes(List.of(new Like(3L, 10L), new Like(1L, 10L), new Like(1L, 11L)));
+        storage.addLike(2L, 11L);
+        storage.restoreLikes(4L, new long[]{12L});
+        storage.removeLike(1L, 11L);
+
+        Map<Long, long[]> byUser = storage.getLikedFilmIdsByUser(List.of(10L, 11L, 12L, 13L));
+        assertArrayEquals(new long[]{1L, 3L}, byUser.get(10L));
+        assertArrayEquals(new long[]{2L}, byUser.get(11L));
+        assertArrayEquals(new long[]{4L}, byUser.get(12L));
+        assertFalse(byUser.containsKey(13L));
+        assertArrayEquals(new long[]{10L}, storage.getLikerIdsByFilm(List.of(1L)).get(1L));
+        assertEquals(List.of(10L, 11L), storage.getMostActiveUserIds(2));
+    }
+
+    @Test
+    void whenUserLikesRemoved_thenOnlyTheirFilmsTouched() {
+        storage.addLike(1L, 10L);
+        storage.addLike(2L, 10L);
+        storage.addLike(2L, 11L);
+        storage.addLike(3L, 11L);
+
+        assertArrayEquals(new long[]{1L, 2L}, storage.removeLikesByUser(10L));
+
+        assertEquals(0, storage.getLikesCount(1L));
+        assertEquals(1, storage.getLikesCount(2L));
+        assertEquals(List.of(), storage.getLikedFilmIds(10L));
+        assertEquals(List.of(2L, 3L), storage.getLikedFilmIds(11L));
+        assertEquals(List.of(2L, 3L), storage.getPopularFilmIds(10));
+        assertArrayEquals(new long[0], storage.removeLikesByUser(10L));
+    }
+
+    @Test
+    void whenValuesAddedOutOfOrder_thenSetStaysSorted() {
+        SortedLongSet set = new SortedLongSet();
+        for (long value : new long[]{5, 1, 9, 3, 7, 1, 5}) {
+            set.add(value);
+        }
+        set.remove(9);
+
+        assertArrayEquals(new long[]{1, 3, 5, 7}, set.toArray());
+        assertEquals(4, set.size());
+        assertTrue(set.contains(3));
+        assertFalse(set.contains(9));
+    }
+
+    @Test
+    void whenLikesAddedConcurrently_thenEveryLikeCounted() throws Exception {
+        int threads = 8;
+        int usersPerThread = 1_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        AtomicInteger rejected = new AtomicInteger();
+
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                for (long userId = 0; userId < usersPerThread; userId++) {
+                    if (!storage.addLike(1L, userId)) {
+                        rejected.incrementAndGet();
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(usersPerThread, storage.getLikesCount(1L));
+        assertEquals((threads - 1) * usersPerThread, rejected.get());
+    }
+}
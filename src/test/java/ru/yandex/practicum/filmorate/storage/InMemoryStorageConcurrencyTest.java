@@ -0,0 +1,213 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.ConflictException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmQuery;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryStorageConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int OPERATIONS_PER_THREAD = 500;
+
+    @Test
+    void whenFilmsCreatedConcurrently_thenNoLostWritesAndUniqueIds() throws Exception {
+        InMemoryFilmStorage storage = new InMemoryFilmStorage();
+
+        List<Long> ids = runConcurrently(() -> {
+            List<Long> created = new ArrayList<>();
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                created.add(storage.create(createFilm("Film " + i)).getId());
+                storage.getAll();
+            }
+            return created;
+        });
+
+        assertUniqueAndStored(ids, storage.getAll().size());
+        ids.forEach(id -> assertTrue(storage.exists(id)));
+    }
+
+    @Test
+    void whenUsersCreatedConcurrently_thenNoLostWritesAndUniqueIds() throws Exception {
+        InMemoryUserStorage storage = new InMemoryUserStorage();
+
+        List<Long> ids = runConcurrently(() -> {
+            List<Long> created = new ArrayList<>();
+            long thread = Thread.currentThread().threadId();
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                created.add(storage.create(createUser("login" + thread + "_" + i)).getId());
+                storage.getAll();
+            }
+            return created;
+        });
+
+        assertUniqueAndStored(ids, storage.getAll().size());
+        ids.forEach(id -> assertTrue(storage.exists(id)));
+    }
+
+    @Test
+    void whenSameEmailCreatedConcurrently_thenExactlyOneUserCreated() throws Exception {
+        InMemoryUserStorage storage = new InMemoryUserStorage();
+
+        List<Long> ids = runConcurrently(() -> {
+            List<Long> created = new ArrayList<>();
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                User user = createUser("login" + i);
+                user.setLogin("login" + Thread.currentThread().threadId() + "_" + i);
+                try {
+                    created.add(storage.create(user).getId());
+                } catch (ConflictException e) {
+                    // Email уже занят пользователем из другого потока.
+                }
+            }
+            return created;
+        });
+
+        assertEquals(OPERATIONS_PER_THREAD, ids.size());
+        assertEquals(OPERATIONS_PER_THREAD, storage.getAll().size());
+        for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+            assertTrue(ids.contains(storage.getByEmail("LOGIN" + i + "@example.com").getId()));
+        }
+    }
+
+    @Test
+    void whenFilmsUpdatedConcurrently_thenEveryUpdateIsKept() throws Exception {
+        InMemoryFilmStorage storage = new InMemoryFilmStorage();
+
+        List<Long> ids = runConcurrently(() -> {
+            List<Long> updated = new ArrayList<>();
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                Film film = storage.create(createFilm("Film"));
+                Film update = createFilm("Updated " + film.getId());
+                update.setId(film.getId());
+                storage.update(update);
+                updated.add(film.getId());
+            }
+            return updated;
+        });
+
+        assertUniqueAndStored(ids, storage.getAll().size());
+        ids.forEach(id -> assertEquals("Updated " + id, storage.get(id).getName()));
+    }
+
+    @Test
+    void whenReadDuringUpdates_thenSnapshotsConsistentAndImmutable() throws Exception {
+        InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+            storage.create(createFilm("Film"));
+        }
+
+        List<Long> sizes = runConcurrently(() -> {
+            List<Long> seen = new ArrayList<>();
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                Film film = createFilm("Updated");
+                film.setId(1L + i);
+                storage.update(film);
+                film.setName("Changed after update");
+                storage.create(createFilm("Extra"));
+
+                List<Film> snapshot = storage.getAll();
+                long iterated = snapshot.stream().count();
+                assertEquals(snapshot.size(), iterated);
+                seen.add(iterated);
+            }
+            return seen;
+        });
+
+        assertTrue(sizes.stream().allMatch(size -> size > OPERATIONS_PER_THREAD));
+        assertEquals("Updated", storage.get(1L).getName());
+        storage.get(1L).setName("Changed");
+        storage.getAll().get(0).setName("Changed");
+        assertEquals("Updated", storage.get(1L).getName());
+    }
+
+    @Test
+    void whenSearchedDuringUpdates_thenPagesStayFull() throws Exception {
+        InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        for (int i = 0; i < THREADS * 4; i++) {
+            storage.create(createFilm("Матрица " + i));
+        }
+        FilmQuery query = new FilmQuery();
+        query.setNamePrefix("матр");
+        AtomicLong nextFilmId = new AtomicLong(1);
+
+        List<Long> pageSizes = runConcurrently(() -> {
+            List<Long> sizes = new ArrayList<>();
+            long filmId = nextFilmId.getAndIncrement();
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                Film film = storage.get(filmId);
+                film.setName(film.getName().startsWith("Матрица") ? "Другое" : "Матрица");
+                storage.update(film);
+                sizes.add((long) storage.search(query, 0, THREADS * 2).size());
+            }
+            return sizes;
+        });
+
+        assertTrue(pageSizes.stream().allMatch(size -> size == THREADS * 2));
+    }
+
+    private List<Long> runConcurrently(Callable<List<Long>> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<List<Long>>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+
+            List<Long> ids = new ArrayList<>();
+            for (Future<List<Long>> future : futures) {
+                ids.addAll(future.get(30, TimeUnit.SECONDS));
+            }
+            return ids;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void assertUniqueAndStored(List<Long> ids, int storedCount) {
+        Set<Long> uniqueIds = new HashSet<>(ids);
+        assertEquals(THREADS * OPERATIONS_PER_THREAD, ids.size());
+        assertEquals(ids.size(), uniqueIds.size());
+        assertEquals(ids.size(), storedCount);
+    }
+
+    private Film createFilm(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription("Description");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(120);
+        return film;
+    }
+
+    private User createUser(String login) {
+        User user = new User();
+        user.setEmail(login + "@example.com");
+        user.setLogin(login);
+        user.setName(login);
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+}
@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PopularityIndexTest {
+
+    private PopularityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new PopularityIndex();
+    }
+
+    @Test
+    void whenEmpty_thenTopIsEmpty() {
+        assertTrue(index.getTop(10).isEmpty());
+    }
+
+    @Test
+    void whenFilmsLiked_thenTopOrderedByLikesDesc() {
+        index.increment(1L);
+        index.increment(2L);
+        index.increment(2L);
+        index.increment(3L);
+        index.increment(3L);
+        index.increment(3L);
+
+        assertEquals(List.of(3L, 2L, 1L), index.getTop(10));
+        assertEquals(List.of(3L, 2L), index.getTop(2));
+    }
+
+    @Test
+    void whenEqualLikes_thenTopOrderedById() {
+        index.increment(5L);
+        index.increment(2L);
+        index.increment(9L);
+
+        assertEquals(List.of(2L, 5L, 9L), index.getTop(3));
+    }
+
+    @Test
+    void whenLikeRemoved_thenFilmMovesDown() {
+        index.increment(1L);
+        index.increment(1L);
+        index.increment(2L);
+        index.increment(2L);
+        index.decrement(1L);
+
+        assertEquals(List.of(2L, 1L), index.getTop(10));
+        assertEquals(1, index.getLikesCount(1L));
+    }
+
+    @Test
+    void whenLastLikeRemoved_thenFilmLeavesIndex() {
+        index.increment(1L);
+        index.decrement(1L);
+        index.decrement(1L);
+
+        assertTrue(index.getTop(10).isEmpty());
+        assertEquals(0, index.getLikesCount(1L));
+    }
+
+    @Test
+    void whenFilmRemoved_thenFilmLeavesIndex() {
+        index.increment(1L);
+        index.increment(2L);
+        index.remove(1L);
+
+        assertEquals(List.of(2L), index.getTop(10));
+    }
+}
@@ -0,0 +1,352 @@
+package ru.yandex.practicum.filmorate.storage.file;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.yandex.practicum.filmorate.exception.ConflictException;
+import ru.yandex.practicum.filmorate.exception.VersionConflictException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmQuery;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileStorageEngineTest {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void whenRestartedWithoutSnapshot_thenStateRecoveredFromLog() throws IOException {
+        FileStorageEngine engine = open();
+        fill(engine);
+        // Имитация аварийной остановки: снимок не сохраняется.
+
+        assertRecovered(open());
+    }
+
+    @Test
+    void whenRestartedAfterSnapshot_thenSnapshotAndLogCombined() throws IOException {
+        FileStorageEngine engine = open();
+        FileFilmStorage films = new FileFilmStorage(engine);
+        fill(engine);
+        engine.snapshot();
+        films.create(film("After snapshot"));
+
+        FileStorageEngine recovered = open();
+
+        assertRecovered(recovered);
+        assertEquals("After snapshot", recovered.films().get(3L).getName());
+    }
+
+    @Test
+    void whenShutDown_thenOldLogsCompacted() throws IOException {
+        FileStorageEngine engine = open();
+        fill(engine);
+        engine.destroy();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            List<String> names = files.map(file -> file.getFileName().toString()).sorted().toList();
+            assertEquals(List.of("snapshot-000002.snap", "wal-000002.log"), names);
+        }
+        assertRecovered(open());
+    }
+
+    @Test
+    void whenLastFilmDeleted_thenIdIsNotReusedAfterRestart() throws IOException {
+        FileStorageEngine engine = open();
+        FileFilmStorage films = new FileFilmStorage(engine);
+        films.create(film("First"));
+        films.create(film("Second"));
+        films.delete(2L);
+        engine.destroy();
+
+        Film created = new FileFilmStorage(open()).create(film("Third"));
+
+        assertEquals(3L, created.getId());
+    }
+
+    @Test
+    void whenSnapshotTakenRepeatedly_thenChangesOnTopOfMappedSnapshotKept() throws IOException {
+        FileStorageEngine engine = open();
+        fill(engine);
+        engine.destroy();
+
+        FileStorageEngine reopened = open();
+        FileFilmStorage films = new FileFilmStorage(reopened);
+        Film renamed = film("Фильм с новым названием");
+        renamed.setId(1L);
+        renamed.setDescription(null);
+        renamed.setDuration(null);
+        films.update(renamed);
+        films.delete(2L);
+        reopened.snapshot();
+        films.create(film("Created after second snapshot"));
+        reopened.destroy();
+
+        FileStorageEngine recovered = open();
+        Film film = recovered.films().get(1L);
+        assertEquals("Фильм с новым названием", film.getName());
+        assertNull(film.getDescription());
+        assertNull(film.getDuration());
+        assertFalse(recovered.films().exists(2L));
+        assertEquals("Created after second snapshot", recovered.films().get(3L).getName());
+        assertEquals(2, recovered.films().getAll().size());
+        assertEquals(2, recovered.likes().getLikesCount(1L));
+        assertEquals(List.of(2L), recovered.friendships().getFriendIds(1L));
+    }
+
+    @Test
+    void whenListedAcrossSnapshotAndChanges_thenIdsAscendingWithoutDeleted() throws IOException {
+        FileStorageEngine engine = open();
+        FileFilmStorage films = new FileFilmStorage(engine);
+        for (int i = 1; i <= 5; i++) {
+            films.create(film("Film " + i));
+        }
+        engine.snapshot();
+        films.delete(2L);
+        Film renamed = film("Renamed");
+        renamed.setId(4L);
+        films.update(renamed);
+        films.create(film("Film 6"));
+
+        assertEquals(List.of(1L, 3L, 4L), films.getPage(0, 3).stream().map(Film::getId).toList());
+        assertEquals(List.of(5L, 6L), films.getPage(4, 3).stream().map(Film::getId).toList());
+        assertEquals("Renamed", films.getPage(3, 1).get(0).getName());
+        assertTrue(films.getPage(6, 3).isEmpty());
+        assertEquals(List.of(1L, 3L, 4L, 5L, 6L), films.getAll().stream().map(Film::getId).toList());
+        assertEquals(5, films.count());
+    }
+
+    @Test
+    void whenBatchesLogged_thenRecoveredFromLog() throws IOException {
+        FileStorageEngine engine = open();
+        fill(engine);
+        new FileLikeStorage(engine).addLikes(List.of(new Like(2L, 1L), new Like(1L, 1L), new Like(2L, 2L)));
+        new FileFriendshipStorage(engine).addFriends(List.of(new Friendship(2L, 1L)));
+
+        FileStorageEngine recovered = open();
+
+        assertEquals(2, recovered.likes().getLikesCount(1L));
+        assertEquals(2, recovered.likes().getLikesCount(2L));
+        assertEquals(List.of(1L), recovered.friendships().getFriendIds(2L));
+    }
+
+    @Test
+    void whenUserLinksRemoved_thenRemovalRecoveredFromLog() throws IOException {
+        FileStorageEngine engine = open();
+        fill(engine);
+        new FileLikeStorage(engine).removeLikesByUser(2L);
+        new FileFriendshipStorage(engine).removeFriends(2L);
+
+        FileStorageEngine recovered = open();
+
+        assertEquals(1, recovered.likes().getLikesCount(1L));
+        assertEquals(List.of(), recovered.likes().getLikedFilmIds(2L));
+        assertEquals(List.of(), recovered.friendships().getFriendIds(1L));
+    }
+
+    @Test
+    void whenSearchedAfterRestartAndChanges_thenIndexMatchesStoredFilms() throws IOException {
+        FileStorageEngine engine = open();
+        fill(engine);
+        engine.snapshot();
+        FileFilmStorage films = new FileFilmStorage(open());
+        FilmQuery query = new FilmQuery();
+        query.setNamePrefix("upd");
+
+        assertEquals(List.of(2L), films.search(query, 0, 10).stream().map(Film::getId).toList());
+
+        Film renamed = film("Updated again");
+        renamed.setId(1L);
+        films.update(renamed);
+        films.delete(2L);
+        Film created = films.create(film("Updated third"));
+
+        assertEquals(List.of(1L, created.getId()), films.search(query, 0, 10).stream().map(Film::getId).toList());
+    }
+
+    @Test
+    void whenUserKeysTakenAfterRestart_thenConflictAndNothingLogged() throws IOException {
+        fill(open());
+        FileUserStorage users = new FileUserStorage(open());
+
+        assertEquals(1L, users.getByEmail("FIRST@example.com").getId());
+        assertNull(users.getByLogin("third"));
+        User sameLogin = user("other");
+        sameLogin.setLogin("second");
+        assertThrows(ConflictException.class, () -> users.createAll(List.of(user("fourth"), sameLogin)));
+        User renamed = user("renamed");
+        renamed.setId(1L);
+        users.update(renamed);
+        users.create(user("first"));
+
+        FileUserStorage recovered = new FileUserStorage(open());
+        assertEquals(1L, recovered.getByLogin("renamed").getId());
+        assertEquals(4L, recovered.getByLogin("first").getId());
+        assertNull(recovered.getByLogin("fourth"));
+    }
+
+    @Test
+    void whenUpdatedWithVersions_thenVersionsRecoveredFromLogAndSnapshot() throws IOException {
+        FileStorageEngine engine = open();
+        fill(engine);
+        FileFilmStorage films = new FileFilmStorage(engine);
+        Film stale = film("Stale");
+        stale.setId(1L);
+        stale.setVersion(2L);
+
+        assertThrows(VersionConflictException.class, () -> films.update(stale));
+        stale.setVersion(1L);
+        assertEquals(2L, films.update(stale).getVersion());
+        assertEquals(2L, new FileFilmStorage(open()).get(1L).getVersion());
+
+        engine.snapshot();
+        FileStorageEngine recovered = open();
+        assertEquals(2L, recovered.films().get(1L).getVersion());
+        assertEquals(2L, recovered.films().get(2L).getVersion());
+        assertEquals(1L, recovered.users().get(1L).getVersion());
+    }
+
+    @Test
+    void whenLogRejectsWrites_thenChangesRolledBackInMemory() throws IOException {
+        FileStorageEngine engine = open();
+        fill(engine);
+        FileFilmStorage films = new FileFilmStorage(engine);
+        FileUserStorage users = new FileUserStorage(engine);
+        FileLikeStorage likes = new FileLikeStorage(engine);
+        FileFriendshipStorage friendships = new FileFriendshipStorage(engine);
+        engine.destroy();
+        Film renamed = film("Renamed");
+        renamed.setId(1L);
+        User relogged = user("relogged");
+        relogged.setId(1L);
+
+        assertThrows(IllegalStateException.class, () -> films.create(film("Lost")));
+        assertThrows(IllegalStateException.class, () -> films.update(renamed));
+        assertThrows(IllegalStateException.class, () -> films.delete(2L));
+        assertThrows(IllegalStateException.class, () -> users.update(relogged));
+        assertThrows(IllegalStateException.class, () -> users.delete(2L));
+        assertThrows(IllegalStateException.class, () -> likes.removeLikesByUser(2L));
+        assertThrows(IllegalStateException.class, () -> likes.addLikes(List.of(new Like(2L, 1L))));
+        assertThrows(IllegalStateException.class, () -> friendships.removeFriends(1L));
+
+        assertRecovered(engine);
+        assertEquals(2, films.count());
+        assertEquals(1L, users.getByLogin("first").getId());
+        assertNull(users.getByLogin("relogged"));
+        assertEquals(1L, engine.films().get(1L).getVersion());
+        assertRecovered(open());
+    }
+
+    @Test
+    void whenLastRecordTorn_thenItIsCutOffAndRestartsKeepWorking() throws IOException {
+        fill(open());
+        Path log = directory.resolve("wal-000001.log");
+        Files.writeString(log, "{\"operation\":\"FILM_PUT\",\"id\":3,\"fi", StandardOpenOption.APPEND);
+        long tornSize = Files.size(log);
+
+        FileStorageEngine engine = open();
+        new FileFilmStorage(engine).create(film("After recovery"));
+
+        assertTrue(Files.size(log) < tornSize);
+        FileStorageEngine recovered = open();
+        assertRecovered(recovered);
+        assertEquals("After recovery", recovered.films().get(3L).getName());
+    }
+
+    @Test
+    void whenRecordInTheMiddleCorrupted_thenRecoveryFails() throws IOException {
+        fill(open());
+        Path log = directory.resolve("wal-000001.log");
+        List<String> lines = new ArrayList<>(Files.readAllLines(log));
+        lines.set(2, lines.get(2).substring(0, 10));
+        Files.write(log, lines);
+
+        assertThrows(IOException.class, this::open);
+    }
+
+    @Test
+    void whenTornRecordIsNotInTheLastLog_thenRecoveryFails() throws IOException {
+        fill(open());
+        open();
+        Files.writeString(directory.resolve("wal-000001.log"), "{\"operation\":", StandardOpenOption.APPEND);
+
+        assertThrows(IOException.class, this::open);
+    }
+
+    private FileStorageEngine open() throws IOException {
+        return new FileStorageEngine(directory, Duration.ofHours(1), objectMapper);
+    }
+
+    private void fill(FileStorageEngine engine) {
+        FileFilmStorage films = new FileFilmStorage(engine);
+        FileUserStorage users = new FileUserStorage(engine);
+        FileLikeStorage likes = new FileLikeStorage(engine);
+        FileFriendshipStorage friendships = new FileFriendshipStorage(engine);
+
+        films.create(film("Film"));
+        Film updated = film("Updated film");
+        updated.setId(films.create(film("Second film")).getId());
+        films.update(updated);
+        users.create(user("first"));
+        users.create(user("second"));
+        users.create(user("third"));
+        users.delete(3L);
+        likes.addLike(1L, 1L);
+        likes.addLike(1L, 2L);
+        likes.addLike(2L, 2L);
+        likes.removeLike(2L, 2L);
+        friendships.addFriend(1L, 2L);
+    }
+
+    private void assertRecovered(FileStorageEngine engine) {
+        assertEquals("Film", engine.films().get(1L).getName());
+        assertEquals("Updated film", engine.films().get(2L).getName());
+        assertEquals(LocalDate.of(2000, 1, 1), engine.films().get(1L).getReleaseDate());
+        assertEquals(2, engine.users().getAll().size());
+        assertFalse(engine.users().exists(3L));
+        assertEquals(2, engine.likes().getLikesCount(1L));
+        assertEquals(0, engine.likes().getLikesCount(2L));
+        assertEquals(List.of(1L), engine.likes().getPopularFilmIds(10));
+        assertEquals(List.of(2L), engine.friendships().getFriendIds(1L));
+        assertTrue(engine.friendships().getFriendIds(2L).contains(1L));
+    }
+
+    private Film film(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription("Description");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(120);
+        return film;
+    }
+
+    private User user(String login) {
+        User user = new User();
+        user.setEmail(login + "@example.com");
+        user.setLogin(login);
+        user.setName(login);
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+}
@@ -0,0 +1,56 @@
+package ru.yandex.practicum.filmorate.storage.file;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void whenClosedWhileAppending_thenEveryAppendCompletes() throws Exception {
+        WriteAheadLog wal = new WriteAheadLog(directory.resolve("wal-000001.log"));
+        Queue<CompletableFuture<Void>> futures = new ConcurrentLinkedQueue<>();
+        CountDownLatch started = new CountDownLatch(4);
+        List<Thread> writers = List.of(writer(wal, futures, started), writer(wal, futures, started),
+                writer(wal, futures, started), writer(wal, futures, started));
+
+        started.await();
+        wal.close();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                .handle((ignored, e) -> null)
+                .get(5, TimeUnit.SECONDS);
+        assertTrue(futures.stream().allMatch(CompletableFuture::isDone));
+        assertTrue(wal.append("{}\n".getBytes(StandardCharsets.UTF_8)).isCompletedExceptionally());
+    }
+
+    private static Thread writer(WriteAheadLog wal, Queue<CompletableFuture<Void>> futures,
+                                 CountDownLatch started) {
+        return Thread.ofPlatform().start(() -> {
+            started.countDown();
+            for (int i = 0; i < 20_000; i++) {
+                CompletableFuture<Void> future = wal.append("{}\n".getBytes(StandardCharsets.UTF_8));
+                futures.add(future);
+                if (future.isCompletedExceptionally()) {
+                    return;
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,272 @@
+package ru.yandex.practicum.filmorate.storage.jdbc;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import ru.yandex.practicum.filmorate.exception.ConflictException;
+import ru.yandex.practicum.filmorate.exception.VersionConflictException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmQuery;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@JdbcTest
+@ActiveProfiles("jdbc")
+@Import({JdbcFilmStorage.class, JdbcUserStorage.class, JdbcLikeStorage.class, JdbcFriendshipStorage.class})
+class JdbcStorageTest {
+
+    @Autowired
+    private JdbcFilmStorage filmStorage;
+    @Autowired
+    private JdbcUserStorage userStorage;
+    @Autowired
+    private JdbcLikeStorage likeStorage;
+    @Autowired
+    private JdbcFriendshipStorage friendshipStorage;
+
+    @Test
+    void whenFilmCreatedAndUpdated_thenStoredFieldsReturned() {
+        Film film = filmStorage.create(film("Film"));
+        film.setName("Updated");
+        film.setDuration(null);
+        filmStorage.update(film);
+
+        Film stored = filmStorage.get(film.getId());
+
+        assertEquals("Updated", stored.getName());
+        assertEquals(LocalDate.of(2000, 1, 1), stored.getReleaseDate());
+        assertNull(stored.getDuration());
+        assertTrue(filmStorage.exists(film.getId()));
+        assertNull(filmStorage.get(film.getId() + 100));
+    }
+
+    @Test
+    void whenCreatedInBatch_thenGeneratedIdsAssigned() {
+        List<Film> films = filmStorage.createAll(List.of(film("First"), film("Second")));
+
+        assertEquals("First", filmStorage.get(films.get(0).getId()).getName());
+        assertEquals("Second", filmStorage.get(films.get(1).getId()).getName());
+    }
+
+    @Test
+    void whenGetByIds_thenOrderPreservedAndMissingSkipped() {
+        User first = userStorage.create(user("first"));
+        User second = userStorage.create(user("second"));
+
+        List<User> users = userStorage.getByIds(List.of(second.getId(), 999L, first.getId()));
+
+        assertEquals(List.of("second", "first"), users.stream().map(User::getLogin).toList());
+    }
+
+    @Test
+    void whenPaged_thenKeysetContinuesAfterLastId() {
+        User first = userStorage.create(user("first"));
+        User second = userStorage.create(user("second"));
+        User third = userStorage.create(user("third"));
+
+        assertEquals(List.of(first.getId(), second.getId()),
+                userStorage.getPage(0, 2).stream().map(User::getId).toList());
+        assertEquals(List.of(third.getId()),
+                userStorage.getPage(second.getId(), 2).stream().map(User::getId).toList());
+    }
+
+    @Test
+    void whenFilmsLiked_thenPopularRankedInOneQueryIncludingUnliked() {
+        Film unliked = filmStorage.create(film("Unliked"));
+        Film liked = filmStorage.create(film("Liked"));
+        Film mostLiked = filmStorage.create(film("Most liked"));
+        User first = userStorage.create(user("first"));
+        User second = userStorage.create(user("second"));
+
+        assertTrue(likeStorage.addLike(liked.getId(), first.getId()));
+        assertFalse(likeStorage.addLike(liked.getId(), first.getId()));
+        likeStorage.addLike(mostLiked.getId(), first.getId());
+        likeStorage.addLike(mostLiked.getId(), second.getId());
+
+        assertEquals(List.of(mostLiked.getId(), liked.getId(), unliked.getId()),
+                likeStorage.getPopularFilmIds(10));
+        assertEquals(2, likeStorage.getLikesCount(mostLiked.getId()));
+        assertArrayEquals(new long[]{first.getId(), second.getId()},
+                likeStorage.getLikerIdsByFilm(List.of(mostLiked.getId())).get(mostLiked.getId()));
+        assertArrayEquals(new long[]{liked.getId(), mostLiked.getId()},
+                likeStorage.getLikedFilmIdsByUser(List.of(first.getId())).get(first.getId()));
+        assertEquals(List.of(first.getId(), second.getId()), likeStorage.getMostActiveUserIds(10));
+        assertTrue(likeStorage.removeLike(liked.getId(), first.getId()));
+        assertFalse(likeStorage.hasLike(liked.getId(), first.getId()));
+    }
+
+    @Test
+    void whenLikesAddedAndRemoved_thenPopularFollowsLikesCount() {
+        Film first = filmStorage.create(film("First"));
+        Film second = filmStorage.create(film("Second"));
+        User alice = userStorage.create(user("alice"));
+        User bob = userStorage.create(user("bob"));
+
+        likeStorage.addLikes(List.of(new Like(second.getId(), alice.getId()), new Like(second.getId(), bob.getId()),
+                new Like(second.getId(), bob.getId()), new Like(first.getId(), alice.getId())));
+        assertFalse(likeStorage.addLike(second.getId(), alice.getId()));
+        assertEquals(List.of(second.getId(), first.getId()), likeStorage.getPopularFilmIds(10));
+
+        assertTrue(likeStorage.removeLike(second.getId(), bob.getId()));
+        assertFalse(likeStorage.removeLike(second.getId(), bob.getId()));
+        assertEquals(List.of(first.getId(), second.getId()), likeStorage.getPopularFilmIds(10));
+
+        assertArrayEquals(new long[]{first.getId(), second.getId()}, likeStorage.removeLikesByUser(alice.getId()));
+        likeStorage.addLike(second.getId(), bob.getId());
+        assertEquals(List.of(second.getId(), first.getId()), likeStorage.getPopularFilmIds(10));
+        assertEquals(List.of(second.getId()), likeStorage.getPopularFilmIds(1));
+    }
+
+    @Test
+    void whenFriendsAdded_thenFriendshipMutualAndCommonFriendsFound() {
+        User first = userStorage.create(user("first"));
+        User second = userStorage.create(user("second"));
+        User common = userStorage.create(user("common"));
+
+        assertTrue(friendshipStorage.addFriend(first.getId(), common.getId()));
+        assertFalse(friendshipStorage.addFriend(common.getId(), first.getId()));
+        friendshipStorage.addFriend(second.getId(), common.getId());
+
+        assertEquals(List.of(first.getId(), second.getId()), friendshipStorage.getFriendIds(common.getId()));
+        assertEquals(List.of(common.getId()), friendshipStorage.getCommonFriendIds(first.getId(), second.getId()));
+
+        Map<Long, long[]> byUser = friendshipStorage.getFriendIdsByUser(List.of(common.getId(), first.getId()));
+        assertArrayEquals(new long[]{first.getId(), second.getId()}, byUser.get(common.getId()));
+        assertArrayEquals(new long[]{common.getId()}, byUser.get(first.getId()));
+
+        assertTrue(friendshipStorage.removeFriend(common.getId(), first.getId()));
+        assertTrue(friendshipStorage.getFriendIds(first.getId()).isEmpty());
+        assertFalse(friendshipStorage.getFriendIdsByUser(List.of(first.getId())).containsKey(first.getId()));
+    }
+
+    @Test
+    void whenBatchesApplied_thenExistingRowsReportedAndNewInserted() {
+        Film film = filmStorage.create(film("Film"));
+        User first = userStorage.create(user("first"));
+        User second = userStorage.create(user("second"));
+        User third = userStorage.create(user("third"));
+        likeStorage.addLike(film.getId(), first.getId());
+        friendshipStorage.addFriend(first.getId(), second.getId());
+
+        assertArrayEquals(new boolean[]{false, true, false},
+                likeStorage.addLikes(List.of(new Like(film.getId(), first.getId()),
+                        new Like(film.getId(), second.getId()), new Like(film.getId(), second.getId()))));
+        assertEquals(2, likeStorage.getLikesCount(film.getId()));
+
+        assertArrayEquals(new boolean[]{false, true, false},
+                friendshipStorage.addFriends(List.of(new Friendship(second.getId(), first.getId()),
+                        new Friendship(third.getId(), first.getId()), new Friendship(first.getId(), third.getId()))));
+        assertEquals(List.of(second.getId(), third.getId()), friendshipStorage.getFriendIds(first.getId()));
+        assertEquals(List.of(first.getId()), friendshipStorage.getFriendIds(third.getId()));
+    }
+
+    @Test
+    void whenUserLinksRemoved_thenLikesAndBothFriendshipRowsDeleted() {
+        Film film = filmStorage.create(film("Film"));
+        User first = userStorage.create(user("first"));
+        User second = userStorage.create(user("second"));
+        likeStorage.addLike(film.getId(), first.getId());
+        likeStorage.addLike(film.getId(), second.getId());
+        friendshipStorage.addFriend(second.getId(), first.getId());
+
+        assertEquals(List.of(film.getId()), likeStorage.getLikedFilmIds(first.getId()));
+        assertArrayEquals(new long[]{film.getId()}, likeStorage.removeLikesByUser(first.getId()));
+        assertArrayEquals(new long[]{second.getId()}, friendshipStorage.removeFriends(first.getId()));
+
+        assertEquals(List.of(), likeStorage.getLikedFilmIds(first.getId()));
+        assertEquals(1, likeStorage.getLikesCount(film.getId()));
+        assertEquals(List.of(), friendshipStorage.getFriendIds(second.getId()));
+    }
+
+    @Test
+    void whenSearched_thenRangesAndCaseInsensitivePrefixApplied() {
+        Film matrix = filmStorage.create(film("Матрица"));
+        Film sequel = film("матрица_2");
+        sequel.setReleaseDate(LocalDate.of(2003, 5, 15));
+        filmStorage.create(sequel);
+        Film shortFilm = film("Матрёшка");
+        shortFilm.setDuration(10);
+        filmStorage.create(shortFilm);
+
+        FilmQuery query = new FilmQuery();
+        query.setNamePrefix("МАТ");
+        query.setMinDuration(60);
+        assertEquals(List.of(matrix.getId(), sequel.getId()),
+                filmStorage.search(query, 0, 10).stream().map(Film::getId).toList());
+
+        query.setNamePrefix("матрица_");
+        assertEquals(List.of(sequel.getId()), filmStorage.search(query, 0, 10).stream().map(Film::getId).toList());
+
+        query.setNamePrefix(null);
+        query.setReleasedTo(LocalDate.of(2001, 1, 1));
+        assertEquals(List.of(matrix.getId()), filmStorage.search(query, 0, 10).stream().map(Film::getId).toList());
+    }
+
+    @Test
+    void whenEmailOrLoginTaken_thenConflictAndLookupsFindOwner() {
+        User first = userStorage.create(user("first"));
+        User second = userStorage.create(user("second"));
+
+        User sameEmail = user("other");
+        sameEmail.setEmail("FIRST@example.com");
+        ConflictException conflict = assertThrows(ConflictException.class, () -> userStorage.create(sameEmail));
+        assertEquals("Пользователь с email FIRST@example.com уже существует", conflict.getMessage());
+        second.setLogin("first");
+        conflict = assertThrows(ConflictException.class, () -> userStorage.update(second));
+        assertEquals("Пользователь с логином first уже существует", conflict.getMessage());
+
+        assertEquals(first.getId(), userStorage.getByEmail("First@Example.com").getId());
+        assertEquals(first.getId(), userStorage.getByLogin("first").getId());
+        assertNull(userStorage.getByLogin("FIRST"));
+    }
+
+    @Test
+    void whenUpdatedWithVersion_thenComparedAndIncremented() {
+        Film film = filmStorage.create(film("Film"));
+        assertEquals(1L, film.getVersion());
+
+        film.setName("Updated");
+        assertEquals(2L, filmStorage.update(film).getVersion());
+        film.setVersion(1L);
+        assertThrows(VersionConflictException.class, () -> filmStorage.update(film));
+        film.setVersion(null);
+        assertEquals(3L, filmStorage.update(film).getVersion());
+        assertEquals(3L, filmStorage.get(film.getId()).getVersion());
+
+        User user = user("first");
+        user.setId(100L);
+        assertNull(userStorage.update(user));
+    }
+
+    private Film film(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription("Description");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(120);
+        return film;
+    }
+
+    private User user(String login) {
+        User user = new User();
+        user.setEmail(login + "@example.com");
+        user.setLogin(login);
+        user.setName(login);
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+}